@@ -0,0 +1,39 @@
+package com.personalfit.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Receipt compression (ReceiptCompressionService). Decoding a photo takes
+     * tens of MB, so at most two run at once; upload bursts queue here instead
+     * of occupying the shared applicationTaskExecutor push notifications use.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor receiptCompressionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setThreadNamePrefix("receipt-compression-");
+        return executor;
+    }
+
+    /**
+     * BCrypt hashing during CSV client imports (ClientImportService). CPU
+     * bound, so one thread per core unless app.import.hash-threads says
+     * otherwise.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor clientImportHashExecutor(@Value("${app.import.hash-threads:0}") int hashThreads) {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("client-import-hash-");
+        return executor;
+    }
+}
@@ -55,8 +55,9 @@ public class SecurityConfig {
                         .requestMatchers("/api/users/public/first-admin").permitAll()
                         .requestMatchers("/api/users/public/register").permitAll()
                         .requestMatchers(
-                                "/api/attendance/nfc/9551674a19bae81d4d27f5436470c9ee6ecd0b371088686f6afc58d6bf68df30")
-                        .permitAll() // Allow NFC endpoint without auth
+                                "/api/attendance/nfc/9551674a19bae81d4d27f5436470c9ee6ecd0b371088686f6afc58d6bf68df30",
+                                "/api/attendance/nfc/9551674a19bae81d4d27f5436470c9ee6ecd0b371088686f6afc58d6bf68df30/batch")
+                        .permitAll() // Allow NFC endpoints without auth
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/error").permitAll()
                         .anyRequest().authenticated())
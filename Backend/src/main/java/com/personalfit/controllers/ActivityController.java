@@ -1,6 +1,7 @@
 package com.personalfit.controllers;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,17 +19,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.personalfit.dto.Activity.ActivityDetailInfoDTO;
 import com.personalfit.dto.Activity.ActivityFormTypeDTO;
+import com.personalfit.dto.Activity.ActivityPageDTO;
 import com.personalfit.dto.Activity.ActivitySummaryDTO;
 import com.personalfit.dto.Activity.ActivitySummaryUpsertDTO;
 import com.personalfit.dto.Activity.ActivityTypeDTO;
+import com.personalfit.dto.Activity.RecurrenceTemplateDTO;
 import com.personalfit.dto.Attendance.EnrollmentRequestDTO;
 import com.personalfit.dto.Attendance.EnrollmentResponseDTO;
+import com.personalfit.dto.Attendance.WaitlistEntryDTO;
+import com.personalfit.enums.ActivityStatus;
 import com.personalfit.services.ActivityService;
 import com.personalfit.services.ActivitySummaryService;
+import com.personalfit.services.RecurrenceTemplateService;
+import com.personalfit.services.WaitlistService;
 
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
@@ -48,6 +56,12 @@ public class ActivityController {
     @Autowired
     private ActivitySummaryService activitySummaryService;
 
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private RecurrenceTemplateService recurrenceTemplateService;
+
     /**
      * Create a new activity/class.
      */
@@ -91,7 +105,7 @@ public class ActivityController {
     }
 
     /**
-     * Get all activities.
+     * Get all activities (capped to the most recent ones, see /page).
      */
     @GetMapping("/getAll")
     public ResponseEntity<List<ActivityTypeDTO>> getAllActivities() {
@@ -99,6 +113,25 @@ public class ActivityController {
         return ResponseEntity.ok(activities);
     }
 
+    /**
+     * Keyset-paginated activity listing.
+     * Filters (date range, trainer, status) are optional. To get the next
+     * page, send the previous response's nextAfterDate/nextAfterId as
+     * afterDate/afterId.
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('TRAINER') or hasRole('ADMIN')")
+    public ResponseEntity<ActivityPageDTO> getActivitiesPage(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long trainerId,
+            @RequestParam(required = false) ActivityStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(activityService.getActivitiesPage(from, to, trainerId, status, afterDate, afterId, size));
+    }
+
     /**
      * Get Activities for a specific week.
      * 
@@ -188,6 +221,56 @@ public class ActivityController {
         return ResponseEntity.ok(isEnrolled);
     }
 
+    // ==================
+    // Waitlist Endpoints
+    // ==================
+
+    /**
+     * Join the waitlist of a full class.
+     * The user is enrolled automatically (and notified) when a seat frees up.
+     */
+    @PostMapping("/waitlist/join")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('TRAINER') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> joinWaitlist(@RequestBody EnrollmentRequestDTO enrollmentRequest) {
+        WaitlistEntryDTO entry = waitlistService.joinWaitlist(
+                enrollmentRequest.getUserId(),
+                enrollmentRequest.getActivityId());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Joined waitlist successfully");
+        response.put("success", true);
+        response.put("entry", entry);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Leave the waitlist of a class.
+     */
+    @PostMapping("/waitlist/leave")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('TRAINER') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> leaveWaitlist(@RequestBody EnrollmentRequestDTO enrollmentRequest) {
+        waitlistService.leaveWaitlist(enrollmentRequest.getUserId(), enrollmentRequest.getActivityId());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Left waitlist successfully");
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get a user's position in a class waitlist.
+     */
+    @GetMapping("/{activityId}/waitlist/{userId}")
+    @PreAuthorize("hasRole('CLIENT') or hasRole('TRAINER') or hasRole('ADMIN')")
+    public ResponseEntity<WaitlistEntryDTO> getWaitlistEntry(@PathVariable Long activityId,
+            @PathVariable Long userId) {
+        WaitlistEntryDTO entry = waitlistService.getWaitlistEntry(userId, activityId);
+
+        if (entry == null) {
+            return ResponseEntity.noContent().build();
+        }
+
+        return ResponseEntity.ok(entry);
+    }
+
     /**
      * Batch create activities.
      */
@@ -204,4 +287,49 @@ public class ActivityController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    // ===============================
+    // RECURRENCE TEMPLATES
+    // ===============================
+
+    @GetMapping("/templates")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<RecurrenceTemplateDTO>> getAllTemplates() {
+        return ResponseEntity.ok(recurrenceTemplateService.getAllTemplates());
+    }
+
+    @GetMapping("/templates/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RecurrenceTemplateDTO> getTemplate(@PathVariable Long id) {
+        return ResponseEntity.ok(recurrenceTemplateService.getTemplateById(id));
+    }
+
+    /**
+     * Create a weekly recurring class; its occurrences are generated ahead.
+     */
+    @PostMapping("/templates")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RecurrenceTemplateDTO> createTemplate(@RequestBody RecurrenceTemplateDTO template) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(recurrenceTemplateService.createTemplate(template));
+    }
+
+    /**
+     * Edit a recurring class; future unbooked occurrences are regenerated.
+     */
+    @PutMapping("/templates/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RecurrenceTemplateDTO> updateTemplate(@PathVariable Long id,
+            @RequestBody RecurrenceTemplateDTO template) {
+        return ResponseEntity.ok(recurrenceTemplateService.updateTemplate(id, template));
+    }
+
+    @DeleteMapping("/templates/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> deactivateTemplate(@PathVariable Long id) {
+        recurrenceTemplateService.deactivateTemplate(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Recurring activity stopped successfully");
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
 }
@@ -1,6 +1,5 @@
 package com.personalfit.controllers;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -19,12 +18,11 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import com.personalfit.dto.Attendance.AttendanceDTO;
+import com.personalfit.dto.Attendance.NfcScanEventDTO;
+import com.personalfit.dto.Attendance.NfcScanResultDTO;
 import com.personalfit.enums.AttendanceStatus;
-import com.personalfit.models.Activity;
-import com.personalfit.models.Attendance;
-import com.personalfit.models.User;
 import com.personalfit.services.AttendanceService;
-import com.personalfit.services.UserService;
+import com.personalfit.services.NfcCheckInService;
 
 /**
  * Controller for Attendance Management.
@@ -37,9 +35,6 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
-    @Autowired
-    private UserService userService;
-
     /**
      * Enroll a user in an activity.
      */
@@ -142,17 +137,18 @@ public class AttendanceController {
     }
 
     @Autowired
-    private com.personalfit.services.WorkShiftService workShiftService;
+    private NfcCheckInService nfcCheckInService;
+
+    private static final int MAX_NFC_BATCH_SIZE = 1000;
 
     /**
      * NFC Attendance Endpoint.
-     * Logic:
+     * Logic (see {@link NfcCheckInService}):
      * 1. Receives DNI from NFC scan.
-     * 2. Finds User.
+     * 2. Looks the DNI up in today's in-memory roster.
      * 3. IF TRAINER -> User `WorkShiftService` to Check-in/Check-out.
-     * 4. IF CLIENT -> Finds today's classes for that user.
-     * 5. Determines the relevant class (current or upcoming).
-     * 6. Applies Rules:
+     * 4. IF CLIENT -> Determines the relevant class of today (current or upcoming).
+     * 5. Applies Rules:
      * - Before Start or < 15 mins late -> PRESENT
      * - > 15 mins late -> LATE
      * - No relevant class found (ended) -> ABSENT (for the last class of day)
@@ -180,114 +176,70 @@ public class AttendanceController {
                 return ResponseEntity.ok(response);
             }
 
-            // 1. Find User by DNI
-            User user;
-            try {
-                user = userService.getUserByDni(dni);
-            } catch (Exception e) {
-                response.put("success", false);
-                response.put("message", "User with DNI " + dni + " not found");
+            NfcScanResultDTO result = nfcCheckInService.processScan(dni);
+            if (NfcScanResultDTO.NOT_FOUND.equals(result.getStatus())) {
                 return ResponseEntity.notFound().build();
             }
 
-            // --- TRAINER CHECK-IN / CHECK-OUT LOGIC ---
-            if (user.getRole() == com.personalfit.enums.UserRole.TRAINER) {
-                String action = workShiftService.processCheckInCheckOut(user);
-
-                response.put("success", true);
-                response.put("userName", user.getFullName());
-
-                if ("CHECK_IN".equals(action)) {
-                    response.put("message", "Trainer Check-In Successful");
-                    response.put("status", "CHECK_IN");
-                } else {
-                    response.put("message", "Trainer Check-Out Successful");
-                    response.put("status", "CHECK_OUT");
-                }
-
-                return ResponseEntity.ok(response);
-            }
-            // ------------------------------------------
-
-            LocalDate today = LocalDate.now();
-            LocalDateTime now = LocalDateTime.now();
-
-            // 2. Get User's classes for today
-            List<Attendance> todayAttendances = attendanceService.getUserAttendancesForDate(user.getId(), today);
-
-            if (todayAttendances.isEmpty()) {
-                response.put("success", false);
-                response.put("message", "No classes scheduled for today for " + user.getFullName());
-                return ResponseEntity.notFound().build();
+            response.put("success", result.getSuccess());
+            response.put("message", result.getMessage());
+            response.put("status", result.getStatus());
+            response.put("userName", result.getUserName());
+            if (result.getActivityName() != null) {
+                response.put("activityName", result.getActivityName());
             }
-
-            // 3. Find relevant activity (current or upcoming)
-            Attendance relevantAttendance = null;
-            Activity relevantActivity = null;
-
-            for (Attendance attendance : todayAttendances) {
-                Activity activity = attendance.getActivity();
-                LocalDateTime activityStart = activity.getDate();
-                LocalDateTime activityEnd = activityStart.plusMinutes(activity.getDuration());
-
-                // If activity is currently running or hasn't started yet
-                if (now.isBefore(activityEnd)) {
-                    relevantAttendance = attendance;
-                    relevantActivity = activity;
-                    break;
-                }
+            if (result.getActivityTime() != null) {
+                response.put("activityTime", result.getActivityTime().toString());
             }
 
-            // If no relevant activity found, it means all classes for today have ended.
-            // Mark the LAST class as ABSENT if they are scanning now? (Logic seems to imply
-            // they missed it).
-            if (relevantAttendance == null) {
-                Attendance lastAttendance = todayAttendances.get(todayAttendances.size() - 1);
-                attendanceService.updateAttendanceStatus(lastAttendance.getId(), AttendanceStatus.ABSENT);
+            return ResponseEntity.ok(response);
 
-                response.put("success", true);
-                response.put("message", "Class already ended. Marked as ABSENT");
-                response.put("status", "ABSENT");
-                response.put("userName", user.getFullName());
-                response.put("activityName", lastAttendance.getActivity().getName());
-                return ResponseEntity.ok(response);
-            }
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error processing NFC attendance: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
 
-            // 4. Determine Status based on Time
-            LocalDateTime activityStart = relevantActivity.getDate();
-            LocalDateTime lateThreshold = activityStart.plusMinutes(15);
-            AttendanceStatus newStatus;
-            String statusMessage;
+    /**
+     * Offline NFC ingestion.
+     * The reader buffers scans while the network is down and flushes them
+     * here as an ordered list of (dni, scannedAt). Every event goes through the
+     * same rules as the single-scan endpoint, evaluated at its own timestamp,
+     * and the whole batch is applied in one transaction.
+     */
+    @PostMapping("/nfc/9551674a19bae81d4d27f5436470c9ee6ecd0b371088686f6afc58d6bf68df30/batch")
+    public ResponseEntity<Map<String, Object>> markAttendanceByNFCBatch(@RequestBody List<NfcScanEventDTO> events) {
+        Map<String, Object> response = new HashMap<>();
 
-            if (now.isBefore(activityStart)) {
-                // Class hasn't started yet -> Present
-                newStatus = AttendanceStatus.PRESENT;
-                statusMessage = "Marked as PRESENT (Class starting soon)";
-            } else if (now.isBefore(lateThreshold)) {
-                // < 15 mins late -> Present
-                newStatus = AttendanceStatus.PRESENT;
-                statusMessage = "Marked as PRESENT";
-            } else {
-                // > 15 mins late -> Late
-                newStatus = AttendanceStatus.LATE;
-                statusMessage = "Marked as LATE (> 15 mins delay)";
-            }
+        if (events == null || events.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "At least one scan is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (events.size() > MAX_NFC_BATCH_SIZE) {
+            response.put("success", false);
+            response.put("message", "A batch can contain at most " + MAX_NFC_BATCH_SIZE + " scans");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (events.stream().anyMatch(event -> event == null || event.getDni() == null || event.getScannedAt() == null)) {
+            response.put("success", false);
+            response.put("message", "Every scan requires dni and scannedAt");
+            return ResponseEntity.badRequest().body(response);
+        }
 
-            // 5. Update Status
-            attendanceService.updateAttendanceStatus(relevantAttendance.getId(), newStatus);
+        try {
+            List<NfcScanResultDTO> results = nfcCheckInService.processBatch(events);
 
             response.put("success", true);
-            response.put("message", statusMessage);
-            response.put("status", newStatus.toString());
-            response.put("userName", user.getFullName());
-            response.put("activityName", relevantActivity.getName());
-            response.put("activityTime", relevantActivity.getDate().toString());
-
+            response.put("message", "NFC batch processed");
+            response.put("processed", results.size());
+            response.put("results", results);
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
             response.put("success", false);
-            response.put("message", "Error processing NFC attendance: " + e.getMessage());
+            response.put("message", "Error processing NFC batch: " + e.getMessage());
             return ResponseEntity.internalServerError().body(response);
         }
     }
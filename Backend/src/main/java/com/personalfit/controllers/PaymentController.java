@@ -1,10 +1,15 @@
 package com.personalfit.controllers;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -17,18 +22,26 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.personalfit.dto.Payment.InactiveClientsPaymentRequestDTO;
 import com.personalfit.dto.Payment.ManualPaymentRequestDTO;
+import com.personalfit.dto.Payment.PaymentDashboardDTO;
+import com.personalfit.dto.Payment.PaymentExpirationProgressDTO;
+import com.personalfit.dto.Payment.PaymentFileContentDTO;
 import com.personalfit.dto.Payment.PaymentStatusUpdateDTO;
 import com.personalfit.dto.Payment.PaymentTypeDTO;
 import com.personalfit.models.Payment;
 import com.personalfit.models.PaymentFile;
+import com.personalfit.services.PaymentExpirationService;
+import com.personalfit.services.PaymentExportService;
+import com.personalfit.services.PaymentRollupService;
 import com.personalfit.services.PaymentService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
@@ -45,6 +58,15 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentExpirationService paymentExpirationService;
+
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private PaymentRollupService paymentRollupService;
+
     // ========================
     // PAYMENT ENDPOINTS
     // ========================
@@ -167,25 +189,84 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Progress of the monthly expiration job (current or last run).
+     */
+    @GetMapping("/expiration")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PaymentExpirationProgressDTO> getExpirationProgress() {
+        return ResponseEntity.ok(paymentExpirationService.getProgress());
+    }
+
+    /**
+     * Re-run the monthly expiration, e.g. to resume a failed run. Already
+     * processed payments are skipped.
+     */
+    @PostMapping("/expiration/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PaymentExpirationProgressDTO> runExpiration() {
+        log.info("Monthly payment expiration triggered manually");
+        return ResponseEntity.ok(paymentExpirationService.runExpiration());
+    }
+
+    /**
+     * Admin dashboard figures for a month (defaults to the current one),
+     * read from the payment rollup.
+     */
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PaymentDashboardDTO> getDashboard(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month) {
+        return ResponseEntity.ok(paymentRollupService.getDashboard(year, month));
+    }
+
+    /**
+     * Rebuild the payment rollup from the payment table (backfill or repair).
+     */
+    @PostMapping("/dashboard/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuildDashboard() {
+        log.info("Payment rollup rebuild triggered manually");
+        return ResponseEntity.ok(Map.of("buckets", paymentRollupService.rebuildAll()));
+    }
+
+    /**
+     * Accounting export: payments created between two dates (inclusive) as
+     * CSV, streamed to the response while the rows are read.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportPayments(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        // Validated before the response is committed so errors still map to a 400
+        paymentExportService.validateRange(from, to);
+
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=pagos_" + from + "_" + to + ".csv");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        paymentExportService.writeCsv(from, to, response.getOutputStream());
+    }
+
     // ========================
     // FILE ENDPOINTS
     // ========================
 
     /**
      * Download a payment receipt/proof file.
+     * Streamed from disk; supports Range requests (PDF viewers seek) and
+     * If-None-Match revalidation.
      */
     @GetMapping("/files/{fileId}")
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable Long fileId, Authentication authentication) {
+    public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId, Authentication authentication) {
         log.debug("Downloading file: id={}", fileId);
 
         PaymentFile fileInfo = paymentService.getAuthorizedPaymentFile(fileId, authentication.getName());
-        byte[] fileContent = paymentService.getFileContent(fileInfo);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + fileInfo.getFileName())
-                .contentType(MediaType.parseMediaType(fileInfo.getContentType()))
-                .body(fileContent);
+        return fileResponse(paymentService.getFileResource(fileInfo), "inline");
     }
 
     /**
@@ -193,7 +274,7 @@ public class PaymentController {
      */
     @GetMapping("/getFile/{paymentId}")
     @PreAuthorize("hasRole('CLIENT') or hasRole('ADMIN')")
-    public ResponseEntity<byte[]> getPaymentFile(@PathVariable Long paymentId, Authentication authentication) {
+    public ResponseEntity<Resource> getPaymentFile(@PathVariable Long paymentId, Authentication authentication) {
         log.debug("Fetching file for payment: id={}", paymentId);
 
         Payment payment = paymentService.getAuthorizedPaymentWithFile(paymentId, authentication.getName());
@@ -202,13 +283,18 @@ public class PaymentController {
             return ResponseEntity.notFound().build();
         }
 
-        PaymentFile file = payment.getPaymentFile();
-        byte[] fileContent = paymentService.getFileContent(file);
+        return fileResponse(paymentService.getFileResource(payment.getPaymentFile()), "attachment");
+    }
 
+    private ResponseEntity<Resource> fileResponse(PaymentFileContentDTO file, String disposition) {
+        // Range (206) and If-None-Match (304) are resolved by Spring MVC from
+        // the Resource body and the ETag header
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + file.getFileName())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition + "; filename=" + file.getFileName())
+                .eTag(file.getEtag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
                 .contentType(MediaType.parseMediaType(file.getContentType()))
-                .body(fileContent);
+                .body(file.getResource());
     }
 
 }
@@ -0,0 +1,41 @@
+package com.personalfit.controllers;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.personalfit.services.SlotAvailabilityStreamService;
+
+/**
+ * API Controller for live slot availability.
+ * Replaces polling getAllByWeek to watch for free seats.
+ */
+@RestController
+@RequestMapping("/api/activities/availability")
+public class SlotAvailabilityController {
+
+    @Autowired
+    private SlotAvailabilityStreamService slotAvailabilityStreamService;
+
+    /**
+     * Server-Sent Events stream of (activityId, currentParticipants,
+     * maxParticipants) for the week containing the given date, plus a
+     * "schedule" event (weekStart) when classes are added or removed.
+     *
+     * @param date Any date within the week (ISO format YYYY-MM-DD).
+     */
+    @GetMapping(value = "/stream/{date}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('CLIENT') or hasRole('TRAINER') or hasRole('ADMIN')")
+    public SseEmitter streamAvailability(
+            @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return slotAvailabilityStreamService.subscribe(date);
+    }
+}
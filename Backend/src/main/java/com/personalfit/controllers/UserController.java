@@ -4,8 +4,11 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,19 +22,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.personalfit.dto.User.AvatarFileDTO;
+import com.personalfit.dto.User.ClientImportReportDTO;
 import com.personalfit.dto.User.ClientStatsDTO;
 import com.personalfit.dto.User.CreateUserDTO;
 import com.personalfit.dto.User.UpdatePasswordDTO;
 import com.personalfit.dto.User.UpdateProfileDTO;
+import com.personalfit.dto.User.UserSearchPageDTO;
 import com.personalfit.dto.User.UserTypeDTO;
 import com.personalfit.enums.UserRole;
 import com.personalfit.enums.UserStatus;
 import com.personalfit.models.User;
+import com.personalfit.services.ClientImportService;
 import com.personalfit.services.UserService;
 
 import jakarta.validation.Valid;
@@ -47,6 +55,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ClientImportService clientImportService;
+
     /**
      * Create a new user (Client).
      */
@@ -154,6 +165,23 @@ public class UserController {
         return new ResponseEntity<>(userService.getAllUsers(), HttpStatus.OK);
     }
 
+    /**
+     * Search users by name (substring) or DNI (prefix), keyset-paginated.
+     * To get the next page, send the previous response's
+     * nextAfterName/nextAfterId as afterName/afterId.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserSearchPageDTO> searchUsers(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) UserRole role,
+            @RequestParam(required = false) UserStatus status,
+            @RequestParam(required = false) String afterName,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.searchUsers(q, role, status, afterName, afterId, size));
+    }
+
     /**
      * Get specific user info by ID.
      */
@@ -319,17 +347,38 @@ public class UserController {
     }
 
     /**
-     * Download current avatar image for a user.
+     * Download current avatar image for a user (original upload).
      */
     @GetMapping("/{userId}/avatar")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CLIENT') or hasRole('TRAINER')")
-    public ResponseEntity<byte[]> getAvatar(@PathVariable Long userId) {
-        byte[] content = userService.getAvatarContent(userId);
-        String contentType = userService.getAvatarContentType(userId);
+    public ResponseEntity<Resource> getAvatar(@PathVariable Long userId,
+            @RequestParam(required = false) String v) {
+        return avatarResponse(userService.getAvatarFile(userId, null), v);
+    }
+
+    /**
+     * Download a square avatar thumbnail (64 or 256 px) for lists and the
+     * profile header. Clients pass the user's avatarUpdatedAt as {@code v};
+     * versioned URLs are cached for a year, unversioned ones revalidate with
+     * the ETag and get a 304 when unchanged.
+     */
+    @GetMapping("/{userId}/avatar/{size}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CLIENT') or hasRole('TRAINER')")
+    public ResponseEntity<Resource> getAvatarThumbnail(@PathVariable Long userId, @PathVariable Integer size,
+            @RequestParam(required = false) String v) {
+        return avatarResponse(userService.getAvatarFile(userId, size), v);
+    }
+
+    private ResponseEntity<Resource> avatarResponse(AvatarFileDTO avatar, String version) {
+        CacheControl cacheControl = version != null
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                : CacheControl.noCache().cachePrivate();
 
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(content);
+                .eTag(avatar.getEtag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(avatar.getContentType()))
+                .body(avatar.getResource());
     }
 
     /**
@@ -347,6 +396,15 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Import clients from a CSV export. Invalid rows are reported, not fatal.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import/clients", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ClientImportReportDTO> importClients(@RequestPart("file") MultipartFile file) {
+        return ResponseEntity.ok(clientImportService.importClientsCsv(file));
+    }
+
     // ===================================
     // CLIENT STATISTICS ENDPOINTS
     // ===================================
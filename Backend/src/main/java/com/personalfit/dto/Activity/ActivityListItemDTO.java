@@ -0,0 +1,32 @@
+package com.personalfit.dto.Activity;
+
+import java.time.LocalDateTime;
+
+import com.personalfit.enums.ActivityStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Flat listing row: activity with its trainer and seat counter, loaded with
+ * a constructor query (no attendances).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityListItemDTO {
+    private Long id;
+    private String name;
+    private Long trainerId;
+    private String trainerFirstName;
+    private String trainerLastName;
+    private LocalDateTime date;
+    private Integer duration;
+    private Integer maxParticipants;
+    private Integer currentParticipants;
+    private ActivityStatus status;
+    private Boolean isRecurring;
+}
@@ -0,0 +1,24 @@
+package com.personalfit.dto.Activity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One keyset page of the activity listing. Pass nextAfterDate/nextAfterId
+ * back as afterDate/afterId to get the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityPageDTO {
+    private List<ActivityListItemDTO> items;
+    private Boolean hasMore;
+    private LocalDateTime nextAfterDate;
+    private Long nextAfterId;
+}
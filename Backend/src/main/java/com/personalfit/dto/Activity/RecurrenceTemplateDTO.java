@@ -0,0 +1,28 @@
+package com.personalfit.dto.Activity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurrenceTemplateDTO {
+    private Long id;
+    private String name;
+    private Long trainerId;
+    private String trainerName;
+    private DayOfWeek dayOfWeek;
+    private LocalTime time; // HH:mm:ss
+    private Integer duration; // Minutos
+    private Integer maxParticipants;
+    private LocalDate startDate; // Opcional - hoy si no se proporciona
+    private LocalDate endDate; // Opcional - sin fin si es null
+    private Boolean active;
+}
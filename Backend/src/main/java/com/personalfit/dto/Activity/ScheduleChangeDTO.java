@@ -0,0 +1,20 @@
+package com.personalfit.dto.Activity;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Classes were added to or removed from a week, pushed over the availability
+ * stream; clients reload that week's schedule.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleChangeDTO {
+    private LocalDate weekStart;
+}
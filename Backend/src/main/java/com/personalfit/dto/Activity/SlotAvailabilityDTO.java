@@ -0,0 +1,22 @@
+package com.personalfit.dto.Activity;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Seat counter of one activity, pushed over the availability stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotAvailabilityDTO {
+    private Long activityId;
+    private LocalDateTime date;
+    private Integer currentParticipants;
+    private Integer maxParticipants;
+}
@@ -0,0 +1,33 @@
+package com.personalfit.dto.Activity;
+
+import java.time.LocalDateTime;
+
+import com.personalfit.enums.ActivityStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the weekly schedule projection: an activity joined with one of
+ * its participants (participantId null when it has none).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeeklyScheduleRowDTO {
+    private Long activityId;
+    private String name;
+    private Long trainerId;
+    private String trainerFirstName;
+    private String trainerLastName;
+    private LocalDateTime date;
+    private Integer duration;
+    private Integer slots;
+    private ActivityStatus status;
+    private Boolean isRecurring;
+    private Long participantId;
+    private Long summaryId;
+}
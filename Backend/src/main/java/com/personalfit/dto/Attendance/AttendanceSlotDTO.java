@@ -0,0 +1,25 @@
+package com.personalfit.dto.Attendance;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat view of one enrollment (attendance + its activity schedule), loaded
+ * with a constructor query so no entity graph is hydrated.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSlotDTO {
+    private Long attendanceId;
+    private Long userId;
+    private Long activityId;
+    private String activityName;
+    private LocalDateTime activityDate;
+    private Integer duration;
+}
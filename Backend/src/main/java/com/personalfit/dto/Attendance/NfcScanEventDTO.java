@@ -0,0 +1,17 @@
+package com.personalfit.dto.Attendance;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NfcScanEventDTO {
+    private Integer dni;
+    private LocalDateTime scannedAt; // Reader's local time when the card was tapped
+}
@@ -0,0 +1,25 @@
+package com.personalfit.dto.Attendance;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NfcScanResultDTO {
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    private Integer dni;
+    private Boolean success;
+    private String status; // PRESENT, LATE, ABSENT, CHECK_IN, CHECK_OUT or NOT_FOUND
+    private String message;
+    private String userName;
+    private String activityName;
+    private LocalDateTime activityTime;
+    private LocalDateTime scannedAt; // Only set for batch ingestion
+}
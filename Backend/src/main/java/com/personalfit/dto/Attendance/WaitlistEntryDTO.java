@@ -0,0 +1,20 @@
+package com.personalfit.dto.Attendance;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDTO {
+    private Long id;
+    private Long activityId;
+    private Long userId;
+    private Long position; // 1-based position in the queue
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package com.personalfit.dto.Payment;
+
+import java.time.LocalDateTime;
+
+import com.personalfit.enums.PaymentStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One PAID or PENDING payment of a user, as read from the payment table to
+ * (re)build membership_period rows.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MembershipPaymentDTO {
+    private Long userId;
+    private Long paymentId;
+    private PaymentStatus status;
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+}
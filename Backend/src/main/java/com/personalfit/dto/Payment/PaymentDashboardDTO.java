@@ -0,0 +1,46 @@
+package com.personalfit.dto.Payment;
+
+import java.util.List;
+
+import com.personalfit.enums.MethodType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Admin dashboard: collections of one month (payments created in it) and the
+ * pending-verification backlog across all months.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentDashboardDTO {
+    private Integer year;
+    private Integer month;
+
+    private Double collectedAmount;
+    private Long collectedCount;
+    private Double pendingAmount;
+    private Long pendingCount;
+    private Long rejectedCount;
+    private Long expiredUnpaidCount;
+    // Collected payments over all payments of the month (0-100); null without payments
+    private Double collectionRate;
+    private List<MethodTotalsDTO> collectedByMethod;
+
+    private Long backlogCount;
+    private Double backlogAmount;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MethodTotalsDTO {
+        private MethodType method;
+        private Long count;
+        private Double amount;
+    }
+}
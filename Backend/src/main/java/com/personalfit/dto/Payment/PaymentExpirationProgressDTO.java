@@ -0,0 +1,28 @@
+package com.personalfit.dto.Payment;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot of the monthly payment expiration job. Counters cover the current
+ * (or last) run; lastCompletedCycle is the last month fully processed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentExpirationProgressDTO {
+    private String state; // IDLE, RUNNING, COMPLETED, FAILED
+    private String lastCompletedCycle; // yyyy-MM
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Integer chunks;
+    private Integer pendingExpired;
+    private Integer paidExpired;
+    private Integer usersDeactivated;
+    private String error;
+}
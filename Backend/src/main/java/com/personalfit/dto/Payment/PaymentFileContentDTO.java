@@ -0,0 +1,23 @@
+package com.personalfit.dto.Payment;
+
+import org.springframework.core.io.Resource;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A stored receipt ready to be streamed: the file on disk plus what the
+ * response headers need (media type, download name, strong ETag).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentFileContentDTO {
+    private Resource resource;
+    private String fileName;
+    private String contentType;
+    private String etag;
+}
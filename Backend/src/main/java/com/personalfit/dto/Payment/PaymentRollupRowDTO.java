@@ -0,0 +1,27 @@
+package com.personalfit.dto.Payment;
+
+import com.personalfit.enums.MethodType;
+import com.personalfit.enums.PaymentStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payment count and amount of one month, status, method and verification
+ * state, aggregated from the payment table to (re)build payment_rollup rows.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRollupRowDTO {
+    private Integer year;
+    private Integer month;
+    private PaymentStatus status;
+    private MethodType methodType;
+    private Boolean verified;
+    private Long paymentCount;
+    private Double totalAmount;
+}
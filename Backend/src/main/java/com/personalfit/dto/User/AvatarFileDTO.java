@@ -0,0 +1,22 @@
+package com.personalfit.dto.User;
+
+import org.springframework.core.io.Resource;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An avatar image on disk, ready to be streamed: the file, its media type
+ * and a strong ETag derived from its size and modification time.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvatarFileDTO {
+    private Resource resource;
+    private String contentType;
+    private String etag;
+}
@@ -0,0 +1,30 @@
+package com.personalfit.dto.User;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientImportReportDTO {
+    private Integer totalRows;
+    private Integer createdCount;
+    private Integer reactivatedCount;
+    private Integer failedCount;
+    private List<RowErrorDTO> errors;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowErrorDTO {
+        private Integer line;
+        private String dni;
+        private String message;
+    }
+}
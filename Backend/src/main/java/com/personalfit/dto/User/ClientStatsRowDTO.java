@@ -0,0 +1,30 @@
+package com.personalfit.dto.User;
+
+import java.time.LocalDateTime;
+
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row with everything the client home screen needs, read in a single
+ * query (see UserRepository.findClientStatsRow).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientStatsRowDTO {
+    private UserRole role;
+    private UserStatus status;
+    private Long monthCount;
+    private Long completedCount;
+    private Long nextClassId;
+    private String nextClassName;
+    private LocalDateTime nextClassDate;
+    private LocalDateTime planExpiresAt;
+}
@@ -0,0 +1,24 @@
+package com.personalfit.dto.User;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Attendance aggregates of one user computed from the attendance table,
+ * used to (re)build user_activity_stats rows.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserActivityStatsDTO {
+    private Long userId;
+    private Long totalCount;
+    private Long completedCount;
+    private LocalDateTime lastCompletedAt;
+    private Long monthCount;
+}
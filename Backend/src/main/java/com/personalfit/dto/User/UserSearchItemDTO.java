@@ -0,0 +1,25 @@
+package com.personalfit.dto.User;
+
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Slim row of the admin user search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchItemDTO {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private Integer dni;
+    private UserStatus status;
+    private UserRole role;
+}
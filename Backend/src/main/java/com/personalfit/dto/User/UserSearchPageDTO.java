@@ -0,0 +1,24 @@
+package com.personalfit.dto.User;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One keyset page of the user search, ordered by last name, first name and
+ * id. Pass nextAfterName/nextAfterId back as afterName/afterId to get the
+ * following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchPageDTO {
+    private List<UserSearchItemDTO> items;
+    private Boolean hasMore;
+    private String nextAfterName;
+    private Long nextAfterId;
+}
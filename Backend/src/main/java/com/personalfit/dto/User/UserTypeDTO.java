@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -21,6 +22,7 @@ public class UserTypeDTO {
     private String emergencyPhone;
     private String email;
     private String avatar;
+    private LocalDateTime avatarUpdatedAt; // Send as ?v= to get the long-cached avatar variants
     private LocalDate joinDate;
     private String address;
     private LocalDate birthDate;
@@ -62,6 +64,7 @@ public class UserTypeDTO {
         this.emergencyPhone = user.getEmergencyPhone();
         this.email = user.getEmail();
         this.avatar = user.getAvatar();
+        this.avatarUpdatedAt = user.getAvatarUpdatedAt();
         this.joinDate = user.getJoinDate();
         this.address = user.getAddress();
         this.birthDate = user.getBirthDate();
@@ -6,15 +6,21 @@ import java.util.List;
 import com.personalfit.enums.ActivityStatus;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -25,6 +31,12 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_activity_status_end_time", columnList = "status, end_time"),
+        @Index(name = "idx_activity_date_id", columnList = "date, id"),
+        @Index(name = "idx_activity_trainer_date", columnList = "trainer_id, date"),
+        @Index(name = "idx_activity_template_date", columnList = "template_id, date")
+})
 public class Activity {
 
     @Id
@@ -32,10 +44,19 @@ public class Activity {
     private Long id;
     private String name;
     private Integer slots;
+    // Seats already claimed. Only written through the conditional UPDATEs in
+    // ActivityRepository, never by entity saves, so a stale copy of the
+    // activity can't overwrite a concurrent reservation.
+    @Column(name = "reserved_slots", insertable = false, updatable = false, columnDefinition = "integer default 0 not null")
+    private Integer reservedSlots;
     private LocalDateTime date;
     private LocalDateTime createdAt;
     private Boolean repeatEveryWeek;
     private Integer duration; // Minutes
+    // date + duration, kept in sync on every save so finished activities can
+    // be selected with a plain column comparison.
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
     @Enumerated(EnumType.STRING)
     private ActivityStatus status;
     
@@ -45,7 +66,16 @@ public class Activity {
     @ManyToOne
     @JoinColumn(name = "trainer_id", nullable = false)
     private User trainer;
+    // Set for occurrences materialized from a weekly recurrence template
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "template_id")
+    private RecurrenceTemplate template;
     @OneToMany(mappedBy = "activity", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Attendance> attendances;
 
+    @PrePersist
+    @PreUpdate
+    protected void syncEndTime() {
+        endTime = (date != null && duration != null) ? date.plusMinutes(duration) : null;
+    }
 }
@@ -0,0 +1,49 @@
+package com.personalfit.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Materialized membership state of one user, recomputed by
+ * MembershipPeriodService in the same transaction as every payment write
+ * (create, approve, reject, expire). Whether the membership is valid is
+ * decided by comparing paidThrough with the current date at read time.
+ */
+@Entity
+@Table(name = "membership_period")
+@Getter
+@Setter
+public class MembershipPeriod {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Latest expiration among the user's PAID payments; null without one
+    @Column(name = "paid_through")
+    private LocalDateTime paidThrough;
+
+    // PAID payment that sets paidThrough
+    @Column(name = "source_payment_id")
+    private Long sourcePaymentId;
+
+    // Creation of the latest PENDING payment (grace period for inactive users)
+    @Column(name = "pending_since")
+    private LocalDateTime pendingSince;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
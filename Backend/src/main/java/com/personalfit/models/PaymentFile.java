@@ -23,7 +23,7 @@ public class PaymentFile {
     private String fileName;      // Nombre original del archivo (o generado)
     private String contentType;
     
-    // Metadatos para compresión (opcional, para futuras mejoras)
+    // Metadatos de compresión: los completa ReceiptCompressionService tras el commit
     private Long originalSize;    // Tamaño original antes de compresión
     private Long compressedSize;  // Tamaño después de compresión
     private Integer compressionRatio; // Porcentaje de compresión aplicado
@@ -0,0 +1,67 @@
+package com.personalfit.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.personalfit.enums.MethodType;
+import com.personalfit.enums.PaymentStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Payment totals of one month (by creation date), status and method, kept
+ * up to date by PaymentRollupService on every payment write. Status is the
+ * collection outcome: a PAID payment that later expires stays under PAID,
+ * EXPIRED only counts pending payments that were never verified.
+ *
+ * The unique key on (month_start, status, method_type) is created by
+ * PaymentRollupService.ensureBucketKey: it needs NULLS NOT DISTINCT, which
+ * the mapping can't express.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "payment_rollup")
+public class PaymentRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentStatus status;
+
+    // Null only for legacy payments loaded without a method
+    @Enumerated(EnumType.STRING)
+    @Column(name = "method_type")
+    private MethodType methodType;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount = 0L;
+
+    @Column(name = "total_amount", nullable = false)
+    private Double totalAmount = 0.0;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
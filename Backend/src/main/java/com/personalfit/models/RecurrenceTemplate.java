@@ -0,0 +1,90 @@
+package com.personalfit.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Weekly recurrence rule. Occurrences are materialized as regular Activity
+ * rows a few weeks ahead (see RecurrenceTemplateService).
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "recurrence_template")
+public class RecurrenceTemplate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String name;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week")
+    private DayOfWeek dayOfWeek;
+    @Column(name = "start_time")
+    private LocalTime startTime;
+    private Integer duration; // Minutes
+    private Integer slots;
+
+    @ManyToOne
+    @JoinColumn(name = "trainer_id", nullable = false)
+    private User trainer;
+
+    @Column(name = "start_date")
+    private LocalDate startDate; // First day occurrences may fall on
+    @Column(name = "end_date")
+    private LocalDate endDate; // Inclusive, null = no end
+
+    // Days whose occurrence was deleted or moved to another day by hand, so
+    // materializing doesn't bring it back
+    @Builder.Default
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "recurrence_template_skipped_date", joinColumns = @JoinColumn(name = "template_id"), uniqueConstraints = {
+            @UniqueConstraint(columnNames = { "template_id", "occurrence_date" })
+    })
+    @Column(name = "occurrence_date", nullable = false)
+    private Set<LocalDate> skippedDates = new HashSet<>();
+
+    @Builder.Default
+    private Boolean active = true;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
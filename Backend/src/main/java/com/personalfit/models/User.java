@@ -16,16 +16,20 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "app_user")
+@Table(name = "app_user", indexes = {
+        @Index(name = "idx_app_user_birth_month_day", columnList = "birth_month, birth_day")
+})
 public class User {
 
     @Id
@@ -44,12 +48,21 @@ public class User {
     @Column(name = "email")
     private String email;
     private String avatar; // Por ahora son las iniciales del nombre y apellido, ejemplo: Juan Pérez -> JP
+    @Column(name = "avatar_updated_at")
+    private LocalDateTime avatarUpdatedAt; // Última subida de foto; versiona las URLs cacheadas del avatar
     @Column(name = "join_date")
     private LocalDate joinDate; // Fecha de alta del usuario
     @Column(name = "address")
     private String address;
     @Column(name = "birth_date")
     private LocalDate birthDate; // Fecha de nacimiento del usuario
+    // Copia de mes y día de birthDate, indexada para la búsqueda diaria de cumpleaños
+    @Setter(AccessLevel.NONE)
+    @Column(name = "birth_month")
+    private Integer birthMonth;
+    @Setter(AccessLevel.NONE)
+    @Column(name = "birth_day")
+    private Integer birthDay;
     private LocalDateTime lastAttendance; // Fecha de la última asistencia del usuario
     @Column(name = "dni", unique = true)
     private Integer dni;
@@ -69,6 +82,12 @@ public class User {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt = null;
 
+    public void setBirthDate(LocalDate birthDate) {
+        this.birthDate = birthDate;
+        this.birthMonth = birthDate != null ? birthDate.getMonthValue() : null;
+        this.birthDay = birthDate != null ? birthDate.getDayOfMonth() : null;
+    }
+
     public String getFullName() {
         return firstName + " " + lastName;
     }
@@ -0,0 +1,61 @@
+package com.personalfit.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Denormalized attendance counters of one user, kept up to date by
+ * UserActivityStatsService as attendances are created, removed or change
+ * status. Completed means PRESENT or LATE.
+ */
+@Entity
+@Table(name = "user_activity_stats")
+@Getter
+@Setter
+public class UserActivityStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "total_count", nullable = false)
+    private Integer totalCount = 0;
+
+    @Column(name = "completed_count", nullable = false)
+    private Integer completedCount = 0;
+
+    // Start of the latest completed activity
+    @Column(name = "last_completed_at")
+    private LocalDateTime lastCompletedAt;
+
+    // monthCount counts completed activities of this month only
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Column(name = "month_count", nullable = false)
+    private Integer monthCount = 0;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Completed activities in the month starting at {@code currentMonthStart}.
+     */
+    public int getMonthCountFor(LocalDate currentMonthStart) {
+        return currentMonthStart.equals(monthStart) ? monthCount : 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.personalfit.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A user queued for a full activity. Entries are served FIFO by
+ * (createdAt, id) and removed once the user is promoted to an Attendance.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "waitlist_entry", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_waitlist_user_activity", columnNames = { "user_id", "activity_id" })
+}, indexes = {
+        @Index(name = "idx_waitlist_activity_created", columnList = "activity_id, created_at")
+})
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    @ManyToOne
+    @JoinColumn(name = "activity_id", nullable = false)
+    private Activity activity;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -2,10 +2,21 @@ package com.personalfit.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import com.personalfit.dto.Activity.ActivityListItemDTO;
+import com.personalfit.dto.Activity.SlotAvailabilityDTO;
+import com.personalfit.dto.Activity.WeeklyScheduleRowDTO;
 import com.personalfit.enums.ActivityStatus;
 import com.personalfit.models.Activity;
 import com.personalfit.models.User;
@@ -27,4 +38,177 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     // específica
     boolean existsByNameAndTrainerAndDateBetween(String name, User trainer, LocalDateTime startDate,
             LocalDateTime endDate);
+
+    /**
+     * Loads the activity holding its row lock until commit. Seat claims and
+     * releases take the same lock, so a reader of reservedSlots here sees a
+     * value no concurrent enroll or unenroll can change under it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Activity a WHERE a.id = :activityId")
+    Optional<Activity> findByIdForUpdate(@Param("activityId") Long activityId);
+
+    /**
+     * Claims one seat if the activity still has room. The capacity check and
+     * the increment are a single conditional UPDATE, so concurrent enrolls
+     * serialize on the row lock and the counter can never exceed the slots.
+     *
+     * @return 1 if a seat was claimed, 0 if the activity is full.
+     */
+    @Modifying
+    @Query("UPDATE Activity a SET a.reservedSlots = a.reservedSlots + 1 " +
+            "WHERE a.id = :activityId AND a.reservedSlots < a.slots")
+    int tryReserveSlot(@Param("activityId") Long activityId);
+
+    /**
+     * Gives back one seat previously claimed with {@link #tryReserveSlot(Long)}.
+     */
+    @Modifying
+    @Query("UPDATE Activity a SET a.reservedSlots = a.reservedSlots - 1 " +
+            "WHERE a.id = :activityId AND a.reservedSlots > 0")
+    int releaseSlot(@Param("activityId") Long activityId);
+
+    /**
+     * Activities whose seat counter doesn't match their attendance rows
+     * (created before the counter existed, or edited by hand).
+     */
+    @Query(value = "SELECT a.id FROM activity a WHERE a.reserved_slots <> " +
+            "(SELECT COUNT(*) FROM attendance t WHERE t.activity_id = a.id)", nativeQuery = true)
+    List<Long> findIdsWithStaleReservedSlots();
+
+    /**
+     * Re-derives one seat counter from the attendance table. The caller
+     * must hold the activity's row lock, so the count is read after any
+     * enrollment holding it has committed.
+     */
+    @Modifying
+    @Query(value = "UPDATE activity SET reserved_slots = " +
+            "(SELECT COUNT(*) FROM attendance t WHERE t.activity_id = activity.id) " +
+            "WHERE id = :activityId", nativeQuery = true)
+    int reconcileReservedSlots(@Param("activityId") Long activityId);
+
+    /**
+     * Activities saved before end_time existed (startup backfill).
+     */
+    List<Activity> findByEndTimeIsNullAndDurationIsNotNull();
+
+    /**
+     * Set-based lifecycle transition: every activity in {@code from} whose end
+     * time has passed moves to {@code to}.
+     */
+    @Modifying
+    @Query("UPDATE Activity a SET a.status = :to WHERE a.status = :from AND a.endTime <= :now")
+    int updateStatusOfActivitiesEndedBy(@Param("from") ActivityStatus from,
+            @Param("to") ActivityStatus to,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Next completion deadline. Served by the (status, end_time) index.
+     */
+    @Query("SELECT MIN(a.endTime) FROM Activity a WHERE a.status = :status")
+    Optional<LocalDateTime> findEarliestEndTimeByStatus(@Param("status") ActivityStatus status);
+
+    /**
+     * Start times of the template's occurrences in the range, used to skip
+     * the ones that already exist when materializing. Keyed by template so
+     * renaming it, or a one-off class with the same name and trainer, can't
+     * hide an occurrence.
+     */
+    @Query("SELECT a.date FROM Activity a WHERE a.template.id = :templateId " +
+            "AND a.date BETWEEN :start AND :end")
+    List<LocalDateTime> findDatesByTemplateIdAndDateBetween(@Param("templateId") Long templateId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    /**
+     * Removes a template's future occurrences nobody has booked or queued
+     * for, so they can be regenerated after the template changes.
+     */
+    @Modifying
+    @Query("DELETE FROM Activity a WHERE a.template.id = :templateId AND a.date > :now " +
+            "AND NOT EXISTS (SELECT t.id FROM Attendance t WHERE t.activity = a) " +
+            "AND NOT EXISTS (SELECT w.id FROM WaitlistEntry w WHERE w.activity = a)")
+    int deleteUnbookedOccurrencesAfter(@Param("templateId") Long templateId, @Param("now") LocalDateTime now);
+
+    /**
+     * The template's occurrences after {@code now}, locked like
+     * findByIdForUpdate so their reservedSlots can't move while the template
+     * edit is copied onto them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Activity a WHERE a.template.id = :templateId AND a.date > :now ORDER BY a.date, a.id")
+    List<Activity> findOccurrencesAfterForUpdate(@Param("templateId") Long templateId,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Pre-template recurring activities (weekly clone chain).
+     */
+    List<Activity> findByStatusAndRepeatEveryWeekTrueAndTemplateIsNull(ActivityStatus status);
+
+    /**
+     * Weekly schedule read model: activities in the range with their trainer,
+     * participants and summary presence in a single query, one row per
+     * enrollment (or one row with null participant for empty activities).
+     */
+    @Query("SELECT new com.personalfit.dto.Activity.WeeklyScheduleRowDTO(a.id, a.name, tr.id, tr.firstName, " +
+            "tr.lastName, a.date, a.duration, a.slots, a.status, a.isRecurring, u.id, s.id) " +
+            "FROM Activity a JOIN a.trainer tr LEFT JOIN a.attendances t LEFT JOIN t.user u " +
+            "LEFT JOIN t.activitySummary s " +
+            "WHERE a.date BETWEEN :start AND :end ORDER BY a.date, a.id, t.id")
+    List<WeeklyScheduleRowDTO> findWeeklyScheduleRows(@Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    String LISTING_SELECT = "SELECT new com.personalfit.dto.Activity.ActivityListItemDTO(a.id, a.name, tr.id, "
+            + "tr.firstName, tr.lastName, a.date, a.duration, a.slots, a.reservedSlots, a.status, a.isRecurring) "
+            + "FROM Activity a JOIN a.trainer tr "
+            + "WHERE a.date BETWEEN :from AND :to AND (a.date, a.id) > (:afterDate, :afterId) ";
+
+    /**
+     * Keyset page of the activity listing ordered by (date, id), starting
+     * after the cursor (afterDate, afterId). The date range and the cursor
+     * are always bound, so both are index range conditions on (date, id);
+     * each optional filter combination has its own query below.
+     */
+    @Query(LISTING_SELECT + "ORDER BY a.date, a.id")
+    List<ActivityListItemDTO> findListingPage(@Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query(LISTING_SELECT + "AND tr.id = :trainerId ORDER BY a.date, a.id")
+    List<ActivityListItemDTO> findListingPageByTrainer(@Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("trainerId") Long trainerId,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query(LISTING_SELECT + "AND a.status = :status ORDER BY a.date, a.id")
+    List<ActivityListItemDTO> findListingPageByStatus(@Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("status") ActivityStatus status,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query(LISTING_SELECT + "AND tr.id = :trainerId AND a.status = :status ORDER BY a.date, a.id")
+    List<ActivityListItemDTO> findListingPageByTrainerAndStatus(@Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("trainerId") Long trainerId,
+            @Param("status") ActivityStatus status,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    List<Activity> findAllByOrderByDateDescIdDesc(Limit limit);
+
+    @Query("SELECT new com.personalfit.dto.Activity.SlotAvailabilityDTO(a.id, a.date, a.reservedSlots, a.slots) " +
+            "FROM Activity a WHERE a.id = :activityId")
+    Optional<SlotAvailabilityDTO> findSlotAvailability(@Param("activityId") Long activityId);
+
+    @Query("SELECT new com.personalfit.dto.Activity.SlotAvailabilityDTO(a.id, a.date, a.reservedSlots, a.slots) " +
+            "FROM Activity a WHERE a.date BETWEEN :start AND :end ORDER BY a.date, a.id")
+    List<SlotAvailabilityDTO> findSlotAvailabilityBetween(@Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
 }
@@ -1,15 +1,19 @@
 package com.personalfit.repository;
 
+import com.personalfit.dto.Attendance.AttendanceSlotDTO;
 import com.personalfit.models.Attendance;
 import com.personalfit.models.User;
+import com.personalfit.enums.ActivityStatus;
 import com.personalfit.enums.AttendanceStatus;
 import com.personalfit.models.Activity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,19 +40,81 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
      */
     boolean existsByUserAndActivity(User user, Activity activity);
 
+    /**
+     * Check if user is enrolled in activity, by ids (no entity loading).
+     */
+    boolean existsByUserIdAndActivityId(Long userId, Long activityId);
+
     /**
      * Delete attendance by user and activity.
      */
     void deleteByUserAndActivity(User user, Activity activity);
 
     /**
-     * Find attendances by activity and attendance status.
+     * Count user enrollments in activities starting in [dayStart, nextDayStart).
+     * A plain range so the activity date index applies on any database.
+     */
+    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.user = :user " +
+            "AND a.activity.date >= :dayStart AND a.activity.date < :nextDayStart")
+    long countByUserAndActivityDate(@Param("user") User user,
+                                    @Param("dayStart") LocalDateTime dayStart,
+                                    @Param("nextDayStart") LocalDateTime nextDayStart);
+
+    /**
+     * Enrollments whose activity starts in [start, end), ordered by start.
+     * Used to build the daily NFC roster.
+     */
+    @Query("SELECT new com.personalfit.dto.Attendance.AttendanceSlotDTO(t.id, u.id, a.id, a.name, a.date, a.duration) " +
+            "FROM Attendance t JOIN t.user u JOIN t.activity a " +
+            "WHERE a.date >= :start AND a.date < :end ORDER BY a.date ASC, t.id ASC")
+    List<AttendanceSlotDTO> findSlotsByActivityDateRange(@Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    @Query("SELECT new com.personalfit.dto.Attendance.AttendanceSlotDTO(t.id, u.id, a.id, a.name, a.date, a.duration) " +
+            "FROM Attendance t JOIN t.user u JOIN t.activity a " +
+            "WHERE u.id = :userId AND a.date >= :start AND a.date < :end ORDER BY a.date ASC, t.id ASC")
+    List<AttendanceSlotDTO> findSlotsByUserIdAndActivityDateRange(@Param("userId") Long userId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    @Query("SELECT new com.personalfit.dto.Attendance.AttendanceSlotDTO(t.id, u.id, a.id, a.name, a.date, a.duration) " +
+            "FROM Attendance t JOIN t.user u JOIN t.activity a " +
+            "WHERE a.id = :activityId ORDER BY t.id ASC")
+    List<AttendanceSlotDTO> findSlotsByActivityId(@Param("activityId") Long activityId);
+
+    /**
+     * Sets the status of a single attendance without loading it.
+     */
+    @Modifying
+    @Query("UPDATE Attendance t SET t.attendance = :status, t.updatedAt = :updatedAt WHERE t.id = :attendanceId")
+    int updateStatus(@Param("attendanceId") Long attendanceId,
+            @Param("status") AttendanceStatus status,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Same, only when the current status is one of {@code from}: the row
+     * count tells the caller which side the previous status was on without
+     * reading it first.
      */
-    List<Attendance> findByActivityAndAttendance(Activity activity, AttendanceStatus attendance);
+    @Modifying
+    @Query("UPDATE Attendance t SET t.attendance = :status, t.updatedAt = :updatedAt " +
+            "WHERE t.id = :attendanceId AND t.attendance IN :from")
+    int updateStatusIfIn(@Param("attendanceId") Long attendanceId,
+            @Param("status") AttendanceStatus status,
+            @Param("updatedAt") LocalDateTime updatedAt,
+            @Param("from") Collection<AttendanceStatus> from);
 
     /**
-     * Count user enrollments for a specific date.
+     * Set-based absentee marking: PENDING -> ABSENT for every activity still in
+     * {@code activityStatus} whose end time has passed. Run before the
+     * activities themselves are moved out of that status.
      */
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.user = :user AND DATE(a.activity.date) = DATE(:date)")
-    long countByUserAndActivityDate(@Param("user") User user, @Param("date") LocalDateTime date);
+    @Modifying
+    @Query("UPDATE Attendance t SET t.attendance = :absent, t.updatedAt = :now " +
+            "WHERE t.attendance = :pending AND t.activity.id IN " +
+            "(SELECT a.id FROM Activity a WHERE a.status = :activityStatus AND a.endTime <= :now)")
+    int markPendingAsAbsentForActivitiesEndedBy(@Param("pending") AttendanceStatus pending,
+            @Param("absent") AttendanceStatus absent,
+            @Param("activityStatus") ActivityStatus activityStatus,
+            @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,58 @@
+package com.personalfit.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.personalfit.dto.Payment.MembershipPaymentDTO;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.models.MembershipPeriod;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface MembershipPeriodRepository extends JpaRepository<MembershipPeriod, Long> {
+
+    /**
+     * Users among {@code userIds} whose membership is paid at least until
+     * {@code expiration}.
+     */
+    @Query("SELECT m.userId FROM MembershipPeriod m " +
+            "WHERE m.userId IN :userIds AND m.paidThrough >= :expiration")
+    List<Long> findUserIdsPaidThroughAtOrAfter(@Param("userIds") Collection<Long> userIds,
+            @Param("expiration") LocalDateTime expiration);
+
+    @Query("SELECT m.userId FROM MembershipPeriod m WHERE m.userId IN :userIds")
+    List<Long> findExistingUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Locks the given users' rows (in id order, so concurrent refreshes don't
+     * deadlock) before their payments are read.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MembershipPeriod m WHERE m.userId IN :userIds ORDER BY m.userId")
+    List<MembershipPeriod> findByUserIdsForUpdate(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Payments in the given statuses of the given users, straight from the
+     * payment table. Only current payments stay PAID or PENDING, so this
+     * is a few rows per user.
+     */
+    @Query("SELECT new com.personalfit.dto.Payment.MembershipPaymentDTO(u.id, p.id, p.status, p.expiresAt, " +
+            "p.createdAt) FROM Payment p JOIN p.users u WHERE u.id IN :userIds AND p.status IN :statuses")
+    List<MembershipPaymentDTO> findPaymentsByUserIds(@Param("userIds") Collection<Long> userIds,
+            @Param("statuses") Collection<PaymentStatus> statuses);
+
+    /**
+     * Users with a row or with a payment in the given statuses (full rebuild).
+     */
+    @Query("SELECT m.userId FROM MembershipPeriod m UNION " +
+            "SELECT u.id FROM Payment p JOIN p.users u WHERE p.status IN :statuses")
+    List<Long> findAllTrackedUserIds(@Param("statuses") Collection<PaymentStatus> statuses);
+}
@@ -4,8 +4,11 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -62,15 +65,6 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
                         "ORDER BY p.createdAt DESC")
         List<Payment> findAllByUserIdWithDetails(@Param("userId") Long userId);
 
-        /**
-         * Retrieves all payments for a specific user with a specific status.
-         */
-        @Query("SELECT DISTINCT p FROM Payment p " +
-                        "JOIN p.users u " +
-                        "WHERE u = :user AND p.status = :status " +
-                        "ORDER BY p.createdAt DESC")
-        List<Payment> findByUserAndStatus(@Param("user") User user, @Param("status") PaymentStatus status);
-
         /**
          * Checks if a payment exists for a specific user.
          */
@@ -85,14 +79,6 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
         List<Long> findUserIdsWithPaymentStatus(@Param("users") Collection<User> users,
                         @Param("status") PaymentStatus status);
 
-        @Query("SELECT DISTINCT u.id FROM Payment p " +
-                        "JOIN p.users u " +
-                        "WHERE u IN :users AND p.status = :status " +
-                        "AND p.expiresAt >= :expiration")
-        List<Long> findUserIdsWithPaymentStatusExpiringAtOrAfter(@Param("users") Collection<User> users,
-                        @Param("status") PaymentStatus status,
-                        @Param("expiration") LocalDateTime expiration);
-
         // ===== MULTI-USER QUERIES =====
 
         /**
@@ -119,21 +105,65 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
                         @Param("endOfMonth") LocalDateTime endOfMonth);
 
         /**
-         * Retrieves paid payments with expiration date before the provided cutoff.
+         * Payments of a status expiring within [from, to), with their users.
+         * Served by idx_payment_status_expires_at.
          */
         @Query("SELECT DISTINCT p FROM Payment p " +
-                        "JOIN FETCH p.users u " +
-                        "WHERE p.status = 'PAID' " +
-                        "AND p.expiresAt < :expirationCutoff")
-        List<Payment> findPaidPaymentsExpiringBefore(@Param("expirationCutoff") LocalDateTime expirationCutoff);
+                        "JOIN FETCH p.users " +
+                        "WHERE p.status = :status " +
+                        "AND p.expiresAt >= :from AND p.expiresAt < :to")
+        List<Payment> findByStatusExpiringBetweenWithUsers(@Param("status") PaymentStatus status,
+                        @Param("from") LocalDateTime from,
+                        @Param("to") LocalDateTime to);
 
         /**
-         * Retrieves pending payments whose expiration instant has already arrived.
+         * Users of the given payments that already hold another payment in one
+         * of the statuses expiring after the one they are linked to (the next
+         * fee is loaded).
          */
-        @Query("SELECT DISTINCT p FROM Payment p " +
-                        "LEFT JOIN FETCH p.users " +
-                        "WHERE p.status = 'PENDING' " +
-                        "AND p.expiresAt <= :expirationCutoff")
-        List<Payment> findPendingPaymentsExpiringAtOrBefore(
-                        @Param("expirationCutoff") LocalDateTime expirationCutoff);
+        @Query("SELECT DISTINCT u.id FROM Payment due " +
+                        "JOIN due.users u " +
+                        "WHERE due.id IN :paymentIds " +
+                        "AND EXISTS (SELECT later FROM Payment later JOIN later.users lu " +
+                        "WHERE lu = u AND later.status IN :statuses " +
+                        "AND later.expiresAt > due.expiresAt)")
+        Set<Long> findUserIdsWithLaterPayment(@Param("paymentIds") Collection<Long> paymentIds,
+                        @Param("statuses") Collection<PaymentStatus> statuses);
+
+        // ===== MONTHLY EXPIRATION (keyset chunks) =====
+
+        /**
+         * Next chunk of payment IDs in a status expiring strictly before the
+         * cutoff, after {@code afterId}.
+         */
+        @Query("SELECT p.id FROM Payment p " +
+                        "WHERE p.status = :status AND p.expiresAt < :cutoff AND p.id > :afterId " +
+                        "ORDER BY p.id")
+        List<Long> findIdsExpiringBefore(@Param("status") PaymentStatus status,
+                        @Param("cutoff") LocalDateTime cutoff,
+                        @Param("afterId") Long afterId,
+                        Limit limit);
+
+        @Query("SELECT p.id FROM Payment p " +
+                        "WHERE p.status = :status AND p.expiresAt <= :cutoff AND p.id > :afterId " +
+                        "ORDER BY p.id")
+        List<Long> findIdsExpiringAtOrBefore(@Param("status") PaymentStatus status,
+                        @Param("cutoff") LocalDateTime cutoff,
+                        @Param("afterId") Long afterId,
+                        Limit limit);
+
+        @Query("SELECT DISTINCT u.id FROM Payment p JOIN p.users u WHERE p.id IN :paymentIds")
+        List<Long> findUserIdsByPaymentIds(@Param("paymentIds") Collection<Long> paymentIds);
+
+        /**
+         * Moves the given payments to {@code status}, skipping any that left
+         * {@code expected} since they were selected.
+         */
+        @Modifying
+        @Query("UPDATE Payment p SET p.status = :status, p.updatedAt = :updatedAt " +
+                        "WHERE p.id IN :ids AND p.status = :expected")
+        int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                        @Param("expected") PaymentStatus expected,
+                        @Param("status") PaymentStatus status,
+                        @Param("updatedAt") LocalDateTime updatedAt);
 }
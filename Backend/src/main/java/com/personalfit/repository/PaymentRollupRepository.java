@@ -0,0 +1,88 @@
+package com.personalfit.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.personalfit.dto.Payment.PaymentRollupRowDTO;
+import com.personalfit.enums.MethodType;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.models.PaymentRollup;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface PaymentRollupRepository extends JpaRepository<PaymentRollup, Long> {
+
+    List<PaymentRollup> findByMonthStart(LocalDate monthStart);
+
+    List<PaymentRollup> findByStatus(PaymentStatus status);
+
+    /**
+     * Locks the buckets of one month in the order payment writes apply
+     * their deltas (status, then method), so the two can't deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM PaymentRollup r WHERE r.monthStart = :monthStart " +
+            "ORDER BY r.status, r.methodType NULLS FIRST")
+    List<PaymentRollup> findByMonthStartForUpdate(@Param("monthStart") LocalDate monthStart);
+
+    @Query("SELECT MIN(r.monthStart) FROM PaymentRollup r")
+    LocalDate findFirstMonthStart();
+
+    @Query("SELECT MIN(p.createdAt) FROM Payment p")
+    LocalDateTime findFirstPaymentCreatedAt();
+
+    @Query("SELECT MAX(p.createdAt) FROM Payment p")
+    LocalDateTime findLastPaymentCreatedAt();
+
+    /**
+     * Adds a delta to one bucket in a single UPDATE, so concurrent payment
+     * writes never lose each other's counts.
+     *
+     * @return 0 when the bucket doesn't exist yet.
+     */
+    @Modifying
+    @Query("UPDATE PaymentRollup r SET r.paymentCount = r.paymentCount + :count, " +
+            "r.totalAmount = r.totalAmount + :amount, r.updatedAt = :updatedAt " +
+            "WHERE r.monthStart = :monthStart AND r.status = :status " +
+            "AND (r.methodType = :method OR (:method IS NULL AND r.methodType IS NULL))")
+    int addToBucket(@Param("monthStart") LocalDate monthStart,
+            @Param("status") PaymentStatus status,
+            @Param("method") MethodType method,
+            @Param("count") long count,
+            @Param("amount") double amount,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Totals of the given payments by creation month and method.
+     */
+    @Query("SELECT new com.personalfit.dto.Payment.PaymentRollupRowDTO(YEAR(p.createdAt), MONTH(p.createdAt), " +
+            "p.status, p.methodType, false, COUNT(p), SUM(p.amount)) " +
+            "FROM Payment p WHERE p.id IN :paymentIds AND p.status = :status AND p.createdAt IS NOT NULL " +
+            "GROUP BY YEAR(p.createdAt), MONTH(p.createdAt), p.status, p.methodType")
+    List<PaymentRollupRowDTO> aggregateByPaymentIds(@Param("paymentIds") Collection<Long> paymentIds,
+            @Param("status") PaymentStatus status);
+
+    /**
+     * Totals of the payments created in [from, to) (rebuild of one month),
+     * split by whether the payment was verified so expired-after-paid can be
+     * told from expired-unpaid.
+     */
+    @Query("SELECT new com.personalfit.dto.Payment.PaymentRollupRowDTO(YEAR(p.createdAt), MONTH(p.createdAt), " +
+            "p.status, p.methodType, CASE WHEN p.verifiedAt IS NULL THEN false ELSE true END, " +
+            "COUNT(p), SUM(p.amount)) " +
+            "FROM Payment p WHERE p.createdAt >= :from AND p.createdAt < :to " +
+            "GROUP BY YEAR(p.createdAt), MONTH(p.createdAt), p.status, p.methodType, " +
+            "CASE WHEN p.verifiedAt IS NULL THEN false ELSE true END")
+    List<PaymentRollupRowDTO> aggregateCreatedBetween(@Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+}
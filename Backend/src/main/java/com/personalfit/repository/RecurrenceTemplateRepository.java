@@ -0,0 +1,16 @@
+package com.personalfit.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.personalfit.models.RecurrenceTemplate;
+
+@Repository
+public interface RecurrenceTemplateRepository extends JpaRepository<RecurrenceTemplate, Long> {
+
+    List<RecurrenceTemplate> findByActiveTrue();
+
+    List<RecurrenceTemplate> findAllByOrderByDayOfWeekAscStartTimeAsc();
+}
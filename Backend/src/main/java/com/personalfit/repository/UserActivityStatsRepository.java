@@ -0,0 +1,62 @@
+package com.personalfit.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.personalfit.dto.User.UserActivityStatsDTO;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.models.UserActivityStats;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface UserActivityStatsRepository extends JpaRepository<UserActivityStats, Long> {
+
+    /**
+     * Locks the user's row so concurrent status changes apply their deltas
+     * one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserActivityStats s WHERE s.userId = :userId")
+    Optional<UserActivityStats> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Query("SELECT s.userId FROM UserActivityStats s WHERE s.userId IN :userIds")
+    List<Long> findExistingUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Locks the given users' rows (in id order, so concurrent recomputes
+     * don't deadlock) before their attendances are aggregated.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserActivityStats s WHERE s.userId IN :userIds ORDER BY s.userId")
+    List<UserActivityStats> findByUserIdsForUpdate(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Aggregates straight from the attendance table for the given users.
+     * Users without attendances get no row.
+     */
+    @Query("SELECT new com.personalfit.dto.User.UserActivityStatsDTO(t.user.id, COUNT(t), " +
+            "SUM(CASE WHEN t.attendance IN :completed THEN 1 ELSE 0 END), " +
+            "MAX(CASE WHEN t.attendance IN :completed THEN a.date ELSE NULL END), " +
+            "SUM(CASE WHEN t.attendance IN :completed AND a.date >= :monthStart AND a.date < :nextMonthStart " +
+            "THEN 1 ELSE 0 END)) " +
+            "FROM Attendance t JOIN t.activity a WHERE t.user.id IN :userIds GROUP BY t.user.id")
+    List<UserActivityStatsDTO> aggregateByUserIds(@Param("userIds") Collection<Long> userIds,
+            @Param("completed") Collection<AttendanceStatus> completed,
+            @Param("monthStart") LocalDateTime monthStart,
+            @Param("nextMonthStart") LocalDateTime nextMonthStart);
+
+    /**
+     * Users with a row or with attendances (full rebuild).
+     */
+    @Query("SELECT s.userId FROM UserActivityStats s UNION SELECT t.user.id FROM Attendance t")
+    List<Long> findAllTrackedUserIds();
+}
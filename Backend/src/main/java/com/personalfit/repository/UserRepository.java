@@ -6,14 +6,19 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
 
+import com.personalfit.dto.User.ClientStatsRowDTO;
+import com.personalfit.dto.User.UserSearchItemDTO;
+import com.personalfit.enums.AttendanceStatus;
 import com.personalfit.enums.UserRole;
 import com.personalfit.enums.UserStatus;
 import com.personalfit.models.User;
@@ -39,10 +44,121 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
         long countByStatusAndDeletedAtIsNull(UserStatus status);
 
-        List<User> findAllByBirthDateAndDeletedAtIsNull(LocalDate now);
+        /**
+         * Birthday lookup on the (birth_month, birth_day) index; the year is
+         * ignored. Callers pass several days to include Feb 29 birthdays on
+         * Feb 28 of non-leap years.
+         */
+        @Query("SELECT u FROM User u WHERE u.birthMonth = :month AND u.birthDay IN :days " +
+                        "AND u.deletedAt IS NULL AND (u.status IS NULL OR u.status <> :excludedStatus)")
+        List<User> findBirthdays(@Param("month") Integer month, @Param("days") Collection<Integer> days,
+                        @Param("excludedStatus") UserStatus excludedStatus);
+
+        /**
+         * Fills birth_month/birth_day for rows written before the columns
+         * existed.
+         */
+        @Modifying
+        @Query("UPDATE User u SET u.birthMonth = EXTRACT(MONTH FROM u.birthDate), " +
+                        "u.birthDay = EXTRACT(DAY FROM u.birthDate) " +
+                        "WHERE u.birthDate IS NOT NULL AND (u.birthMonth IS NULL OR u.birthDay IS NULL)")
+        int backfillBirthMonthAndDay();
+
+        /**
+         * Every DNI and lower-cased email with its deletion date, so bulk
+         * imports check duplicates in memory instead of per row.
+         */
+        @Query("SELECT u.dni, LOWER(u.email), u.deletedAt FROM User u")
+        List<Object[]> findAllDniEmailAndDeletedAt();
+
+        // SQL of the search expressions as Hibernate renders them, used by the
+        // Postgres indexes in UserService.ensureSearchIndexes
+        String SEARCH_NAME_SQL = "lower(first_name || ' ' || last_name)";
+        String SEARCH_DNI_SQL = "CAST(dni AS varchar)";
+        String SORT_NAME_SQL = "lower(last_name || ' ' || first_name)";
+
+        String SEARCH_SELECT = "SELECT new com.personalfit.dto.User.UserSearchItemDTO(u.id, u.firstName, "
+                        + "u.lastName, u.dni, u.status, u.role) FROM User u "
+                        + "WHERE u.deletedAt IS NULL AND (u.role IS NULL OR u.role <> :excludedRole) "
+                        + "AND (u.status IS NULL OR u.status <> :excludedStatus) "
+                        + "AND (u.dni IS NULL OR u.dni NOT IN :protectedDnis) "
+                        + "AND (:role IS NULL OR u.role = :role) AND (:status IS NULL OR u.status = :status) "
+                        + "AND (LOWER(CONCAT(u.lastName, ' ', u.firstName)), u.id) > (:afterName, :afterId) ";
+
+        String SEARCH_ORDER = "ORDER BY LOWER(CONCAT(u.lastName, ' ', u.firstName)), u.id";
+
+        /**
+         * Keyset page of the admin user list ordered by the lower-cased
+         * "last first" name, then id, starting after the cursor (afterName,
+         * afterId). The cursor is one row-value comparison, a range on the
+         * sort index.
+         */
+        @Query(SEARCH_SELECT + SEARCH_ORDER)
+        List<UserSearchItemDTO> searchPage(@Param("role") UserRole role,
+                        @Param("status") UserStatus status,
+                        @Param("excludedRole") UserRole excludedRole,
+                        @Param("excludedStatus") UserStatus excludedStatus,
+                        @Param("protectedDnis") Collection<Integer> protectedDnis,
+                        @Param("afterName") String afterName,
+                        @Param("afterId") Long afterId,
+                        Limit limit);
+
+        /**
+         * Same page filtered by a search term: namePattern matches the
+         * lower-cased "first last" name, dniPattern (null for text terms)
+         * the DNI digits. Both use trigram indexes on Postgres.
+         */
+        @Query(SEARCH_SELECT + "AND (LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE :namePattern ESCAPE '!' "
+                        + "OR CAST(u.dni AS String) LIKE :dniPattern) " + SEARCH_ORDER)
+        List<UserSearchItemDTO> searchPageByTerm(@Param("namePattern") String namePattern,
+                        @Param("dniPattern") String dniPattern,
+                        @Param("role") UserRole role,
+                        @Param("status") UserStatus status,
+                        @Param("excludedRole") UserRole excludedRole,
+                        @Param("excludedStatus") UserStatus excludedStatus,
+                        @Param("protectedDnis") Collection<Integer> protectedDnis,
+                        @Param("afterName") String afterName,
+                        @Param("afterId") Long afterId,
+                        Limit limit);
 
         List<User> findAllByRoleAndDeletedAtIsNull(UserRole userRole);
 
+        /**
+         * Daily audit: active members (staff and protected DNIs excluded)
+         * whose membership is not paid through {@code validFrom}.
+         */
+        @Query("SELECT u FROM User u WHERE u.status = :active AND u.deletedAt IS NULL " +
+                        "AND u.role NOT IN :staffRoles AND (u.dni IS NULL OR u.dni NOT IN :protectedDnis) " +
+                        "AND NOT EXISTS (SELECT m FROM MembershipPeriod m WHERE m.userId = u.id " +
+                        "AND m.paidThrough >= :validFrom)")
+        List<User> findActiveMembersWithExpiredMembership(@Param("active") UserStatus active,
+                        @Param("staffRoles") Collection<UserRole> staffRoles,
+                        @Param("protectedDnis") Collection<Integer> protectedDnis,
+                        @Param("validFrom") LocalDateTime validFrom);
+
+        /**
+         * Monthly expiration: users linked to the given (just expired)
+         * payments who are not yet inactive, are not protected clients and
+         * are not paid through a date after {@code now}. Membership rows
+         * must already reflect the expiration.
+         */
+        @Query("SELECT DISTINCT u FROM Payment ep JOIN ep.users u " +
+                        "WHERE ep.id IN :paymentIds AND u.status <> :inactive " +
+                        "AND (u.role <> :client OR u.dni IS NULL OR u.dni NOT IN :protectedDnis) " +
+                        "AND NOT EXISTS (SELECT m FROM MembershipPeriod m WHERE m.userId = u.id " +
+                        "AND m.paidThrough > :now)")
+        List<User> findUsersLosingMembership(@Param("paymentIds") Collection<Long> paymentIds,
+                        @Param("inactive") UserStatus inactive,
+                        @Param("client") UserRole client,
+                        @Param("protectedDnis") Collection<Integer> protectedDnis,
+                        @Param("now") LocalDateTime now);
+
+        @Modifying
+        @Query("UPDATE User u SET u.status = :status WHERE u.id IN :ids AND u.status = :expected")
+        int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("expected") UserStatus expected,
+                        @Param("status") UserStatus status);
+
+
         List<User> findByIdInAndDeletedAtIsNull(List<Long> id);
 
         @Query("SELECT u FROM User u WHERE u.status = :status AND u.deletedAt IS NULL AND u.lastAttendance < :dateLimit")
@@ -69,4 +185,39 @@ public interface UserRepository extends JpaRepository<User, Long> {
         @Lock(LockModeType.PESSIMISTIC_WRITE)
         @Query("SELECT u FROM User u WHERE u.dni IN :dnis AND u.deletedAt IS NULL ORDER BY u.id")
         List<User> findAllByDniInAndDeletedAtIsNullForUpdate(@Param("dnis") Collection<Integer> dnis);
+
+        /**
+         * Admin user list: every non-deleted user with its activity stats
+         * row (null when the user never enrolled), in one join.
+         */
+        @Query("SELECT u, s FROM User u LEFT JOIN UserActivityStats s ON s.userId = u.id " +
+                        "WHERE u.deletedAt IS NULL AND (u.role IS NULL OR u.role <> :excludedRole) " +
+                        "AND (u.status IS NULL OR u.status <> :excludedStatus)")
+        List<Object[]> findListingWithStats(@Param("excludedRole") UserRole excludedRole,
+                        @Param("excludedStatus") UserStatus excludedStatus);
+
+        /**
+         * Client home screen in one round trip: completed classes this month
+         * and overall, the next booked class and the paid-through date of the
+         * user's membership_period row. Empty when the user does not exist or
+         * was deleted.
+         */
+        @Query("SELECT new com.personalfit.dto.User.ClientStatsRowDTO(u.role, u.status, " +
+                        "(SELECT COUNT(at) FROM Attendance at JOIN at.activity a WHERE at.user = u " +
+                        "AND at.attendance IN :completed AND a.date >= :monthStart AND a.date < :nextMonthStart), " +
+                        "(SELECT COUNT(at) FROM Attendance at WHERE at.user = u AND at.attendance IN :completed), " +
+                        "na.id, na.name, na.date, mp.paidThrough) " +
+                        "FROM User u LEFT JOIN MembershipPeriod mp ON mp.userId = u.id " +
+                        "LEFT JOIN Activity na ON na.id = (" +
+                        "SELECT MIN(a2.id) FROM Attendance at2 JOIN at2.activity a2 WHERE at2.user = u " +
+                        "AND at2.attendance IN :upcoming AND a2.date = (" +
+                        "SELECT MIN(a3.date) FROM Attendance at3 JOIN at3.activity a3 WHERE at3.user = u " +
+                        "AND at3.attendance IN :upcoming AND a3.date > :now)) " +
+                        "WHERE u.id = :userId AND u.deletedAt IS NULL")
+        Optional<ClientStatsRowDTO> findClientStatsRow(@Param("userId") Long userId,
+                        @Param("completed") Collection<AttendanceStatus> completed,
+                        @Param("upcoming") Collection<AttendanceStatus> upcoming,
+                        @Param("monthStart") LocalDateTime monthStart,
+                        @Param("nextMonthStart") LocalDateTime nextMonthStart,
+                        @Param("now") LocalDateTime now);
 }
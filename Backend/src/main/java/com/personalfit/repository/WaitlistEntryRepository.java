@@ -0,0 +1,53 @@
+package com.personalfit.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.models.WaitlistEntry;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Head of the queue for an activity (oldest entry first).
+     */
+    Optional<WaitlistEntry> findFirstByActivityIdOrderByCreatedAtAscIdAsc(Long activityId);
+
+    Optional<WaitlistEntry> findByUserIdAndActivityId(Long userId, Long activityId);
+
+    boolean existsByUserIdAndActivityId(Long userId, Long activityId);
+
+    /**
+     * Number of entries ahead of the given one in the same queue.
+     */
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.activity.id = :activityId " +
+            "AND (w.createdAt < :createdAt OR (w.createdAt = :createdAt AND w.id < :id))")
+    long countAhead(@Param("activityId") Long activityId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.user.id = :userId AND w.activity.id = :activityId")
+    int deleteByUserIdAndActivityId(@Param("userId") Long userId, @Param("activityId") Long activityId);
+
+    /**
+     * Drops whole queues (activity deleted or finished).
+     */
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.activity.id IN :activityIds")
+    int deleteByActivityIdIn(@Param("activityIds") Collection<Long> activityIds);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.activity.id IN " +
+            "(SELECT a.id FROM Activity a WHERE a.status = :activityStatus AND a.endTime <= :now)")
+    int deleteForActivitiesEndedBy(@Param("activityStatus") ActivityStatus activityStatus,
+            @Param("now") LocalDateTime now);
+}
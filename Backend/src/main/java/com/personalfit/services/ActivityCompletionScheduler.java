@@ -0,0 +1,109 @@
+package com.personalfit.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.repository.ActivityRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fires activity completion at the real end time of each class.
+ *
+ * The database is the priority queue: the earliest end_time among ACTIVE
+ * activities comes from the (status, end_time) index, and a single task is
+ * armed for that instant. When it fires, every activity due by then is closed
+ * (ActivityService.checkCompletedActivies, set-based) and the task is re-armed
+ * for the next end time. Work per firing is proportional to the due items,
+ * never to the number of active activities.
+ *
+ * Rehydrates on startup (backfilling missing end times, then catching up on
+ * anything that ended while the app was down). New or edited activities pull
+ * the deadline forward; an hourly re-arm is the safety net for changes that
+ * bypass the service layer.
+ */
+@Slf4j
+@Service
+public class ActivityCompletionScheduler {
+
+    private static final int RETRY_DELAY_MINUTES = 5;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    @Lazy // Circular dependency resolution
+    private ActivityService activityService;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private ScheduledFuture<?> pending;
+    private LocalDateTime pendingAt;
+
+    /**
+     * Makes sure a completion fires no later than {@code endTime}.
+     * No-op when an earlier (or equal) firing is already armed.
+     */
+    public synchronized void scheduleAt(LocalDateTime endTime) {
+        if (endTime == null) {
+            return;
+        }
+        if (pending != null && !pending.isDone() && !endTime.isBefore(pendingAt)) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+
+        pendingAt = endTime;
+        pending = taskScheduler.schedule(this::fire, endTime.atZone(ZoneId.systemDefault()).toInstant());
+        log.debug("Activity completion armed for {}", endTime);
+    }
+
+    /**
+     * Arms the task for the earliest end time still pending in the database.
+     * Also runs hourly in case an activity was changed outside the services.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void rearm() {
+        activityRepository.findEarliestEndTimeByStatus(ActivityStatus.ACTIVE)
+                .ifPresent(this::scheduleAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rehydrate() {
+        log.info("Activity completion scheduler starting");
+        // Activities without end_time would be invisible to the catch-up
+        activityService.backfillActivityEndTimes();
+        fire();
+    }
+
+    private void fire() {
+        synchronized (this) {
+            pending = null;
+            pendingAt = null;
+        }
+
+        try {
+            activityService.checkCompletedActivies();
+        } catch (Exception e) {
+            log.error("Activity completion failed, retrying in {} min: cause={}",
+                    RETRY_DELAY_MINUTES, e.getMessage(), e);
+            scheduleAt(LocalDateTime.now().plusMinutes(RETRY_DELAY_MINUTES));
+            return;
+        }
+
+        rearm();
+    }
+}
@@ -1,30 +1,33 @@
 package com.personalfit.services;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.personalfit.dto.Activity.ActivityDetailInfoDTO;
 import com.personalfit.dto.Activity.ActivityFormTypeDTO;
+import com.personalfit.dto.Activity.ActivityListItemDTO;
+import com.personalfit.dto.Activity.ActivityPageDTO;
 import com.personalfit.dto.Activity.ActivitySummaryDTO;
 import com.personalfit.dto.Activity.ActivityTypeDTO;
 import com.personalfit.dto.Activity.ActivityUserDetailDTO;
+import com.personalfit.dto.Activity.RecurrenceTemplateDTO;
 import com.personalfit.dto.Attendance.AttendanceDTO;
 import com.personalfit.dto.Attendance.EnrollmentRequestDTO;
 import com.personalfit.dto.Attendance.EnrollmentResponseDTO;
 import com.personalfit.enums.ActivityStatus;
+import com.personalfit.enums.AttendanceStatus;
 import com.personalfit.enums.MuscleGroup;
 import com.personalfit.exceptions.BusinessRuleException;
 import com.personalfit.exceptions.EntityNotFoundException;
@@ -46,6 +49,12 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class ActivityService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    // Bounds of an unfiltered listing, so the date range is always an index range
+    private static final LocalDateTime LISTING_START = LocalDate.EPOCH.atStartOfDay();
+    private static final LocalDateTime LISTING_END = LocalDate.of(9999, 12, 31).atTime(LocalTime.MAX);
+
     @Autowired
     private ActivityRepository activityRepository;
 
@@ -64,10 +73,44 @@ public class ActivityService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private NfcCheckInService nfcCheckInService;
+
+    @Autowired
+    private ActivityCompletionScheduler activityCompletionScheduler;
+
+    @Autowired
+    private RecurrenceTemplateService recurrenceTemplateService;
+
+    @Autowired
+    private WeeklyScheduleService weeklyScheduleService;
+
+    @Autowired
+    private SlotAvailabilityStreamService slotAvailabilityStreamService;
+
+    @Autowired
+    private UserActivityStatsService userActivityStatsService;
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Value("${app.activities.get-all-cap:500}")
+    private int getAllCap;
+
     /**
      * Schedules a new activity.
+     * Recurring ones become a weekly template whose occurrences are
+     * materialized ahead by RecurrenceTemplateService.
      */
     public void createActivity(ActivityFormTypeDTO activity) {
+        if (Boolean.TRUE.equals(activity.getIsRecurring())) {
+            recurrenceTemplateService.createTemplate(toRecurrenceTemplateDTO(activity));
+            return;
+        }
+
         User trainer = userService.getUserById(Long.parseLong(activity.getTrainerId()));
 
         LocalDate activityDate = activity.getDate();
@@ -77,16 +120,19 @@ public class ActivityService {
                 .name(activity.getName())
                 .slots(Integer.parseInt(activity.getMaxParticipants()))
                 .date(LocalDateTime.of(activityDate, activityTime))
-                .repeatEveryWeek(activity.getIsRecurring() != null ? activity.getIsRecurring() : false)
+                .repeatEveryWeek(false)
                 .duration(Integer.parseInt(activity.getDuration()))
                 .status(ActivityStatus.ACTIVE)
                 .trainer(trainer)
                 .createdAt(LocalDateTime.now())
-                .isRecurring(activity.getIsRecurring())
+                .isRecurring(false)
                 .build();
 
         try {
             Activity saved = activityRepository.save(newActivity);
+            activityCompletionScheduler.scheduleAt(saved.getDate().plusMinutes(saved.getDuration()));
+            weeklyScheduleService.evictWeekOf(saved.getDate());
+            slotAvailabilityStreamService.publishWeekOf(saved.getDate());
             log.info("Activity created: id={}, name={}, trainerId={}, date={}",
                     saved.getId(), saved.getName(), trainer.getId(), saved.getDate());
         } catch (Exception e) {
@@ -98,7 +144,9 @@ public class ActivityService {
     /**
      * Updates an existing activity.
      * Can update schedule, trainer, location, etc.
+     * Extra slots are handed to the waitlist right away.
      */
+    @Transactional
     public void updateActivity(Long id, ActivityFormTypeDTO activity) {
         Activity existingActivity = activityRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Activity not found with ID: " + id,
@@ -116,6 +164,8 @@ public class ActivityService {
             newDateTime = LocalDateTime.of(existingActivity.getDate().toLocalDate(), activity.getTime());
         }
 
+        Integer previousSlots = existingActivity.getSlots();
+        LocalDateTime previousDate = existingActivity.getDate();
         existingActivity.setName(activity.getName());
         existingActivity.setSlots(Integer.parseInt(activity.getMaxParticipants()));
         existingActivity.setDuration(Integer.parseInt(activity.getDuration()));
@@ -125,23 +175,58 @@ public class ActivityService {
         if (newDateTime != null) {
             existingActivity.setDate(newDateTime);
         }
+        if (existingActivity.getTemplate() != null
+                && !previousDate.toLocalDate().equals(existingActivity.getDate().toLocalDate())) {
+            recurrenceTemplateService.skipOccurrenceDay(existingActivity.getTemplate(), previousDate.toLocalDate());
+        }
 
         try {
             activityRepository.save(existingActivity);
+            nfcCheckInService.onActivityChanged(id);
+            weeklyScheduleService.evictWeekOf(previousDate);
+            weeklyScheduleService.evictWeekOf(existingActivity.getDate());
+            // Name and start time show up as the attendees' next class
+            clientStatsService.evict(existingActivity.getAttendances().stream()
+                    .map(attendance -> attendance.getUser().getId())
+                    .toList());
+            slotAvailabilityStreamService.publish(id);
+            if (!previousDate.equals(existingActivity.getDate())) {
+                // Moved: gone from one day (maybe week), added to another
+                slotAvailabilityStreamService.publishWeeksOf(List.of(previousDate, existingActivity.getDate()));
+            }
+            activityCompletionScheduler.scheduleAt(
+                    existingActivity.getDate().plusMinutes(existingActivity.getDuration()));
             log.info("Activity updated: id={}, trainerId={}", id, trainer.getId());
         } catch (Exception e) {
             throw new BusinessRuleException("Failed to update activity: " + e.getMessage(),
                     "Api/Activity/updateActivity");
         }
+
+        if (existingActivity.getSlots() > previousSlots) {
+            waitlistService.promoteWaitlisted(id);
+        }
     }
 
+    @Transactional
     public void deleteActivity(Long id) {
         Activity activity = activityRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Activity not found with ID: " + id,
                         "Api/Activity/deleteActivity"));
 
         try {
+            List<Long> enrolledUserIds = activity.getAttendances().stream()
+                    .map(attendance -> attendance.getUser().getId())
+                    .toList();
+            waitlistService.clearWaitlists(List.of(id));
+            if (activity.getTemplate() != null) {
+                recurrenceTemplateService.skipOccurrenceDay(activity.getTemplate(), activity.getDate().toLocalDate());
+            }
             activityRepository.delete(activity);
+            // Enrollments go with the activity (cascade), outside the stats deltas
+            userActivityStatsService.recompute(enrolledUserIds);
+            nfcCheckInService.onActivityRemoved(id);
+            weeklyScheduleService.evictWeekOf(activity.getDate());
+            slotAvailabilityStreamService.publishWeekOf(activity.getDate());
             log.info("Activity deleted: id={}, date={}", id, activity.getDate());
         } catch (Exception e) {
             throw new BusinessRuleException("Failed to delete activity: " + e.getMessage(),
@@ -149,13 +234,67 @@ public class ActivityService {
         }
     }
 
+    /**
+     * Legacy full listing, capped to the most recent activities so it no
+     * longer grows with history. Use getActivitiesPage for anything else.
+     */
     public List<ActivityTypeDTO> getAllActivitiesTypeDto() {
-        List<Activity> activities = activityRepository.findAll();
-        return activities.stream()
+        List<Activity> activities = activityRepository.findAllByOrderByDateDescIdDesc(Limit.of(getAllCap));
+        if (activities.size() >= getAllCap) {
+            log.warn("Activity getAll truncated: cap={}", getAllCap);
+        }
+        return activities.reversed().stream()
                 .map(this::convertToActivityTypeDTO)
                 .toList();
     }
 
+    /**
+     * Keyset-paginated listing ordered by (date, id).
+     * Filters are optional; pass the previous page's nextAfterDate/nextAfterId
+     * to continue. Cost per page is independent of how much history exists.
+     */
+    public ActivityPageDTO getActivitiesPage(LocalDate from, LocalDate to, Long trainerId, ActivityStatus status,
+            LocalDateTime afterDate, Long afterId, Integer size) {
+        if ((afterDate == null) != (afterId == null)) {
+            throw new BusinessRuleException("afterDate and afterId must be sent together",
+                    "Api/Activity/getActivitiesPage");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.clamp(size, 1, MAX_PAGE_SIZE);
+
+        LocalDateTime rangeStart = from != null ? from.atStartOfDay() : LISTING_START;
+        LocalDateTime rangeEnd = to != null ? to.atTime(LocalTime.MAX) : LISTING_END;
+        // The first page starts after (rangeStart, 0): ids are positive
+        LocalDateTime cursorDate = afterDate != null ? afterDate : rangeStart;
+        Long cursorId = afterId != null ? afterId : 0L;
+
+        // One extra row tells whether another page exists
+        Limit limit = Limit.of(pageSize + 1);
+        List<ActivityListItemDTO> rows;
+        if (trainerId != null && status != null) {
+            rows = activityRepository.findListingPageByTrainerAndStatus(rangeStart, rangeEnd, trainerId, status,
+                    cursorDate, cursorId, limit);
+        } else if (trainerId != null) {
+            rows = activityRepository.findListingPageByTrainer(rangeStart, rangeEnd, trainerId, cursorDate,
+                    cursorId, limit);
+        } else if (status != null) {
+            rows = activityRepository.findListingPageByStatus(rangeStart, rangeEnd, status, cursorDate, cursorId,
+                    limit);
+        } else {
+            rows = activityRepository.findListingPage(rangeStart, rangeEnd, cursorDate, cursorId, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ActivityListItemDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        ActivityListItemDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+
+        return ActivityPageDTO.builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextAfterDate(hasMore ? last.getDate() : null)
+                .nextAfterId(hasMore ? last.getId() : null)
+                .build();
+    }
+
     /**
      * Gets detailed info for a specific activity, including participant list.
      */
@@ -197,20 +336,11 @@ public class ActivityService {
     /**
      * Scheduling View:
      * Returns activities for the week containing the given date.
-     * Range: Sunday (00:00) to Saturday (23:59).
+     * Range: Sunday (00:00) to Saturday (23:59). Served from the cached
+     * weekly read model.
      */
     public List<ActivityTypeDTO> getAllActivitiesTypeDtoAtWeek(LocalDate date) {
-        LocalDate startOfWeekDate = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
-        LocalDateTime startOfWeek = startOfWeekDate.atStartOfDay();
-
-        LocalDate endOfWeekDate = startOfWeekDate.plusDays(6);
-        LocalDateTime endOfWeek = endOfWeekDate.atTime(LocalTime.MAX);
-
-        List<Activity> allActivities = activityRepository.findByDateBetween(startOfWeek, endOfWeek);
-
-        return allActivities.stream()
-                .map(this::convertToActivityTypeDTO)
-                .collect(Collectors.toList());
+        return weeklyScheduleService.getWeek(date);
     }
 
     /**
@@ -269,6 +399,18 @@ public class ActivityService {
         return attendanceService.isUserEnrolled(userId, activityId);
     }
 
+    private RecurrenceTemplateDTO toRecurrenceTemplateDTO(ActivityFormTypeDTO activity) {
+        return RecurrenceTemplateDTO.builder()
+                .name(activity.getName())
+                .trainerId(Long.parseLong(activity.getTrainerId()))
+                .dayOfWeek(activity.getDate().getDayOfWeek())
+                .time(activity.getTime())
+                .duration(Integer.parseInt(activity.getDuration()))
+                .maxParticipants(Integer.parseInt(activity.getMaxParticipants()))
+                .startDate(activity.getDate())
+                .build();
+    }
+
     private ActivityTypeDTO convertToActivityTypeDTO(Activity activity) {
         return ActivityTypeDTO.builder()
                 .id(activity.getId())
@@ -319,70 +461,51 @@ public class ActivityService {
     // ===============================
 
     /**
-     * Cron Job: Activity Lifecycle (Every 30 mins).
-     * 1. Detects finished activities -> marks COMPUTED.
-     * 2. Marks pending attendances as ABSENT.
-     * 3. Creates next week's activity if 'isRecurring' is true.
+     * Activity Lifecycle.
+     * Triggered by ActivityCompletionScheduler at each activity's end time
+     * (start + duration). Closes out every activity that has ended with
+     * set-based statements, so a backlog (e.g. after a holiday weekend) costs
+     * the same handful of queries as a single class:
+     * 1. Marks their pending attendances as ABSENT and drops their waitlists.
+     * 2. Marks the activities COMPLETED.
+     * Next occurrences of recurring classes are already materialized by
+     * RecurrenceTemplateService.
      */
-    @Scheduled(cron = "0 */30 * * * *")
     @Transactional
     public void checkCompletedActivies() {
         log.debug("Running job: Check Completed Activities");
         LocalDateTime now = LocalDateTime.now();
-
-        List<Activity> activeActivities = activityRepository.findByStatus(ActivityStatus.ACTIVE);
-        List<Activity> toUpdate = new ArrayList<>();
-        List<Activity> toCreate = new ArrayList<>();
-
-        for (Activity activity : activeActivities) {
-            LocalDateTime activityEndTime = activity.getDate();
-
-            // Check if activity has ended (assuming instant completion at start time, logic
-            // could be improved with duration)
-            if (activityEndTime.isBefore(now)) {
-                activity.setStatus(ActivityStatus.COMPLETED);
-                toUpdate.add(activity);
-                log.debug("Activity {} marked COMPLETED at {}", activity.getId(), activityEndTime);
-
-                // Auto-mark absentees
-                try {
-                    attendanceService.markPendingAttendancesAsAbsent(activity.getId());
-                } catch (Exception e) {
-                    log.warn("Failed to mark absentees: activityId={}, cause={}", activity.getId(), e.getMessage());
-                }
-
-                // Handle Recurrence
-                if (activity.getRepeatEveryWeek()) {
-                    LocalDateTime nextWeekDate = activity.getDate().plusWeeks(1);
-
-                    Activity newActivity = Activity.builder()
-                            .name(activity.getName())
-                            .slots(activity.getSlots())
-                            .date(nextWeekDate)
-                            .repeatEveryWeek(true)
-                            .duration(activity.getDuration())
-                            .status(ActivityStatus.ACTIVE)
-                            .trainer(activity.getTrainer())
-                            .createdAt(LocalDateTime.now())
-                            .isRecurring(activity.getIsRecurring())
-                            .build();
-
-                    toCreate.add(newActivity);
-                    log.debug("Recurring activity scheduled for: {}", nextWeekDate);
-                }
-            }
-        }
-
-        if (!toUpdate.isEmpty()) {
-            activityRepository.saveAll(toUpdate);
-        }
-        if (!toCreate.isEmpty()) {
-            activityRepository.saveAll(toCreate);
+        Optional<LocalDateTime> earliestEnd = activityRepository.findEarliestEndTimeByStatus(ActivityStatus.ACTIVE);
+
+        // Order matters: both statements select their activities by ACTIVE status
+        int markedAbsent = attendanceRepository.markPendingAsAbsentForActivitiesEndedBy(
+                AttendanceStatus.PENDING, AttendanceStatus.ABSENT, ActivityStatus.ACTIVE, now);
+        int waitlistCleared = waitlistService.clearWaitlistsOfActivitiesEndedBy(now);
+        int completed = activityRepository.updateStatusOfActivitiesEndedBy(
+                ActivityStatus.ACTIVE, ActivityStatus.COMPLETED, now);
+
+        if (completed > 0) {
+            // An activity's start is at most a day before its end
+            earliestEnd.ifPresent(end -> weeklyScheduleService.evictWeeksBetween(end.minusDays(1), now));
+            log.info("Activity job: completed={}, markedAbsent={}, waitlistCleared={}",
+                    completed, markedAbsent, waitlistCleared);
         }
+    }
 
-        if (!toUpdate.isEmpty() || !toCreate.isEmpty()) {
-            log.info("Activity job: updated={}, created={}", toUpdate.size(), toCreate.size());
+    /**
+     * Backfills end_time for activities saved before the column existed.
+     * Called by ActivityCompletionScheduler on startup, before its catch-up
+     * run, which selects activities by end_time.
+     */
+    @Transactional
+    public void backfillActivityEndTimes() {
+        List<Activity> missing = activityRepository.findByEndTimeIsNullAndDurationIsNotNull();
+        if (missing.isEmpty()) {
+            return;
         }
+        missing.forEach(activity -> activity.setEndTime(activity.getDate().plusMinutes(activity.getDuration())));
+        activityRepository.saveAll(missing);
+        log.info("Activity end times backfilled: count={}", missing.size());
     }
 
     /**
@@ -453,6 +576,12 @@ public class ActivityService {
 
         for (ActivityFormTypeDTO activityDTO : activities) {
             try {
+                if (Boolean.TRUE.equals(activityDTO.getIsRecurring())) {
+                    recurrenceTemplateService.createTemplate(toRecurrenceTemplateDTO(activityDTO));
+                    successCount++;
+                    continue;
+                }
+
                 User trainer = userService.getUserById(Long.parseLong(activityDTO.getTrainerId()));
 
                 LocalDate activityDate = activityDTO.getDate();
@@ -462,12 +591,12 @@ public class ActivityService {
                         .name(activityDTO.getName())
                         .slots(Integer.parseInt(activityDTO.getMaxParticipants()))
                         .date(LocalDateTime.of(activityDate, activityTime))
-                        .repeatEveryWeek(activityDTO.getIsRecurring() != null ? activityDTO.getIsRecurring() : false)
+                        .repeatEveryWeek(false)
                         .duration(Integer.parseInt(activityDTO.getDuration()))
                         .status(ActivityStatus.ACTIVE)
                         .trainer(trainer)
                         .createdAt(LocalDateTime.now())
-                        .isRecurring(activityDTO.getIsRecurring())
+                        .isRecurring(false)
                         .build();
 
                 activitiesToCreate.add(newActivity);
@@ -482,6 +611,13 @@ public class ActivityService {
         if (!activitiesToCreate.isEmpty()) {
             try {
                 activityRepository.saveAll(activitiesToCreate);
+                activitiesToCreate.stream()
+                        .map(activity -> activity.getDate().plusMinutes(activity.getDuration()))
+                        .min(LocalDateTime::compareTo)
+                        .ifPresent(activityCompletionScheduler::scheduleAt);
+                List<LocalDateTime> dates = activitiesToCreate.stream().map(Activity::getDate).toList();
+                weeklyScheduleService.evictWeeksOf(dates);
+                slotAvailabilityStreamService.publishWeeksOf(dates);
                 log.info("Batch success: {} saved", successCount);
             } catch (Exception e) {
                 log.error("Batch save failed: {}", e.getMessage());
@@ -38,6 +38,9 @@ public class ActivitySummaryService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private WeeklyScheduleService weeklyScheduleService;
+
     @Transactional
     public ActivitySummaryDTO upsertSummary(Long activityId, String userEmail, ActivitySummaryUpsertDTO request) {
         User user = userService.getUserByEmail(userEmail);
@@ -69,6 +72,7 @@ public class ActivitySummaryService {
         summary.setTrainingDescription(request.getTrainingDescription().trim());
 
         ActivitySummary savedSummary = activitySummaryRepository.save(summary);
+        weeklyScheduleService.evictWeekOf(activity.getDate());
         return convertToDTO(savedSummary);
     }
 
@@ -1,12 +1,13 @@
 package com.personalfit.services;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.personalfit.dto.Attendance.AttendanceDTO;
 import com.personalfit.enums.AttendanceStatus;
@@ -43,13 +44,34 @@ public class AttendanceService {
     @Autowired
     private SettingsService settingsService;
 
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private NfcCheckInService nfcCheckInService;
+
+    @Autowired
+    private WeeklyScheduleService weeklyScheduleService;
+
+    @Autowired
+    private SlotAvailabilityStreamService slotAvailabilityStreamService;
+
+    @Autowired
+    private UserActivityStatsService userActivityStatsService;
+
     /**
      * Enrolls a user in a specific activity.
      * Enforces rules:
      * 1. No double booking.
-     * 2. Activity capacity limits.
-     * 3. Max activities per day limit (from Settings).
+     * 2. Max activities per day limit (from Settings).
+     * 3. Activity capacity limits, claimed atomically through
+     * {@link SlotReservationService}. Checked last so the activity row lock is
+     * held only for the insert; any failure after the claim rolls it back.
      */
+    @Transactional
     public AttendanceDTO enrollUser(Long userId, Long activityId) {
         User user = userService.getUserById(userId);
         Activity activity = activityRepository.findById(activityId)
@@ -57,21 +79,16 @@ public class AttendanceService {
                         "Api/Attendance/enrollUser"));
 
         // Rule 1: Prevent double enrollment
-        if (isUserEnrolled(userId, activityId)) {
+        if (attendanceRepository.existsByUserIdAndActivityId(userId, activityId)) {
             log.warn("Enrollment rejected (double-booking): userId={}, activityId={}", userId, activityId);
             throw new BusinessRuleException("User is already enrolled in this activity", "Api/Attendance/enrollUser");
         }
 
-        // Rule 2: Check Capacity
-        if (activity.getAttendances().size() >= activity.getSlots()) {
-            log.warn("Enrollment rejected (capacity): userId={}, activityId={}, slots={}",
-                    userId, activityId, activity.getSlots());
-            throw new BusinessRuleException("Activity is full", "Api/Attendance/enrollUser");
-        }
-
-        // Rule 3: Check Daily Limit
+        // Rule 2: Check Daily Limit
         Integer maxActivitiesPerDay = settingsService.getMaxActivitiesPerDay();
-        long activitiesOnSameDay = attendanceRepository.countByUserAndActivityDate(user, activity.getDate());
+        LocalDateTime dayStart = activity.getDate().toLocalDate().atStartOfDay();
+        long activitiesOnSameDay = attendanceRepository.countByUserAndActivityDate(
+                user, dayStart, dayStart.plusDays(1));
 
         if (activitiesOnSameDay >= maxActivitiesPerDay) {
             log.warn("Enrollment rejected (daily limit): userId={}, date={}, limit={}",
@@ -81,12 +98,23 @@ public class AttendanceService {
                     "Api/Attendance/enrollUser");
         }
 
+        // Rule 3: Claim a seat (conditional UPDATE, never loads the roster)
+        if (!slotReservationService.tryReserve(activityId)) {
+            log.warn("Enrollment rejected (capacity): userId={}, activityId={}, slots={}",
+                    userId, activityId, activity.getSlots());
+            throw new BusinessRuleException("Activity is full", "Api/Attendance/enrollUser");
+        }
+
         Attendance attendance = new Attendance();
         attendance.setUser(user);
         attendance.setActivity(activity);
         attendance.setAttendance(AttendanceStatus.PENDING);
 
         Attendance savedAttendance = attendanceRepository.save(attendance);
+        nfcCheckInService.onAttendanceCreated(savedAttendance);
+        userActivityStatsService.onAttendanceCreated(userId);
+        weeklyScheduleService.evictWeekOf(activity.getDate());
+        slotAvailabilityStreamService.publish(activityId);
         log.info("User enrolled: userId={}, activityId={}", userId, activityId);
 
         return AttendanceDTO.builder()
@@ -103,7 +131,10 @@ public class AttendanceService {
      * Unenrolls a user from an activity.
      * Assuming they haven't attended yet (logic for that isn't strictly enforced
      * here but implied by flow).
+     * The freed seat is returned to the activity counter and handed to the head
+     * of the waitlist in the same transaction.
      */
+    @Transactional
     public void unenrollUser(Long userId, Long activityId) {
         User user = userService.getUserById(userId);
         Activity activity = activityRepository.findById(activityId)
@@ -113,6 +144,12 @@ public class AttendanceService {
         Optional<Attendance> attendance = attendanceRepository.findByUserAndActivity(user, activity);
         if (attendance.isPresent()) {
             attendanceRepository.delete(attendance.get());
+            nfcCheckInService.onAttendanceRemoved(user.getDni(), attendance.get().getId());
+            userActivityStatsService.onAttendanceRemoved(userId, attendance.get().getAttendance(), activity.getDate());
+            slotReservationService.release(activityId);
+            waitlistService.promoteWaitlisted(activityId);
+            weeklyScheduleService.evictWeekOf(activity.getDate());
+            slotAvailabilityStreamService.publish(activityId);
             log.info("User unenrolled: userId={}, activityId={}", userId, activityId);
         } else {
             throw new BusinessRuleException("User is not enrolled in this activity", "Api/Attendance/unenrollUser");
@@ -167,37 +204,17 @@ public class AttendanceService {
     /**
      * Updates status (e.g., PENDING -> PRESENT or ABSENT).
      */
+    @Transactional
     public void updateAttendanceStatus(Long attendanceId, AttendanceStatus status) {
         Attendance attendance = attendanceRepository.findById(attendanceId)
                 .orElseThrow(() -> new EntityNotFoundException("Attendance not found with ID: " + attendanceId,
                         "Api/Attendance/updateAttendanceStatus"));
 
+        AttendanceStatus previous = attendance.getAttendance();
         attendance.setAttendance(status);
         attendanceRepository.save(attendance);
-    }
-
-    /**
-     * Auto-Absent Logic.
-     * Called by ActivityService when an activity concludes.
-     * Any user still 'PENDING' is marked 'ABSENT'.
-     */
-    public void markPendingAttendancesAsAbsent(Long activityId) {
-        Activity activity = activityRepository.findById(activityId)
-                .orElseThrow(() -> new EntityNotFoundException("Activity not found with ID: " + activityId,
-                        "Api/Attendance/markPendingAttendancesAsAbsent"));
-
-        List<Attendance> pendingAttendances = attendanceRepository.findByActivityAndAttendance(activity,
-                AttendanceStatus.PENDING);
-
-        for (Attendance attendance : pendingAttendances) {
-            attendance.setAttendance(AttendanceStatus.ABSENT);
-        }
-
-        if (!pendingAttendances.isEmpty()) {
-            attendanceRepository.saveAll(pendingAttendances);
-            log.info("Pending attendances marked ABSENT: activityId={}, count={}",
-                    activityId, pendingAttendances.size());
-        }
+        userActivityStatsService.onStatusChanged(attendance.getUser().getId(), previous, status,
+                attendance.getActivity().getDate());
     }
 
     private AttendanceDTO convertToDTO(Attendance attendance) {
@@ -224,12 +241,4 @@ public class AttendanceService {
                 .updatedAt(attendance.getUpdatedAt())
                 .build();
     }
-
-    public List<Attendance> getUserAttendancesForDate(Long userId, LocalDate date) {
-        User user = userService.getUserById(userId);
-
-        return attendanceRepository.findByUser(user).stream()
-                .filter(attendance -> attendance.getActivity().getDate().toLocalDate().equals(date))
-                .collect(Collectors.toList());
-    }
 }
\ No newline at end of file
@@ -0,0 +1,472 @@
+package com.personalfit.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.personalfit.dto.User.ClientImportReportDTO;
+import com.personalfit.dto.User.CreateUserDTO;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.exceptions.FileException;
+import com.personalfit.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Bulk client import
+ *
+ * Imports clients from a CSV export of the previous system. The file is read
+ * row by row; existing DNIs and emails are loaded once up front, passwords
+ * are hashed in parallel on a bounded pool (BCrypt dominates the cost) and
+ * rows are inserted in JDBC batches. Invalid rows are reported with their
+ * line number instead of aborting the import.
+ */
+@Slf4j
+@Service
+public class ClientImportService {
+
+    private static final String INSERT_USER_SQL = "INSERT INTO app_user "
+            + "(first_name, last_name, password, phone, emergency_phone, email, avatar, join_date, address, "
+            + "birth_date, birth_month, birth_day, dni, role, status) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 500;
+    private static final List<String> REQUIRED_COLUMNS = List.of("firstname", "lastname", "email", "dni",
+            "birthdate", "address");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final DateTimeFormatter LEGACY_DATE_FORMAT = DateTimeFormatter.ofPattern("d/M/yyyy");
+    private static final String PATH = "Api/User/importClients";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("clientImportHashExecutor")
+    private ThreadPoolTaskExecutor hashPool;
+
+    /**
+     * Imports clients from a CSV with a header row. Required columns:
+     * firstName, lastName, email, dni, birthDate, address. Optional: phone,
+     * emergencyPhone, password (defaults to the DNI) and status (defaults to
+     * INACTIVE). Header names are matched ignoring case, spaces and
+     * underscores; "," and ";" separators are accepted. DNIs of soft-deleted
+     * users reactivate them.
+     */
+    public ClientImportReportDTO importClientsCsv(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new FileException("El archivo CSV está vacío", PATH);
+        }
+        try (InputStream input = file.getInputStream()) {
+            return importClientsCsv(input);
+        } catch (IOException e) {
+            throw new FileException("No se pudo leer el archivo CSV: " + e.getMessage(), PATH);
+        }
+    }
+
+    public ClientImportReportDTO importClientsCsv(InputStream input) {
+        ImportState state = loadExistingUsers();
+
+        try (CsvReader reader = new CsvReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)))) {
+            Map<String, Integer> columns = readHeader(reader);
+
+            List<ImportRow> chunk = new ArrayList<>(BATCH_SIZE);
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                state.totalRows++;
+                ImportRow row = toRow(record, reader.recordLine, columns, state);
+                if (row == null) {
+                    continue;
+                }
+                if (row.reactivate) {
+                    reactivate(row, state);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == BATCH_SIZE) {
+                    insertChunk(chunk, state);
+                    chunk.clear();
+                }
+            }
+            insertChunk(chunk, state);
+        } catch (IOException e) {
+            throw new FileException("No se pudo leer el archivo CSV: " + e.getMessage(), PATH);
+        }
+
+        log.info("Client import finished: rows={}, created={}, reactivated={}, failed={}",
+                state.totalRows, state.created, state.reactivated, state.errors.size());
+
+        return ClientImportReportDTO.builder()
+                .totalRows(state.totalRows)
+                .createdCount(state.created)
+                .reactivatedCount(state.reactivated)
+                .failedCount(state.errors.size())
+                .errors(state.errors)
+                .build();
+    }
+
+    private ImportState loadExistingUsers() {
+        ImportState state = new ImportState();
+        for (Object[] existing : userRepository.findAllDniEmailAndDeletedAt()) {
+            Integer dni = (Integer) existing[0];
+            boolean deleted = existing[2] != null;
+            if (dni != null) {
+                (deleted ? state.deletedDnis : state.activeDnis).add(dni);
+            }
+            if (existing[1] != null && !deleted) {
+                state.activeEmails.add((String) existing[1]);
+            }
+        }
+        return state;
+    }
+
+    private Map<String, Integer> readHeader(CsvReader reader) throws IOException {
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new BusinessRuleException("El archivo CSV está vacío", PATH);
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(normalizeHeader(header.get(i)), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new BusinessRuleException("Faltan columnas obligatorias en el CSV: " + missing, PATH);
+        }
+        return columns;
+    }
+
+    /**
+     * Validates one record against the file so far and the existing users.
+     *
+     * @return null when the row was rejected (and reported).
+     */
+    private ImportRow toRow(List<String> record, int line, Map<String, Integer> columns, ImportState state) {
+        String dniText = value(record, columns, "dni");
+        String firstName = value(record, columns, "firstname");
+        String lastName = value(record, columns, "lastname");
+        String email = value(record, columns, "email");
+        String address = value(record, columns, "address");
+        String birthDateText = value(record, columns, "birthdate");
+
+        if (dniText == null || firstName == null || lastName == null || email == null || address == null
+                || birthDateText == null) {
+            return reject(state, line, dniText, "Faltan datos obligatorios");
+        }
+
+        Integer dni;
+        try {
+            dni = Integer.parseInt(dniText);
+        } catch (NumberFormatException e) {
+            return reject(state, line, dniText, "DNI inválido");
+        }
+
+        String normalizedEmail = email.toLowerCase(Locale.ROOT);
+        if (!EMAIL_PATTERN.matcher(normalizedEmail).matches()) {
+            return reject(state, line, dniText, "Email inválido: " + email);
+        }
+
+        LocalDate birthDate = parseDate(birthDateText);
+        if (birthDate == null) {
+            return reject(state, line, dniText, "Fecha de nacimiento inválida: " + birthDateText);
+        }
+
+        UserStatus status = UserStatus.INACTIVE;
+        String statusText = value(record, columns, "status");
+        if (statusText != null) {
+            try {
+                status = UserStatus.valueOf(statusText.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return reject(state, line, dniText, "Estado inválido: " + statusText);
+            }
+        }
+
+        if (state.activeDnis.contains(dni)) {
+            return reject(state, line, dniText, "Ya existe un usuario con ese DNI");
+        }
+        if (state.activeEmails.contains(normalizedEmail)) {
+            return reject(state, line, dniText, "Ya existe un usuario con ese email");
+        }
+
+        String password = value(record, columns, "password");
+
+        ImportRow row = new ImportRow();
+        row.line = line;
+        row.dni = dni;
+        row.firstName = firstName;
+        row.lastName = lastName;
+        row.email = normalizedEmail;
+        row.address = address;
+        row.birthDate = birthDate;
+        row.phone = value(record, columns, "phone");
+        row.emergencyPhone = value(record, columns, "emergencyphone");
+        row.rawPassword = password != null ? password : dniText;
+        row.status = status;
+        row.reactivate = state.deletedDnis.contains(dni);
+
+        // Later rows with the same DNI or email are duplicates of this one
+        state.activeDnis.add(dni);
+        state.activeEmails.add(normalizedEmail);
+        return row;
+    }
+
+    /**
+     * Soft-deleted DNIs go through the regular create-or-reactivate flow;
+     * they are rare and need the existing row updated, not inserted.
+     */
+    private void reactivate(ImportRow row, ImportState state) {
+        CreateUserDTO dto = new CreateUserDTO();
+        dto.setDni(String.valueOf(row.dni));
+        dto.setFirstName(row.firstName);
+        dto.setLastName(row.lastName);
+        dto.setEmail(row.email);
+        dto.setAddress(row.address);
+        dto.setBirthDate(row.birthDate);
+        dto.setPhone(row.phone);
+        dto.setEmergencyPhone(row.emergencyPhone);
+        dto.setPassword(row.rawPassword);
+        dto.setStatus(row.status);
+        dto.setRole(UserRole.CLIENT);
+
+        try {
+            userService.createBatchClients(List.of(dto));
+            state.reactivated++;
+        } catch (RuntimeException e) {
+            reject(state, row.line, String.valueOf(row.dni), e.getMessage());
+        }
+    }
+
+    private void insertChunk(List<ImportRow> chunk, ImportState state) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<String>> hashes = chunk.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> passwordEncoder.encode(row.rawPassword), hashPool))
+                .toList();
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).passwordHash = hashes.get(i).join();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_USER_SQL, chunk,
+                    chunk.size(), this::bindRow));
+            state.created += chunk.size();
+        } catch (DataAccessException batchFailure) {
+            // A row collided with a concurrent write: retry one by one to report it
+            log.warn("Client import batch failed, retrying row by row: rows={}, error={}",
+                    chunk.size(), batchFailure.getMessage());
+            for (ImportRow row : chunk) {
+                try {
+                    jdbcTemplate.update(INSERT_USER_SQL, ps -> bindRow(ps, row));
+                    state.created++;
+                } catch (DataAccessException e) {
+                    reject(state, row.line, String.valueOf(row.dni), "No se pudo guardar: DNI o email duplicado");
+                }
+            }
+        }
+    }
+
+    private void bindRow(PreparedStatement ps, ImportRow row) throws SQLException {
+        ps.setString(1, row.firstName);
+        ps.setString(2, row.lastName);
+        ps.setString(3, row.passwordHash);
+        ps.setString(4, row.phone);
+        ps.setString(5, row.emergencyPhone);
+        ps.setString(6, row.email);
+        ps.setString(7, userService.buildInitialAvatar(row.firstName, row.lastName));
+        ps.setDate(8, Date.valueOf(LocalDate.now()));
+        ps.setString(9, row.address);
+        ps.setDate(10, Date.valueOf(row.birthDate));
+        ps.setInt(11, row.birthDate.getMonthValue());
+        ps.setInt(12, row.birthDate.getDayOfMonth());
+        ps.setInt(13, row.dni);
+        ps.setString(14, UserRole.CLIENT.name());
+        ps.setString(15, row.status.name());
+    }
+
+    private ImportRow reject(ImportState state, int line, String dni, String message) {
+        state.errors.add(ClientImportReportDTO.RowErrorDTO.builder()
+                .line(line)
+                .dni(dni)
+                .message(message)
+                .build());
+        return null;
+    }
+
+    private String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String trimmed = record.get(index).trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(text, LEGACY_DATE_FORMAT);
+            } catch (DateTimeParseException legacy) {
+                return null;
+            }
+        }
+    }
+
+    private boolean isBlank(List<String> record) {
+        return record.stream().allMatch(String::isBlank);
+    }
+
+    private String normalizeHeader(String header) {
+        return header.replace("\uFEFF", "").replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static class ImportState {
+        private final Set<Integer> activeDnis = new HashSet<>();
+        private final Set<Integer> deletedDnis = new HashSet<>();
+        private final Set<String> activeEmails = new HashSet<>();
+        private final List<ClientImportReportDTO.RowErrorDTO> errors = new ArrayList<>();
+        private int totalRows;
+        private int created;
+        private int reactivated;
+    }
+
+    private static class ImportRow {
+        private int line;
+        private Integer dni;
+        private String firstName;
+        private String lastName;
+        private String email;
+        private String address;
+        private LocalDate birthDate;
+        private String phone;
+        private String emergencyPhone;
+        private String rawPassword;
+        private String passwordHash;
+        private UserStatus status;
+        private boolean reactivate;
+    }
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields may contain separators, doubled
+     * quotes and line breaks. The separator (',' or ';') is taken from the
+     * header line.
+     */
+    private static class CsvReader implements AutoCloseable {
+        private final BufferedReader reader;
+        private char separator = 0;
+        private int line = 0;
+        private int recordLine;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        List<String> next() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            recordLine = line;
+            if (separator == 0) {
+                separator = text.indexOf(';') >= 0 && text.indexOf(',') < 0 ? ';' : ',';
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Line break inside a quoted field
+                    String continuation = reader.readLine();
+                    if (continuation == null) {
+                        break;
+                    }
+                    line++;
+                    field.append('\n');
+                    text = continuation;
+                    i = 0;
+                    continue;
+                }
+
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c == '"' && i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
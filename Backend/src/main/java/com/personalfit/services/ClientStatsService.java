@@ -0,0 +1,163 @@
+package com.personalfit.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.personalfit.dto.User.ClientStatsDTO;
+import com.personalfit.dto.User.ClientStatsRowDTO;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.exceptions.EntityNotFoundException;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.utils.TransactionUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Client home screen stats
+ *
+ * Reads the member dashboard (classes this month, completed classes, next
+ * class, remaining plan days) with one aggregate query and keeps the result
+ * for a short time per user. Attendance and payment writes evict the user's
+ * entry after commit; an entry also expires when its next class starts, since
+ * that changes the answer without any write.
+ */
+@Slf4j
+@Service
+public class ClientStatsService {
+
+    private static final int MAX_CACHED_USERS = 10000;
+    private static final Set<AttendanceStatus> UPCOMING_STATUSES = Set.of(AttendanceStatus.PENDING,
+            AttendanceStatus.PRESENT);
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.client-stats.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    private final Map<Long, CachedStats> cache = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @throws EntityNotFoundException  if the user does not exist.
+     * @throws IllegalArgumentException if the user is not a client.
+     */
+    public ClientStatsDTO getClientStats(Long clientId) {
+        LocalDateTime now = LocalDateTime.now();
+        CachedStats cached = cache.get(clientId);
+        if (cached != null && now.isBefore(cached.expiresAt())) {
+            return cached.stats();
+        }
+
+        long loadedAt = generation.get();
+        LocalDate monthStart = now.toLocalDate().withDayOfMonth(1);
+        ClientStatsRowDTO row = userRepository.findClientStatsRow(clientId,
+                UserActivityStatsService.COMPLETED_STATUSES, UPCOMING_STATUSES,
+                monthStart.atStartOfDay(), monthStart.plusMonths(1).atStartOfDay(), now)
+                .orElseThrow(() -> new EntityNotFoundException("User ID: " + clientId + " not found",
+                        "Api/User/getClientStats"));
+        if (!UserRole.CLIENT.equals(row.getRole())) {
+            throw new IllegalArgumentException("User is not a client");
+        }
+
+        ClientStatsDTO stats = toStats(row, now);
+        if (generation.get() == loadedAt) {
+            if (cache.size() >= MAX_CACHED_USERS) {
+                cache.clear();
+            }
+            cache.put(clientId, new CachedStats(stats, expiryOf(row, now)));
+        }
+        return stats;
+    }
+
+    /**
+     * The user's attendances, payments or status changed.
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            cache.remove(userId);
+        });
+    }
+
+    public void evict(Collection<Long> userIds) {
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            userIds.stream().filter(Objects::nonNull).forEach(cache::remove);
+        });
+    }
+
+    /**
+     * A change that affects an unknown set of users (activity edited or
+     * deleted).
+     */
+    public void evictAll() {
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            cache.clear();
+        });
+    }
+
+    private ClientStatsDTO toStats(ClientStatsRowDTO row, LocalDateTime now) {
+        ClientStatsDTO.NextClassDTO nextClass = null;
+        if (row.getNextClassId() != null) {
+            nextClass = ClientStatsDTO.NextClassDTO.builder()
+                    .id(row.getNextClassId())
+                    .name(row.getNextClassName())
+                    .date(row.getNextClassDate())
+                    .time(row.getNextClassDate().format(TIME_FORMATTER))
+                    .build();
+        }
+
+        return ClientStatsDTO.builder()
+                .weeklyActivityCount(toInt(row.getMonthCount()))
+                .nextClass(nextClass)
+                .completedClassesCount(toInt(row.getCompletedCount()))
+                .membershipStatus(row.getStatus())
+                .remainingDays(remainingDays(row.getPlanExpiresAt(), now))
+                .build();
+    }
+
+    private LocalDateTime expiryOf(ClientStatsRowDTO row, LocalDateTime now) {
+        LocalDateTime expiresAt = now.plusSeconds(cacheTtlSeconds);
+        if (row.getNextClassDate() != null && row.getNextClassDate().isBefore(expiresAt)) {
+            return row.getNextClassDate();
+        }
+        // Month count and remaining days roll over at midnight
+        LocalDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay();
+        return midnight.isBefore(expiresAt) ? midnight : expiresAt;
+    }
+
+    private Integer remainingDays(LocalDateTime expiresAt, LocalDateTime now) {
+        if (expiresAt == null || !expiresAt.isAfter(now)) {
+            return 0;
+        }
+        return Math.max(0, (int) ChronoUnit.DAYS.between(now.toLocalDate(), expiresAt.toLocalDate()));
+    }
+
+    private Integer toInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
+
+    private record CachedStats(ClientStatsDTO stats, LocalDateTime expiresAt) {
+    }
+}
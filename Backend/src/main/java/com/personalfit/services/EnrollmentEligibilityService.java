@@ -0,0 +1,137 @@
+package com.personalfit.services;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.MembershipPeriod;
+import com.personalfit.models.User;
+import com.personalfit.repository.MembershipPeriodRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.utils.TransactionUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Enrollment eligibility
+ *
+ * Keeps a per-user snapshot of what the payment rule needs (status and the
+ * end of the pending-payment grace period) so repeated enrollment checks
+ * don't touch the database. Payment writes (through MembershipPeriodService),
+ * user status changes and grace period edits evict after commit. The grace
+ * deadline is compared with the current time on every check, so a snapshot
+ * never needs to expire on its own.
+ */
+@Slf4j
+@Service
+public class EnrollmentEligibilityService {
+
+    private static final int MAX_CACHED_USERS = 10000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MembershipPeriodRepository membershipPeriodRepository;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private Clock clock;
+
+    private final Map<Long, EligibilitySnapshot> cache = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * ACTIVE users may enroll; INACTIVE users only while their latest pending
+     * payment is within the grace period.
+     */
+    public boolean canEnroll(Long userId) {
+        EligibilitySnapshot snapshot = cache.get(userId);
+        if (snapshot == null) {
+            snapshot = load(userId);
+            if (snapshot == null) {
+                return false;
+            }
+        }
+
+        if (snapshot.status() == UserStatus.ACTIVE) {
+            return true;
+        }
+        return snapshot.status() == UserStatus.INACTIVE && snapshot.graceDeadline() != null
+                && LocalDateTime.now(clock).isBefore(snapshot.graceDeadline());
+    }
+
+    /**
+     * The user's payments or status changed.
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            cache.remove(userId);
+        });
+    }
+
+    public void evict(Collection<Long> userIds) {
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            userIds.stream().filter(Objects::nonNull).forEach(cache::remove);
+        });
+    }
+
+    /**
+     * The grace period changed.
+     */
+    public void evictAll() {
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            cache.clear();
+        });
+    }
+
+    private EligibilitySnapshot load(Long userId) {
+        long loadedAt = generation.get();
+        User user = userRepository.findByIdAndDeletedAtIsNull(userId).orElse(null);
+        if (user == null) {
+            log.warn("Enrollment eligibility check failed: userId={}, cause=user not found", userId);
+            return null;
+        }
+
+        LocalDateTime graceDeadline = null;
+        if (user.getStatus() == UserStatus.INACTIVE) {
+            LocalDateTime pendingSince = membershipPeriodRepository.findById(userId)
+                    .map(MembershipPeriod::getPendingSince)
+                    .orElse(null);
+            if (pendingSince != null) {
+                // Allowed while fewer than (grace + 1) whole days have passed
+                graceDeadline = pendingSince.plusDays(settingsService.getPaymentGracePeriodDays() + 1L);
+            }
+        }
+
+        EligibilitySnapshot snapshot = new EligibilitySnapshot(user.getStatus(), graceDeadline);
+        if (generation.get() == loadedAt) {
+            if (cache.size() >= MAX_CACHED_USERS) {
+                cache.clear();
+            }
+            cache.put(userId, snapshot);
+        }
+        return snapshot;
+    }
+
+    private record EligibilitySnapshot(UserStatus status, LocalDateTime graceDeadline) {
+    }
+}
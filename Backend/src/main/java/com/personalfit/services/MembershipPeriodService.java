@@ -0,0 +1,173 @@
+package com.personalfit.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.personalfit.dto.Payment.MembershipPaymentDTO;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.models.MembershipPeriod;
+import com.personalfit.repository.MembershipPeriodRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Membership periods
+ *
+ * Maintains membership_period (paid-through date, the PAID payment behind it
+ * and the latest pending payment) so membership checks are a primary-key
+ * lookup instead of a scan of the user's payment history. Payment writes
+ * recompute the rows of the linked users inside their own transaction, so
+ * the table never disagrees with committed payments, and evict the users'
+ * enrollment eligibility snapshots. A nightly rebuild corrects drift from
+ * writes that bypass the services (manual SQL).
+ *
+ * Every recompute locks the users' rows before reading their payments, so
+ * concurrent writers (and the rebuild) apply one after the other and the
+ * last one always sees the others' committed payments. Missing rows are
+ * inserted empty first, in the same transaction, so there is always a row to
+ * lock.
+ */
+@Slf4j
+@Service
+public class MembershipPeriodService {
+
+    private static final String INSERT_EMPTY_PERIOD_SQL = "INSERT INTO membership_period (user_id, updated_at) "
+            + "VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final Set<PaymentStatus> TRACKED_STATUSES = Set.of(PaymentStatus.PAID, PaymentStatus.PENDING);
+
+    private static final int REBUILD_CHUNK_SIZE = 500;
+
+    @Autowired
+    private MembershipPeriodRepository membershipPeriodRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EnrollmentEligibilityService enrollmentEligibilityService;
+
+    public Optional<MembershipPeriod> getMembershipPeriod(Long userId) {
+        return membershipPeriodRepository.findById(userId);
+    }
+
+    /**
+     * Users among {@code userIds} already paid up to {@code expiration}.
+     */
+    public Set<Long> findUserIdsPaidThroughAtOrAfter(Collection<Long> userIds, LocalDateTime expiration) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(membershipPeriodRepository.findUserIdsPaidThroughAtOrAfter(userIds, expiration));
+    }
+
+    /**
+     * Recomputes the rows of the given users from the payment table. Runs in
+     * the caller's transaction; pending payment changes are flushed before
+     * the payments are read.
+     */
+    @Transactional
+    public void refresh(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        enrollmentEligibilityService.evict(ids);
+        createMissingRows(ids);
+
+        List<MembershipPeriod> rows = membershipPeriodRepository.findByUserIdsForUpdate(ids);
+        Map<Long, List<MembershipPaymentDTO>> paymentsByUser = membershipPeriodRepository
+                .findPaymentsByUserIds(ids, TRACKED_STATUSES).stream()
+                .collect(Collectors.groupingBy(MembershipPaymentDTO::getUserId));
+        rows.forEach(period -> apply(period, paymentsByUser.getOrDefault(period.getUserId(), List.of())));
+        membershipPeriodRepository.saveAll(rows);
+    }
+
+    /**
+     * Fills the table on first start after it was introduced.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (membershipPeriodRepository.count() == 0) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * CRON JOB: Nightly reconcile (03:45 AM).
+     * Recomputes every row from the payment table, in chunks of users with
+     * one short transaction each, so payment writes only wait for the chunk
+     * that holds their users.
+     */
+    @Scheduled(cron = "0 45 3 * * ?")
+    public void rebuildAll() {
+        List<Long> userIds = membershipPeriodRepository.findAllTrackedUserIds(TRACKED_STATUSES).stream()
+                .sorted()
+                .toList();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < userIds.size(); from += REBUILD_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + REBUILD_CHUNK_SIZE, userIds.size()));
+            transaction.executeWithoutResult(status -> refresh(chunk));
+        }
+        log.info("Membership periods rebuilt: users={}", userIds.size());
+    }
+
+    /**
+     * Inserts empty rows for the users that have none, in the caller's
+     * transaction. A row a concurrent writer inserted first is skipped once
+     * that writer commits (ON CONFLICT DO NOTHING), so this never needs a
+     * second connection while the caller holds its locks.
+     */
+    private void createMissingRows(List<Long> userIds) {
+        Set<Long> existing = new HashSet<>(membershipPeriodRepository.findExistingUserIds(userIds));
+        List<Long> missing = userIds.stream().filter(userId -> !existing.contains(userId)).toList();
+        if (!missing.isEmpty()) {
+            insertEmptyRows(missing);
+        }
+    }
+
+    // Plain JDBC batch: rows have assigned ids, so saveAll would SELECT each one first
+    private void insertEmptyRows(List<Long> userIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_EMPTY_PERIOD_SQL, userIds, 500, (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setTimestamp(2, now);
+        });
+    }
+
+    private void apply(MembershipPeriod period, List<MembershipPaymentDTO> payments) {
+        Optional<MembershipPaymentDTO> source = payments.stream()
+                .filter(payment -> payment.getStatus() == PaymentStatus.PAID && payment.getExpiresAt() != null)
+                .max(Comparator.comparing(MembershipPaymentDTO::getExpiresAt));
+        period.setPaidThrough(source.map(MembershipPaymentDTO::getExpiresAt).orElse(null));
+        period.setSourcePaymentId(source.map(MembershipPaymentDTO::getPaymentId).orElse(null));
+        period.setPendingSince(payments.stream()
+                .filter(payment -> payment.getStatus() == PaymentStatus.PENDING && payment.getCreatedAt() != null)
+                .map(MembershipPaymentDTO::getCreatedAt)
+                .max(Comparator.naturalOrder())
+                .orElse(null));
+    }
+}
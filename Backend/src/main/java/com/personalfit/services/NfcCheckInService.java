@@ -0,0 +1,436 @@
+package com.personalfit.services;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.personalfit.dto.Attendance.AttendanceSlotDTO;
+import com.personalfit.dto.Attendance.NfcScanEventDTO;
+import com.personalfit.dto.Attendance.NfcScanResultDTO;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.models.Attendance;
+import com.personalfit.models.User;
+import com.personalfit.repository.AttendanceRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.utils.TransactionUtils;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: NFC Door Check-in
+ *
+ * Keeps today's roster in memory: DNI -> role, name and the member's
+ * enrollments for the day ordered by start time. Built at midnight (and at
+ * startup) and patched after every committed enroll, unenroll or activity
+ * edit, and evicted when a user is deleted, reactivated or changes role, so
+ * a door scan is one map lookup plus one status UPDATE instead of loading
+ * the member's whole attendance history.
+ *
+ * Patches take the same lock as the rebuild, so a change committed while the
+ * roster is being rebuilt is applied to the new roster rather than the one
+ * being replaced. A DNI missing from the roster (user created today), or a
+ * client with no classes in it, falls back to the database once and is
+ * cached, an empty day included.
+ */
+@Slf4j
+@Service
+public class NfcCheckInService {
+
+    private static final int LATE_THRESHOLD_MINUTES = 15;
+
+    private static final Set<AttendanceStatus> NOT_COMPLETED_STATUSES = EnumSet
+            .complementOf(EnumSet.copyOf(UserActivityStatsService.COMPLETED_STATUSES));
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WorkShiftService workShiftService;
+
+    @Autowired
+    private UserActivityStatsService userActivityStatsService;
+
+    @Autowired
+    private Clock clock;
+
+    private volatile LocalDate rosterDate;
+    private volatile Map<Integer, RosterMember> roster = new ConcurrentHashMap<>();
+
+    /**
+     * Processes a door scan taken now.
+     */
+    @Transactional
+    public NfcScanResultDTO processScan(Integer dni) {
+        return processScan(dni, LocalDateTime.now(clock));
+    }
+
+    /**
+     * Rules:
+     * - TRAINER -> shift check-in / check-out.
+     * - CLIENT -> first class of the day that hasn't ended at scan time:
+     * before start or < 15 mins late -> PRESENT, later -> LATE.
+     * - All of today's classes ended -> last class marked ABSENT.
+     */
+    @Transactional
+    public NfcScanResultDTO processScan(Integer dni, LocalDateTime scannedAt) {
+        RosterMember member = findMember(dni, scannedAt.toLocalDate());
+        if (member == null) {
+            return notFound(dni, "User with DNI " + dni + " not found");
+        }
+
+        if (member.getRole() == UserRole.TRAINER) {
+            String action = workShiftService.processCheckInCheckOut(
+                    userRepository.getReferenceById(member.getUserId()), scannedAt);
+            return NfcScanResultDTO.builder()
+                    .dni(dni)
+                    .success(true)
+                    .status(action)
+                    .message("CHECK_IN".equals(action) ? "Trainer Check-In Successful" : "Trainer Check-Out Successful")
+                    .userName(member.getFullName())
+                    .build();
+        }
+
+        if (member.getSlots().isEmpty() && !member.isReloaded() && scannedAt.toLocalDate().equals(rosterDate)) {
+            member = loadAndCache(dni, rosterDate);
+            if (member == null) {
+                return notFound(dni, "User with DNI " + dni + " not found");
+            }
+        }
+        List<AttendanceSlotDTO> slots = member.getSlots();
+        if (slots.isEmpty()) {
+            return notFound(dni, "No classes scheduled for today for " + member.getFullName());
+        }
+
+        // Relevant class: currently running or not started yet
+        AttendanceSlotDTO relevant = null;
+        for (AttendanceSlotDTO slot : slots) {
+            if (scannedAt.isBefore(slot.getActivityDate().plusMinutes(slot.getDuration()))) {
+                relevant = slot;
+                break;
+            }
+        }
+
+        if (relevant == null) {
+            AttendanceSlotDTO last = slots.get(slots.size() - 1);
+            if (!applyStatus(member, last, AttendanceStatus.ABSENT, scannedAt)) {
+                return notFound(dni, "No classes scheduled for today for " + member.getFullName());
+            }
+            return NfcScanResultDTO.builder()
+                    .dni(dni)
+                    .success(true)
+                    .status(AttendanceStatus.ABSENT.toString())
+                    .message("Class already ended. Marked as ABSENT")
+                    .userName(member.getFullName())
+                    .activityName(last.getActivityName())
+                    .build();
+        }
+
+        LocalDateTime activityStart = relevant.getActivityDate();
+        AttendanceStatus newStatus;
+        String statusMessage;
+
+        if (scannedAt.isBefore(activityStart)) {
+            newStatus = AttendanceStatus.PRESENT;
+            statusMessage = "Marked as PRESENT (Class starting soon)";
+        } else if (scannedAt.isBefore(activityStart.plusMinutes(LATE_THRESHOLD_MINUTES))) {
+            newStatus = AttendanceStatus.PRESENT;
+            statusMessage = "Marked as PRESENT";
+        } else {
+            newStatus = AttendanceStatus.LATE;
+            statusMessage = "Marked as LATE (> 15 mins delay)";
+        }
+
+        if (!applyStatus(member, relevant, newStatus, scannedAt)) {
+            return notFound(dni, "No classes scheduled for today for " + member.getFullName());
+        }
+
+        return NfcScanResultDTO.builder()
+                .dni(dni)
+                .success(true)
+                .status(newStatus.toString())
+                .message(statusMessage)
+                .userName(member.getFullName())
+                .activityName(relevant.getActivityName())
+                .activityTime(activityStart)
+                .build();
+    }
+
+    /**
+     * Offline ingestion: applies a reader's buffered scans in one transaction,
+     * each evaluated at its own timestamp. Events are applied in scan order
+     * (stable, so same-instant events keep the reader's order). Unknown DNIs
+     * are reported per event and don't fail the batch.
+     */
+    @Transactional
+    public List<NfcScanResultDTO> processBatch(List<NfcScanEventDTO> events) {
+        List<NfcScanEventDTO> ordered = new ArrayList<>(events);
+        ordered.sort(Comparator.comparing(NfcScanEventDTO::getScannedAt));
+
+        List<NfcScanResultDTO> results = new ArrayList<>(ordered.size());
+        for (NfcScanEventDTO event : ordered) {
+            NfcScanResultDTO result = processScan(event.getDni(), event.getScannedAt());
+            result.setScannedAt(event.getScannedAt());
+            results.add(result);
+        }
+
+        log.info("NFC batch processed: events={}, notFound={}", results.size(),
+                results.stream().filter(result -> NfcScanResultDTO.NOT_FOUND.equals(result.getStatus())).count());
+        return results;
+    }
+
+    // ===============================
+    // ROSTER MAINTENANCE
+    // ===============================
+
+    /**
+     * Cron Job: Rebuilds the roster for the new day (Daily at 00:00).
+     */
+    @Scheduled(cron = "0 0 0 * * *")
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuildRoster() {
+        LocalDate today = LocalDate.now(clock);
+
+        Map<Long, List<AttendanceSlotDTO>> slotsByUser = attendanceRepository
+                .findSlotsByActivityDateRange(today.atStartOfDay(), today.plusDays(1).atStartOfDay())
+                .stream()
+                .collect(Collectors.groupingBy(AttendanceSlotDTO::getUserId));
+
+        Map<Integer, RosterMember> fresh = new ConcurrentHashMap<>();
+        for (User user : userRepository.findAllByDeletedAtIsNull()) {
+            if (user.getDni() == null) {
+                continue;
+            }
+            fresh.put(user.getDni(), new RosterMember(user.getId(), user.getFullName(), user.getRole(),
+                    List.copyOf(slotsByUser.getOrDefault(user.getId(), List.of())), false));
+        }
+
+        roster = fresh;
+        rosterDate = today;
+        log.info("NFC roster rebuilt: date={}, members={}, enrollments={}",
+                today, fresh.size(), slotsByUser.values().stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * A new enrollment was saved (direct enroll or waitlist promotion).
+     */
+    public void onAttendanceCreated(Attendance attendance) {
+        Integer dni = attendance.getUser().getDni();
+        AttendanceSlotDTO slot = AttendanceSlotDTO.builder()
+                .attendanceId(attendance.getId())
+                .userId(attendance.getUser().getId())
+                .activityId(attendance.getActivity().getId())
+                .activityName(attendance.getActivity().getName())
+                .activityDate(attendance.getActivity().getDate())
+                .duration(attendance.getActivity().getDuration())
+                .build();
+
+        patchAfterCommit(() -> {
+            if (dni != null && isToday(slot.getActivityDate())) {
+                roster.computeIfPresent(dni, (key, member) -> member.withSlotAdded(slot));
+            }
+        });
+    }
+
+    /**
+     * An enrollment was deleted.
+     */
+    public void onAttendanceRemoved(Integer dni, Long attendanceId) {
+        patchAfterCommit(() -> {
+            if (dni != null) {
+                roster.computeIfPresent(dni, (key, member) -> member.withoutAttendance(attendanceId));
+            }
+        });
+    }
+
+    /**
+     * An activity was edited: its enrollments may have moved into or out of
+     * today, or changed start time, duration or name.
+     */
+    public void onActivityChanged(Long activityId) {
+        patchAfterCommit(() -> {
+            removeActivitySlots(activityId);
+
+            List<AttendanceSlotDTO> slots = attendanceRepository.findSlotsByActivityId(activityId);
+            if (slots.isEmpty() || !isToday(slots.get(0).getActivityDate())) {
+                return;
+            }
+
+            Map<Long, AttendanceSlotDTO> slotByUser = slots.stream()
+                    .collect(Collectors.toMap(AttendanceSlotDTO::getUserId, slot -> slot));
+            roster.replaceAll((dni, member) -> slotByUser.containsKey(member.getUserId())
+                    ? member.withSlotAdded(slotByUser.get(member.getUserId()))
+                    : member);
+        });
+    }
+
+    /**
+     * An activity was deleted along with its enrollments.
+     */
+    public void onActivityRemoved(Long activityId) {
+        patchAfterCommit(() -> removeActivitySlots(activityId));
+    }
+
+    /**
+     * A user was deleted, reactivated or had their role or name changed: the
+     * cached entry is dropped and the next scan reloads it from the database.
+     */
+    public void onUserChanged(Integer dni) {
+        patchAfterCommit(() -> {
+            if (dni != null) {
+                roster.remove(dni);
+            }
+        });
+    }
+
+    /**
+     * Applies a roster change once the transaction commits, under the
+     * rebuild's lock.
+     */
+    private void patchAfterCommit(Runnable change) {
+        TransactionUtils.runAfterCommit(() -> {
+            synchronized (this) {
+                change.run();
+            }
+        });
+    }
+
+    private void removeActivitySlots(Long activityId) {
+        roster.replaceAll((dni, member) -> member.withoutActivity(activityId));
+    }
+
+    /**
+     * Scans for today go through the roster; scans from another day (an
+     * offline batch flushed after midnight) are resolved from the database.
+     */
+    private RosterMember findMember(Integer dni, LocalDate scanDate) {
+        LocalDate today = LocalDate.now(clock);
+        if (!scanDate.equals(today)) {
+            return loadMember(dni, scanDate);
+        }
+        if (!today.equals(rosterDate)) {
+            rebuildRoster();
+        }
+
+        RosterMember member = roster.get(dni);
+        return member != null ? member : loadAndCache(dni, today);
+    }
+
+    private RosterMember loadAndCache(Integer dni, LocalDate today) {
+        synchronized (this) {
+            RosterMember member = loadMember(dni, today);
+            if (member != null) {
+                roster.put(dni, member);
+            } else {
+                roster.remove(dni);
+            }
+            return member;
+        }
+    }
+
+    private RosterMember loadMember(Integer dni, LocalDate date) {
+        return userRepository.findByDniAndDeletedAtIsNull(dni)
+                .map(user -> new RosterMember(user.getId(), user.getFullName(), user.getRole(),
+                        attendanceRepository.findSlotsByUserIdAndActivityDateRange(
+                                user.getId(), date.atStartOfDay(), date.plusDays(1).atStartOfDay()), true))
+                .orElse(null);
+    }
+
+    /**
+     * Writes the new status. The first UPDATE only matches when the status
+     * crosses into or out of PRESENT/LATE (the usual PENDING -> PRESENT
+     * scan), so its row count is the stats delta; a repeat scan on the same
+     * side falls through to a plain UPDATE. A miss on both means the roster
+     * was stale (enrollment deleted by a transaction that hasn't been
+     * reflected yet): the member is evicted so the next scan reloads it.
+     */
+    private boolean applyStatus(RosterMember member, AttendanceSlotDTO slot, AttendanceStatus status,
+            LocalDateTime scannedAt) {
+        boolean completed = UserActivityStatsService.isCompleted(status);
+        Set<AttendanceStatus> otherSide = completed ? NOT_COMPLETED_STATUSES
+                : UserActivityStatsService.COMPLETED_STATUSES;
+        if (attendanceRepository.updateStatusIfIn(slot.getAttendanceId(), status, scannedAt, otherSide) == 1) {
+            userActivityStatsService.onCompletedChanged(member.getUserId(), completed, slot.getActivityDate());
+            return true;
+        }
+        if (attendanceRepository.updateStatus(slot.getAttendanceId(), status, scannedAt) == 1) {
+            return true;
+        }
+        log.warn("NFC roster stale, evicting member: userId={}, attendanceId={}",
+                member.getUserId(), slot.getAttendanceId());
+        synchronized (this) {
+            roster.values().remove(member);
+        }
+        return false;
+    }
+
+    private boolean isToday(LocalDateTime dateTime) {
+        return dateTime != null && dateTime.toLocalDate().equals(rosterDate);
+    }
+
+    private NfcScanResultDTO notFound(Integer dni, String message) {
+        return NfcScanResultDTO.builder()
+                .dni(dni)
+                .success(false)
+                .status(NfcScanResultDTO.NOT_FOUND)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Immutable roster entry; updates swap in a new instance.
+     */
+    @Value
+    static class RosterMember {
+        Long userId;
+        String fullName;
+        UserRole role;
+        List<AttendanceSlotDTO> slots;
+        // Read straight from the database: an empty day is the real answer.
+        boolean reloaded;
+
+        RosterMember withSlotAdded(AttendanceSlotDTO slot) {
+            List<AttendanceSlotDTO> updated = new ArrayList<>(slots);
+            updated.removeIf(existing -> existing.getAttendanceId().equals(slot.getAttendanceId()));
+            updated.add(slot);
+            updated.sort(Comparator.comparing(AttendanceSlotDTO::getActivityDate)
+                    .thenComparing(AttendanceSlotDTO::getAttendanceId));
+            return new RosterMember(userId, fullName, role, List.copyOf(updated), reloaded);
+        }
+
+        RosterMember withoutAttendance(Long attendanceId) {
+            return new RosterMember(userId, fullName, role, slots.stream()
+                    .filter(slot -> !slot.getAttendanceId().equals(attendanceId))
+                    .toList(), reloaded);
+        }
+
+        RosterMember withoutActivity(Long activityId) {
+            if (slots.stream().noneMatch(slot -> slot.getActivityId().equals(activityId))) {
+                return this;
+            }
+            return new RosterMember(userId, fullName, role, slots.stream()
+                    .filter(slot -> !slot.getActivityId().equals(activityId))
+                    .toList(), reloaded);
+        }
+    }
+}
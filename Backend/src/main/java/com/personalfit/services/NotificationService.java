@@ -2,6 +2,7 @@ package com.personalfit.services;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,9 +21,11 @@ import com.personalfit.dto.Notification.NotificationTypeDTO;
 import com.personalfit.enums.NotificationStatus;
 import com.personalfit.exceptions.BusinessRuleException;
 import com.personalfit.exceptions.EntityNotFoundException;
+import com.personalfit.models.Activity;
 import com.personalfit.models.Notification;
 import com.personalfit.models.User;
 import com.personalfit.repository.NotificationRepository;
+import com.personalfit.utils.TransactionUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -432,6 +435,36 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Alert: Waitlist Promotion.
+     * A seat freed up and the user was moved from the waitlist into the class.
+     * The in-app notification is stored with the promotion; the push is sent
+     * only after the enrollment commits, so a rolled-back promotion never
+     * reaches the phone.
+     */
+    public void createWaitlistPromotionNotification(User user, Activity activity) {
+        String title = "Lugar confirmado";
+        String message = String.format("Se libero un lugar en '%s' (%s). Ya estas inscripto.",
+                activity.getName(), activity.getDate().format(DateTimeFormatter.ofPattern("dd/MM HH:mm")));
+
+        notificationRepository.save(Notification.builder()
+                .title(title)
+                .message(message)
+                .user(user)
+                .status(NotificationStatus.UNREAD)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        Long userId = user.getId();
+        TransactionUtils.runAfterCommit(() -> {
+            try {
+                fcmService.sendNotificationAsync(userId, title, message);
+            } catch (Exception e) {
+                log.warn("Failed to push waitlist promotion: userId={}, cause={}", userId, e.getMessage());
+            }
+        });
+    }
+
     /**
      * Reminder: Upcoming Class.
      * Batch notification for class participants.
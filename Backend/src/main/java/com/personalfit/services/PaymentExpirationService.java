@@ -0,0 +1,284 @@
+package com.personalfit.services;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.personalfit.dto.Payment.PaymentExpirationProgressDTO;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.Settings;
+import com.personalfit.models.User;
+import com.personalfit.repository.PaymentRepository;
+import com.personalfit.repository.SettingsRepository;
+import com.personalfit.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Monthly payment expiration
+ *
+ * Runs on day 10 of every month at 00:00:
+ * 1. Expires PENDING payments whose expiration instant has arrived, without
+ * changing users or verification data.
+ * 2. Expires PAID payments due on or before the 10th.
+ * 3. Deactivates users only for expired PAID payments and only when they no
+ * longer have another active PAID payment (protected clients excluded).
+ *
+ * Payments are walked in ID order in chunks; each chunk is one short
+ * transaction of bulk UPDATEs, a refresh of the linked users' membership
+ * periods and one anti-join query for the users losing their membership. A
+ * processed chunk no longer matches the selection, so a failed or
+ * interrupted run is resumed simply by running again; a cycle that did not
+ * complete is picked up again at startup.
+ */
+@Slf4j
+@Service
+public class PaymentExpirationService {
+
+    static final String LAST_CYCLE_KEY = "payment_expiration_last_cycle";
+    private static final int EXPIRATION_DAY = 10;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SettingsRepository settingsRepository;
+
+    @Autowired
+    @Lazy
+    private NotificationService notificationService;
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private MembershipPeriodService membershipPeriodService;
+
+    @Autowired
+    private PaymentRollupService paymentRollupService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${app.payment-expiration.chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Progress of the current (or last) run, readable while it executes
+    private volatile String state = "IDLE";
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private final AtomicInteger chunks = new AtomicInteger();
+    private final AtomicInteger pendingExpired = new AtomicInteger();
+    private final AtomicInteger paidExpired = new AtomicInteger();
+    private final AtomicInteger usersDeactivated = new AtomicInteger();
+
+    @Scheduled(cron = "0 0 0 10 * *")
+    public void checkPaidPayments() {
+        runExpiration();
+    }
+
+    /**
+     * Catch-up after downtime or a crash during the 10th: finishes the
+     * current month's cycle if it never completed. On the first start with
+     * no cycle recorded, the current cycle is recorded instead of run: the
+     * job that ran before this one already processed it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeIncompleteCycle() {
+        YearMonth cycle = currentCycle(LocalDate.now(clock));
+        String lastCompleted = lastCompletedCycle();
+        if (lastCompleted == null) {
+            log.info("No payment expiration cycle recorded, marking {} as completed", cycle);
+            markCycleCompleted(cycle);
+            return;
+        }
+        if (!cycle.toString().equals(lastCompleted) && !cycle.isBefore(YearMonth.parse(lastCompleted))) {
+            log.info("Resuming monthly payment expiration for cycle {}", cycle);
+            runExpiration();
+        }
+    }
+
+    /**
+     * Runs (or resumes) the expiration of the current cycle. A call while a
+     * run is in progress returns that run's progress without starting
+     * another.
+     */
+    public PaymentExpirationProgressDTO runExpiration() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Monthly payment expiration already running");
+            return getProgress();
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        YearMonth cycle = currentCycle(now.toLocalDate());
+        // PAID payments due on or before the cycle's 10th, whenever the run happens
+        LocalDateTime expirationCutoff = cycle.atDay(EXPIRATION_DAY).plusDays(1).atStartOfDay();
+        resetProgress(now);
+        log.info("Starting monthly payment expiration process: cycle={}, cutoff={}", cycle, expirationCutoff);
+
+        try {
+            expirePendingPayments(now);
+            expirePaidPayments(now, expirationCutoff);
+            markCycleCompleted(cycle);
+            state = "COMPLETED";
+
+            log.info("Monthly expiration job complete: expiredPending={}, expiredPaid={}, deactivated={}, chunks={}",
+                    pendingExpired.get(), paidExpired.get(), usersDeactivated.get(), chunks.get());
+        } catch (RuntimeException e) {
+            state = "FAILED";
+            error = e.getMessage();
+            log.error("Monthly expiration job failed after {} chunks; run it again to resume", chunks.get(), e);
+        } finally {
+            finishedAt = LocalDateTime.now(clock);
+            running.set(false);
+            // Plan expiry dates changed for an unknown set of members
+            clientStatsService.evictAll();
+        }
+        return getProgress();
+    }
+
+    public PaymentExpirationProgressDTO getProgress() {
+        return PaymentExpirationProgressDTO.builder()
+                .state(state)
+                .lastCompletedCycle(lastCompletedCycle())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .chunks(chunks.get())
+                .pendingExpired(pendingExpired.get())
+                .paidExpired(paidExpired.get())
+                .usersDeactivated(usersDeactivated.get())
+                .error(error)
+                .build();
+    }
+
+    private void expirePendingPayments(LocalDateTime now) {
+        long afterId = 0;
+        while (true) {
+            List<Long> chunk = paymentRepository.findIdsExpiringAtOrBefore(PaymentStatus.PENDING, now, afterId,
+                    Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Integer expired = transactionTemplate.execute(status -> {
+                int updated = paymentRepository.updateStatusByIds(chunk, PaymentStatus.PENDING,
+                        PaymentStatus.EXPIRED, now);
+                paymentRollupService.onBulkStatusChanged(chunk, PaymentStatus.PENDING, PaymentStatus.EXPIRED);
+                membershipPeriodService.refresh(paymentRepository.findUserIdsByPaymentIds(chunk));
+                return updated;
+            });
+
+            afterId = chunk.getLast();
+            pendingExpired.addAndGet(expired != null ? expired : 0);
+            logChunk("PENDING", afterId);
+        }
+    }
+
+    private void expirePaidPayments(LocalDateTime now, LocalDateTime expirationCutoff) {
+        long afterId = 0;
+        while (true) {
+            List<Long> chunk = paymentRepository.findIdsExpiringBefore(PaymentStatus.PAID, expirationCutoff, afterId,
+                    Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                return;
+            }
+            ChunkResult result = transactionTemplate.execute(status -> {
+                int expired = paymentRepository.updateStatusByIds(chunk, PaymentStatus.PAID,
+                        PaymentStatus.EXPIRED, now);
+                membershipPeriodService.refresh(paymentRepository.findUserIdsByPaymentIds(chunk));
+
+                List<User> losingMembership = userRepository.findUsersLosingMembership(chunk, UserStatus.INACTIVE,
+                        UserRole.CLIENT, UserService.PROTECTED_CLIENT_DNIS, now);
+                Map<UserStatus, List<Long>> idsByStatus = losingMembership.stream().collect(
+                        Collectors.groupingBy(User::getStatus, Collectors.mapping(User::getId, Collectors.toList())));
+                idsByStatus.forEach((current, userIds) -> userRepository.updateStatusByIds(userIds, current,
+                        UserStatus.INACTIVE));
+                return new ChunkResult(expired, losingMembership);
+            });
+
+            afterId = chunk.getLast();
+            paidExpired.addAndGet(result.expired());
+            if (!result.deactivated().isEmpty()) {
+                usersDeactivated.addAndGet(result.deactivated().size());
+                notifyExpired(result.deactivated());
+            }
+            logChunk("PAID", afterId);
+        }
+    }
+
+    private void notifyExpired(List<User> users) {
+        try {
+            notificationService.createPaymentExpiredNotification(users, new ArrayList<>());
+        } catch (Exception e) {
+            log.error("Error sending payment expiration notifications: {}", e.getMessage());
+        }
+    }
+
+    private void logChunk(String phase, long lastPaymentId) {
+        log.info("Payment expiration progress: phase={}, chunk={}, lastPaymentId={}, "
+                + "expiredPending={}, expiredPaid={}, deactivated={}",
+                phase, chunks.incrementAndGet(), lastPaymentId,
+                pendingExpired.get(), paidExpired.get(), usersDeactivated.get());
+    }
+
+    private void resetProgress(LocalDateTime now) {
+        state = "RUNNING";
+        startedAt = now;
+        finishedAt = null;
+        error = null;
+        chunks.set(0);
+        pendingExpired.set(0);
+        paidExpired.set(0);
+        usersDeactivated.set(0);
+    }
+
+    /**
+     * Cycle of the latest 10th on or before {@code date}.
+     */
+    static YearMonth currentCycle(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        return date.getDayOfMonth() >= EXPIRATION_DAY ? month : month.minusMonths(1);
+    }
+
+    private String lastCompletedCycle() {
+        return settingsRepository.findByKey(LAST_CYCLE_KEY).map(Settings::getValue).orElse(null);
+    }
+
+    private void markCycleCompleted(YearMonth cycle) {
+        Settings setting = settingsRepository.findByKey(LAST_CYCLE_KEY)
+                .orElseGet(() -> new Settings(LAST_CYCLE_KEY, cycle.toString(),
+                        "Último mes procesado por el vencimiento mensual de pagos"));
+        setting.setValue(cycle.toString());
+        settingsRepository.save(setting);
+    }
+
+    private record ChunkResult(int expired, List<User> deactivated) {
+    }
+}
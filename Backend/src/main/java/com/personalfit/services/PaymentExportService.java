@@ -0,0 +1,197 @@
+package com.personalfit.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.personalfit.exceptions.BusinessRuleException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Accounting export
+ *
+ * Writes the payments created in a date range as CSV (semicolon separated,
+ * UTF-8 with BOM so spreadsheet apps open it with accents intact). Rows are
+ * read through a forward-only JDBC cursor and written to the output as they
+ * arrive: one line per payment, with its clients joined in a single column,
+ * so memory use doesn't grow with the range.
+ */
+@Slf4j
+@Service
+public class PaymentExportService {
+
+    private static final String EXPORT_SQL = "SELECT p.id, p.created_at, p.expires_at, p.verified_at, p.status, "
+            + "p.method_type, p.amount, p.conf_number, u.dni, u.first_name, u.last_name "
+            + "FROM payment p "
+            + "LEFT JOIN payment_users pu ON pu.payment_id = p.id "
+            + "LEFT JOIN app_user u ON u.id = pu.user_id "
+            + "WHERE p.created_at >= ? AND p.created_at < ? "
+            + "ORDER BY p.created_at, p.id, u.last_name, u.first_name";
+
+    private static final String HEADER = "id;fecha;vencimiento;verificado;estado;metodo;monto;"
+            + "nro_comprobante;cantidad_clientes;clientes;dnis";
+
+    // Rows the driver holds per round trip; the PostgreSQL driver only uses a
+    // cursor inside a transaction (autocommit off)
+    private static final int FETCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @throws BusinessRuleException if the range is missing or inverted.
+     */
+    public void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new BusinessRuleException("El rango de fechas del reporte no es válido.", "/api/payments/export");
+        }
+    }
+
+    /**
+     * Writes payments created from {@code from} to {@code to} (both
+     * inclusive). The output is flushed but not closed.
+     *
+     * @return number of payments written.
+     */
+    @Transactional(readOnly = true)
+    public int writeCsv(LocalDate from, LocalDate to, OutputStream output) throws IOException {
+        validateRange(from, to);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        writer.write(HEADER);
+        writer.write("\r\n");
+
+        CsvRowWriter rows = new CsvRowWriter(writer);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(FETCH_SIZE);
+                statement.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                statement.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+                return statement;
+            }, rows);
+            rows.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("Payments exported: from={}, to={}, payments={}", from, to, rows.written);
+        return rows.written;
+    }
+
+    /**
+     * Buffers the client rows of the current payment only; the query orders
+     * by payment, so a payment is complete when the next one starts.
+     */
+    private static class CsvRowWriter implements RowCallbackHandler {
+
+        private final Writer writer;
+        private final List<String> clientNames = new ArrayList<>();
+        private final List<String> clientDnis = new ArrayList<>();
+        private String[] current;
+        private long currentId;
+        private int written;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || id != currentId) {
+                finish();
+                currentId = id;
+                BigDecimal amount = rs.getBigDecimal("amount");
+                Long confNumber = rs.getObject("conf_number", Long.class);
+                current = new String[] {
+                        String.valueOf(id),
+                        format(rs.getTimestamp("created_at")),
+                        format(rs.getTimestamp("expires_at")),
+                        format(rs.getTimestamp("verified_at")),
+                        rs.getString("status"),
+                        rs.getString("method_type"),
+                        amount != null ? amount.stripTrailingZeros().toPlainString() : "",
+                        confNumber != null ? String.valueOf(confNumber) : ""
+                };
+            }
+
+            int dni = rs.getInt("dni");
+            boolean hasDni = !rs.wasNull();
+            String firstName = rs.getString("first_name");
+            String lastName = rs.getString("last_name");
+            if (firstName != null || lastName != null) {
+                clientNames.add(noFormula(((lastName != null ? lastName : "") + " "
+                        + (firstName != null ? firstName : "")).trim()));
+            }
+            if (hasDni) {
+                clientDnis.add(String.valueOf(dni));
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                for (String value : current) {
+                    writer.write(escape(value));
+                    writer.write(';');
+                }
+                writer.write(String.valueOf(clientNames.size()));
+                writer.write(';');
+                writer.write(escape(String.join(" | ", clientNames)));
+                writer.write(';');
+                writer.write(escape(String.join(" | ", clientDnis)));
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written++;
+            current = null;
+            clientNames.clear();
+            clientDnis.clear();
+        }
+
+        private static String format(Timestamp value) {
+            return value != null ? value.toLocalDateTime().toString() : "";
+        }
+
+        // Spreadsheets evaluate cells starting with these as formulas
+        private static String noFormula(String value) {
+            return !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        }
+
+        private static String escape(String value) {
+            if (value == null || value.isEmpty()) {
+                return "";
+            }
+            if (value.indexOf(';') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.personalfit.services;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.personalfit.dto.Payment.PaymentDashboardDTO;
+import com.personalfit.dto.Payment.PaymentRollupRowDTO;
+import com.personalfit.enums.MethodType;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.models.Payment;
+import com.personalfit.models.PaymentRollup;
+import com.personalfit.repository.PaymentRollupRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Payment rollup
+ *
+ * Maintains payment_rollup (count and amount per creation month, status and
+ * method) with deltas applied in the same transaction as each payment write,
+ * so the admin dashboard reads a handful of rows instead of scanning
+ * payments. Expiring a PAID payment ends the membership, not the
+ * collection, so it doesn't move the payment out of PAID here. The table is
+ * backfilled on first start, rebuilt nightly and on demand.
+ *
+ * Writes touching several buckets apply their deltas in bucket order (month,
+ * status, method), the same order the rebuild locks them in, so concurrent
+ * writers and the rebuild wait for each other instead of deadlocking.
+ * Missing buckets are inserted in the writer's own transaction; the bucket
+ * key treats a null method as one value, so two writers creating the same
+ * bucket end up adding to a single row.
+ */
+@Slf4j
+@Service
+public class PaymentRollupService {
+
+    // Stored enums compare by name, as in findByMonthStartForUpdate
+    private static final String BUCKET_KEY = "uk_payment_rollup_bucket_key";
+
+    private static final String INSERT_EMPTY_BUCKET_SQL = "INSERT INTO payment_rollup "
+            + "(month_start, status, method_type, payment_count, total_amount, updated_at) "
+            + "VALUES (?, ?, ?, 0, 0, ?) ON CONFLICT DO NOTHING";
+
+    // Rows the null-distinct key let through: one per month and status is kept
+    private static final String DELETE_DUPLICATE_NULL_METHOD_SQL = "DELETE FROM payment_rollup "
+            + "WHERE method_type IS NULL AND id NOT IN (SELECT MIN(id) FROM payment_rollup "
+            + "WHERE method_type IS NULL GROUP BY month_start, status)";
+
+    private static final Comparator<BucketKey> BUCKET_ORDER = Comparator
+            .comparing(BucketKey::monthStart)
+            .thenComparing(key -> key.status() != null ? key.status().name() : "")
+            .thenComparing(key -> key.method() != null ? key.method().name() : "");
+
+    @Autowired
+    private PaymentRollupRepository paymentRollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    private boolean duplicatesRemoved;
+
+    /**
+     * Replaces the entity's unique key, under which every null-method bucket
+     * is distinct, with one that treats NULLs as equal (Postgres 15+).
+     * Runs once per database, before the server takes requests; duplicates
+     * left by the old key are removed first and rebuilt on ready.
+     */
+    @PostConstruct
+    public void ensureBucketKey() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.table_constraints "
+                + "WHERE UPPER(constraint_name) = UPPER(?)", Integer.class, BUCKET_KEY);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            duplicatesRemoved = jdbcTemplate.update(DELETE_DUPLICATE_NULL_METHOD_SQL) > 0;
+            jdbcTemplate.execute("ALTER TABLE payment_rollup ADD CONSTRAINT " + BUCKET_KEY
+                    + " UNIQUE NULLS NOT DISTINCT (month_start, status, method_type)");
+            jdbcTemplate.execute("ALTER TABLE payment_rollup DROP CONSTRAINT IF EXISTS uk_payment_rollup_bucket");
+        });
+        log.info("Payment rollup bucket key created: duplicatesRemoved={}", duplicatesRemoved);
+    }
+
+    /**
+     * A payment was persisted.
+     */
+    @Transactional
+    public void onPaymentCreated(Payment payment) {
+        if (payment.getCreatedAt() == null) {
+            return;
+        }
+        addToBucket(monthOf(payment.getCreatedAt()), payment.getStatus(), payment.getMethodType(), 1,
+                amountOf(payment));
+    }
+
+    /**
+     * A single payment moved from {@code from} to its current status
+     * (approval or rejection).
+     */
+    @Transactional
+    public void onStatusChanged(Payment payment, PaymentStatus from) {
+        PaymentStatus to = collectionStatus(payment.getStatus(), from);
+        if (payment.getCreatedAt() == null || from == to) {
+            return;
+        }
+        LocalDate month = monthOf(payment.getCreatedAt());
+        applyInOrder(List.of(
+                new Delta(new BucketKey(month, from, payment.getMethodType()), -1, -amountOf(payment)),
+                new Delta(new BucketKey(month, to, payment.getMethodType()), 1, amountOf(payment))));
+    }
+
+    /**
+     * Payments bulk-moved from {@code from} to {@code to} (monthly
+     * expiration). Only the ones now in {@code to} are counted.
+     */
+    @Transactional
+    public void onBulkStatusChanged(Collection<Long> paymentIds, PaymentStatus from, PaymentStatus to) {
+        if (paymentIds.isEmpty() || collectionStatus(to, from) == from) {
+            return;
+        }
+        List<Delta> deltas = new ArrayList<>();
+        for (PaymentRollupRowDTO row : paymentRollupRepository.aggregateByPaymentIds(paymentIds, to)) {
+            LocalDate month = LocalDate.of(row.getYear(), row.getMonth(), 1);
+            double amount = row.getTotalAmount() != null ? row.getTotalAmount() : 0.0;
+            deltas.add(new Delta(new BucketKey(month, from, row.getMethodType()), -row.getPaymentCount(), -amount));
+            deltas.add(new Delta(new BucketKey(month, to, row.getMethodType()), row.getPaymentCount(), amount));
+        }
+        applyInOrder(deltas);
+    }
+
+    /**
+     * Dashboard figures of one month plus the all-time pending backlog, read
+     * from at most a few rows per status and method.
+     */
+    @Transactional(readOnly = true)
+    public PaymentDashboardDTO getDashboard(Integer year, Integer month) {
+        YearMonth period;
+        try {
+            period = year != null && month != null ? YearMonth.of(year, month) : YearMonth.now(clock);
+        } catch (RuntimeException e) {
+            throw new BusinessRuleException("Mes inválido.", "/api/payments/dashboard");
+        }
+
+        Map<PaymentStatus, Long> counts = new EnumMap<>(PaymentStatus.class);
+        Map<PaymentStatus, Double> amounts = new EnumMap<>(PaymentStatus.class);
+        Map<MethodType, PaymentDashboardDTO.MethodTotalsDTO> byMethod = new HashMap<>();
+        for (PaymentRollup bucket : paymentRollupRepository.findByMonthStart(period.atDay(1))) {
+            counts.merge(bucket.getStatus(), bucket.getPaymentCount(), Long::sum);
+            amounts.merge(bucket.getStatus(), bucket.getTotalAmount(), Double::sum);
+            if (bucket.getStatus() == PaymentStatus.PAID && bucket.getMethodType() != null
+                    && bucket.getPaymentCount() > 0) {
+                PaymentDashboardDTO.MethodTotalsDTO totals = byMethod.computeIfAbsent(bucket.getMethodType(),
+                        method -> new PaymentDashboardDTO.MethodTotalsDTO(method, 0L, 0.0));
+                totals.setCount(totals.getCount() + bucket.getPaymentCount());
+                totals.setAmount(totals.getAmount() + bucket.getTotalAmount());
+            }
+        }
+
+        long collected = counts.getOrDefault(PaymentStatus.PAID, 0L);
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        long backlogCount = 0;
+        double backlogAmount = 0;
+        for (PaymentRollup bucket : paymentRollupRepository.findByStatus(PaymentStatus.PENDING)) {
+            backlogCount += bucket.getPaymentCount();
+            backlogAmount += bucket.getTotalAmount();
+        }
+
+        return PaymentDashboardDTO.builder()
+                .year(period.getYear())
+                .month(period.getMonthValue())
+                .collectedAmount(amounts.getOrDefault(PaymentStatus.PAID, 0.0))
+                .collectedCount(collected)
+                .pendingAmount(amounts.getOrDefault(PaymentStatus.PENDING, 0.0))
+                .pendingCount(counts.getOrDefault(PaymentStatus.PENDING, 0L))
+                .rejectedCount(counts.getOrDefault(PaymentStatus.REJECTED, 0L))
+                .expiredUnpaidCount(counts.getOrDefault(PaymentStatus.EXPIRED, 0L))
+                .collectionRate(total > 0 ? Math.round(1000.0 * collected / total) / 10.0 : null)
+                .collectedByMethod(byMethod.values().stream()
+                        .sorted((a, b) -> a.getMethod().compareTo(b.getMethod()))
+                        .toList())
+                .backlogCount(backlogCount)
+                .backlogAmount(backlogAmount)
+                .build();
+    }
+
+    /**
+     * Fills the table on first start after it was introduced, and corrects
+     * it after ensureBucketKey merged duplicate buckets.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (duplicatesRemoved || paymentRollupRepository.count() == 0) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * CRON JOB: Nightly reconcile (04:00 AM), also run on demand to backfill
+     * history. Recomputes the buckets month by month, one short transaction
+     * each, correcting them in place: a month's buckets are locked before its
+     * payments are aggregated, so a concurrent payment write either commits
+     * before the aggregate reads it or applies its delta on top of the
+     * rebuilt value afterwards. Buckets left without payments are set to
+     * zero.
+     *
+     * @return number of buckets written.
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public int rebuildAll() {
+        LocalDateTime firstPayment = paymentRollupRepository.findFirstPaymentCreatedAt();
+        LocalDate firstBucket = paymentRollupRepository.findFirstMonthStart();
+        if (firstPayment == null && firstBucket == null) {
+            return 0;
+        }
+        YearMonth first = Stream.of(firstPayment != null ? YearMonth.from(firstPayment) : null,
+                firstBucket != null ? YearMonth.from(firstBucket) : null)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        LocalDateTime lastPayment = paymentRollupRepository.findLastPaymentCreatedAt();
+        YearMonth last = YearMonth.now(clock);
+        if (lastPayment != null && YearMonth.from(lastPayment).isAfter(last)) {
+            last = YearMonth.from(lastPayment);
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int written = 0;
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            YearMonth current = month;
+            written += Objects.requireNonNullElse(transaction.execute(status -> rebuildMonth(current)), 0);
+        }
+        log.info("Payment rollup rebuilt: months={}, buckets={}", first.until(last, ChronoUnit.MONTHS) + 1,
+                written);
+        return written;
+    }
+
+    private int rebuildMonth(YearMonth month) {
+        LocalDate monthStart = month.atDay(1);
+        List<PaymentRollup> locked = paymentRollupRepository.findByMonthStartForUpdate(monthStart);
+        Map<BucketKey, double[]> buckets = aggregateMonth(month);
+        Set<BucketKey> existing = locked.stream().map(this::keyOf).collect(Collectors.toSet());
+        List<BucketKey> missing = buckets.keySet().stream().filter(key -> !existing.contains(key)).toList();
+        if (!missing.isEmpty()) {
+            // Writers may add to a new bucket before it's locked here, so aggregate again once it is
+            missing.forEach(key -> createBucket(key.monthStart(), key.status(), key.method()));
+            locked = paymentRollupRepository.findByMonthStartForUpdate(monthStart);
+            buckets = aggregateMonth(month);
+        }
+
+        for (PaymentRollup bucket : locked) {
+            double[] totals = buckets.getOrDefault(keyOf(bucket), new double[2]);
+            bucket.setPaymentCount((long) totals[0]);
+            bucket.setTotalAmount(totals[1]);
+        }
+        paymentRollupRepository.saveAll(locked);
+        return locked.size();
+    }
+
+    private Map<BucketKey, double[]> aggregateMonth(YearMonth month) {
+        Map<BucketKey, double[]> buckets = new HashMap<>();
+        List<PaymentRollupRowDTO> rows = paymentRollupRepository.aggregateCreatedBetween(
+                month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        for (PaymentRollupRowDTO row : rows) {
+            PaymentStatus status = Boolean.TRUE.equals(row.getVerified()) && row.getStatus() == PaymentStatus.EXPIRED
+                    ? PaymentStatus.PAID
+                    : row.getStatus();
+            double[] totals = buckets.computeIfAbsent(new BucketKey(month.atDay(1), status, row.getMethodType()),
+                    key -> new double[2]);
+            totals[0] += row.getPaymentCount();
+            totals[1] += row.getTotalAmount() != null ? row.getTotalAmount() : 0.0;
+        }
+        return buckets;
+    }
+
+    /**
+     * Where a status change leaves the payment in the rollup: PAID stays
+     * PAID when it expires.
+     */
+    private PaymentStatus collectionStatus(PaymentStatus to, PaymentStatus from) {
+        return from == PaymentStatus.PAID && to == PaymentStatus.EXPIRED ? PaymentStatus.PAID : to;
+    }
+
+    private void applyInOrder(List<Delta> deltas) {
+        deltas.stream()
+                .sorted(Comparator.comparing(Delta::key, BUCKET_ORDER))
+                .forEach(delta -> addToBucket(delta.key().monthStart(), delta.key().status(), delta.key().method(),
+                        delta.count(), delta.amount()));
+    }
+
+    private void addToBucket(LocalDate month, PaymentStatus status, MethodType method, long count, double amount) {
+        if (status == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (paymentRollupRepository.addToBucket(month, status, method, count, amount, now) > 0) {
+            return;
+        }
+        createBucket(month, status, method);
+        paymentRollupRepository.addToBucket(month, status, method, count, amount, now);
+    }
+
+    /**
+     * Inserts an empty bucket in the caller's transaction. A concurrent writer
+     * inserting the same one first makes this wait for its commit and skip
+     * (ON CONFLICT DO NOTHING); both then add with the UPDATE, and no second
+     * connection is needed.
+     */
+    private void createBucket(LocalDate month, PaymentStatus status, MethodType method) {
+        jdbcTemplate.update(INSERT_EMPTY_BUCKET_SQL, Date.valueOf(month), status.name(),
+                method != null ? method.name() : null, Timestamp.valueOf(LocalDateTime.now(clock)));
+    }
+
+    private BucketKey keyOf(PaymentRollup bucket) {
+        return new BucketKey(bucket.getMonthStart(), bucket.getStatus(), bucket.getMethodType());
+    }
+
+    private LocalDate monthOf(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().withDayOfMonth(1);
+    }
+
+    private double amountOf(Payment payment) {
+        return Objects.requireNonNullElse(payment.getAmount(), 0.0);
+    }
+
+    private record BucketKey(LocalDate monthStart, PaymentStatus status, MethodType method) {
+    }
+
+    private record Delta(BucketKey key, long count, double amount) {
+    }
+}
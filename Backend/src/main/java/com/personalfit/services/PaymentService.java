@@ -2,12 +2,15 @@ package com.personalfit.services;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
@@ -19,6 +22,7 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -29,6 +33,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.personalfit.dto.Payment.InactiveClientsPaymentRequestDTO;
 import com.personalfit.dto.Payment.ManualPaymentRequestDTO;
+import com.personalfit.dto.Payment.PaymentFileContentDTO;
 import com.personalfit.dto.Payment.PaymentRequestDTO;
 import com.personalfit.dto.Payment.PaymentStatusUpdateDTO;
 import com.personalfit.dto.Payment.PaymentTypeDTO;
@@ -44,6 +49,7 @@ import com.personalfit.models.PaymentFile;
 import com.personalfit.models.User;
 import com.personalfit.repository.PaymentFileRepository;
 import com.personalfit.repository.PaymentRepository;
+import com.personalfit.utils.TransactionUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -95,6 +101,21 @@ public class PaymentService {
     @Autowired
     private SettingsService settingsService;
 
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private ReceiptCompressionService receiptCompressionService;
+
+    @Autowired
+    private MembershipPeriodService membershipPeriodService;
+
+    @Autowired
+    private EnrollmentEligibilityService enrollmentEligibilityService;
+
+    @Autowired
+    private PaymentRollupService paymentRollupService;
+
     @Autowired
     private Clock clock;
 
@@ -132,9 +153,8 @@ public class PaymentService {
         LocalDateTime createdAt = LocalDateTime.now(clock);
         if (actor.getRole() == UserRole.ADMIN) {
             LocalDateTime targetExpiration = calculateNextExpirationDate(createdAt);
-            Set<Long> usersWithActivePaidMembership = new HashSet<>(
-                    paymentRepository.findUserIdsWithPaymentStatusExpiringAtOrAfter(
-                            users, PaymentStatus.PAID, targetExpiration));
+            Set<Long> usersWithActivePaidMembership = membershipPeriodService.findUserIdsPaidThroughAtOrAfter(
+                    users.stream().map(User::getId).toList(), targetExpiration);
             List<String> alreadyPaid = users.stream()
                     .filter(user -> usersWithActivePaidMembership.contains(user.getId()))
                     .map(User::getFullName)
@@ -184,6 +204,9 @@ public class PaymentService {
         payment.setUsers(paymentUsers);
 
         Payment savedPayment = paymentRepository.save(payment);
+        paymentRollupService.onPaymentCreated(savedPayment);
+        refreshMembershipPeriods(paymentUsers);
+        evictClientStats(paymentUsers);
 
         log.info("Payment created: id={}, users={}, amount={}, createdByUserId={}",
                 savedPayment.getId(), users.size(), savedPayment.getAmount(),
@@ -330,6 +353,9 @@ public class PaymentService {
         payment.setUsers(paymentUsers);
 
         Payment savedPayment = paymentRepository.save(payment);
+        paymentRollupService.onPaymentCreated(savedPayment);
+        refreshMembershipPeriods(paymentUsers);
+        evictClientStats(paymentUsers);
 
         log.info("Inactive-clients payment created: id={}, clients={}, amount={}, createdByUserId={}",
                 savedPayment.getId(), users.size(), savedPayment.getAmount(), admin.getId());
@@ -489,6 +515,9 @@ public class PaymentService {
         }
 
         paymentRepository.save(payment);
+        paymentRollupService.onStatusChanged(payment, PaymentStatus.PENDING);
+        refreshMembershipPeriods(payment.getUsers());
+        evictClientStats(payment.getUsers());
         if (newStatus == PaymentStatus.REJECTED) {
             log.info("Payment rejected: id={}, hasReason={}",
                     paymentId, statusUpdate.getRejectionReason() != null);
@@ -503,18 +532,27 @@ public class PaymentService {
 
     /**
      * File System Retrieval.
-     * Reads bytes from the disk storage based on the file ID.
+     * Opens the stored receipt as a streamable resource; nothing is read into
+     * memory here. The ETag changes whenever the file is replaced on disk.
      */
-    public byte[] getFileContent(PaymentFile paymentFile) {
+    public PaymentFileContentDTO getFileResource(PaymentFile paymentFile) {
+        String path = "/api/payments/files/" + paymentFile.getId();
+        Path filePath = Paths.get(paymentFile.getFilePath());
         try {
-            Path filePath = Paths.get(paymentFile.getFilePath());
-            if (!Files.exists(filePath)) {
-                throw new FileException("File not found on disk", "/api/payments/files/" + paymentFile.getId());
-            }
-            return Files.readAllBytes(filePath);
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            String etag = "\"" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-"
+                    + Long.toHexString(attributes.size()) + "\"";
+            return PaymentFileContentDTO.builder()
+                    .resource(new FileSystemResource(filePath))
+                    .fileName(paymentFile.getFileName())
+                    .contentType(paymentFile.getContentType())
+                    .etag(etag)
+                    .build();
+        } catch (NoSuchFileException e) {
+            throw new FileException("File not found on disk", path);
         } catch (IOException e) {
             log.error("IO Error reading file: {}", e.getMessage());
-            throw new FileException("Error reading file content", "/api/payments/files/" + paymentFile.getId());
+            throw new FileException("Error reading file content", path);
         }
     }
 
@@ -657,15 +695,22 @@ public class PaymentService {
             Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
             registerRollbackCleanup(filePath);
 
+            // Stored as uploaded; image receipts are re-encoded after commit
             PaymentFile paymentFile = PaymentFile.builder()
                     .fileName(originalFilename)
                     .filePath(filePath.toString())
                     .contentType(file.getContentType())
+                    .originalSize(file.getSize())
                     .compressedSize(file.getSize())
-                    .isCompressed(true)
+                    .compressionRatio(0)
+                    .isCompressed(false)
                     .build();
 
-            return paymentFileRepository.save(paymentFile);
+            PaymentFile savedFile = paymentFileRepository.save(paymentFile);
+            if (savedFile.getContentType() != null && savedFile.getContentType().startsWith("image/")) {
+                scheduleCompression(savedFile.getId());
+            }
+            return savedFile;
 
         } catch (IOException e) {
             log.error("Storage error: {}", e.getMessage());
@@ -673,6 +718,11 @@ public class PaymentService {
         }
     }
 
+    private void scheduleCompression(Long paymentFileId) {
+        // The async worker must see the committed row, and nothing if it rolls back
+        TransactionUtils.runAfterCommit(() -> receiptCompressionService.compressAsync(paymentFileId));
+    }
+
     private void registerRollbackCleanup(Path filePath) {
         if (!TransactionSynchronizationManager.isSynchronizationActive()) {
             return;
@@ -717,6 +767,18 @@ public class PaymentService {
         }
     }
 
+    private void refreshMembershipPeriods(Collection<User> users) {
+        if (users != null && !users.isEmpty()) {
+            membershipPeriodService.refresh(users.stream().map(User::getId).toList());
+        }
+    }
+
+    private void evictClientStats(Collection<User> users) {
+        if (users != null && !users.isEmpty()) {
+            clientStatsService.evict(users.stream().map(User::getId).toList());
+        }
+    }
+
     private Payment getPaymentById(Long paymentId) {
         return paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new EntityNotFoundException(
@@ -798,146 +860,41 @@ public class PaymentService {
                 .build();
     }
 
-    /**
-     * CRON JOB: Monthly Expiration Check.
-     * Schedule: day 10 of every month at 00:00.
-     * 1. Expires PENDING payments whose expiration instant has arrived, without
-     * changing users or verification data.
-     * 2. Expires PAID payments due on or before the 10th.
-     * 3. Deactivates users only for expired PAID payments and only when they no
-     * longer have another active PAID payment.
-     */
-    @Scheduled(cron = "0 0 0 10 * *")
-    @Transactional
-    public void checkPaidPayments() {
-        log.info("Starting monthly payment expiration process (day 10 at 00:00)...");
-
-        try {
-            LocalDateTime now = LocalDateTime.now(clock);
-            LocalDateTime expirationCutoff = now.toLocalDate().plusDays(1).atStartOfDay();
-
-            List<Payment> expiredPendingPayments = paymentRepository.findPendingPaymentsExpiringAtOrBefore(now);
-            List<Payment> expiredPaidPayments = paymentRepository.findPaidPaymentsExpiringBefore(expirationCutoff);
-
-            if (expiredPendingPayments.isEmpty() && expiredPaidPayments.isEmpty()) {
-                log.info("No payments to expire on this cycle");
-                return;
-            }
-
-            List<Payment> expiredPayments = new ArrayList<>(
-                    expiredPendingPayments.size() + expiredPaidPayments.size());
-            Set<User> impactedUsers = new HashSet<>();
-
-            for (Payment payment : expiredPendingPayments) {
-                payment.setStatus(PaymentStatus.EXPIRED);
-                payment.setUpdatedAt(now);
-                expiredPayments.add(payment);
-            }
-
-            for (Payment payment : expiredPaidPayments) {
-                payment.setStatus(PaymentStatus.EXPIRED);
-                payment.setUpdatedAt(now);
-                expiredPayments.add(payment);
-
-                if (payment.getUsers() != null && !payment.getUsers().isEmpty()) {
-                    impactedUsers.addAll(payment.getUsers());
-                }
-            }
-
-            paymentRepository.saveAll(expiredPayments);
-
-            List<User> usersWithExpiredMembership = new ArrayList<>();
-
-            for (User user : impactedUsers) {
-                if (userService.isProtectedClient(user)) {
-                    log.debug("Skipping protected client {} in monthly payment expiration job", user.getId());
-                    continue;
-                }
-
-                if (!hasAnotherActivePaidMembership(user, now) && user.getStatus() != UserStatus.INACTIVE) {
-                    userService.updateUserStatus(user, UserStatus.INACTIVE);
-                    usersWithExpiredMembership.add(user);
-                }
-            }
-
-            // Notify Users
-            if (!usersWithExpiredMembership.isEmpty()) {
-                try {
-                    notificationService.createPaymentExpiredNotification(usersWithExpiredMembership, new ArrayList<>());
-                    log.info("Payment expiration notifications sent to {} users", usersWithExpiredMembership.size());
-                } catch (Exception notifEx) {
-                    log.error("Error sending payment expiration notifications: {}", notifEx.getMessage());
-                }
-            }
-
-            log.info("Monthly expiration job complete: expiredPending={}, expiredPaid={}, deactivated={}",
-                    expiredPendingPayments.size(), expiredPaidPayments.size(), usersWithExpiredMembership.size());
-
-        } catch (Exception e) {
-            log.error("Error during monthly expiration job", e);
-        }
-    }
-
-    private boolean hasAnotherActivePaidMembership(User user, LocalDateTime now) {
-        List<Payment> paidPayments = paymentRepository.findByUserAndStatus(user, PaymentStatus.PAID);
-
-        return paidPayments.stream()
-                .map(Payment::getExpiresAt)
-                .anyMatch(expiresAt -> expiresAt != null && expiresAt.isAfter(now));
-    }
-
-    /**
-     * True if the user already loaded the fee covering the period after the
-     * given expiring payment: another PAID payment, or a PENDING one awaiting
-     * admin verification, that expires later than the current one.
-     */
-    private boolean hasUpcomingFeeAlreadyLoaded(User user, Payment expiringPayment) {
-        List<Payment> candidates = new ArrayList<>();
-        candidates.addAll(paymentRepository.findByUserAndStatus(user, PaymentStatus.PAID));
-        candidates.addAll(paymentRepository.findByUserAndStatus(user, PaymentStatus.PENDING));
-
-        return candidates.stream()
-                .filter(p -> !p.getId().equals(expiringPayment.getId()))
-                .map(Payment::getExpiresAt)
-                .anyMatch(expiresAt -> expiresAt != null && expiresAt.isAfter(expiringPayment.getExpiresAt()));
-    }
-
     /**
      * CRON JOB: Daily Reminders (01:00 AM).
      * Notify users 3 days BEFORE expected expiration.
+     *
+     * Two queries regardless of history size: the PAID payments expiring on
+     * the target day (with users), and the users among them who already
+     * loaded the fee covering the next period (a later PAID payment, or a
+     * PENDING one awaiting admin verification) and must not be reminded.
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void sendPaymentReminders() {
         try {
             log.info("Starting payment reminder job...");
             LocalDateTime now = LocalDateTime.now(clock);
-            LocalDateTime threeDaysFromNow = now.plusDays(3);
 
-            // Scope: Payments expiring exactly 3 days from now
-            LocalDateTime startOfTargetDay = threeDaysFromNow.toLocalDate().atStartOfDay();
+            // Scope: Payments expiring on the day 3 days from now
+            LocalDateTime startOfTargetDay = now.plusDays(3).toLocalDate().atStartOfDay();
             LocalDateTime endOfTargetDay = startOfTargetDay.plusDays(1);
 
-            // TODO: Optimize with repository query instead of filtering ALL payments in
-            // memory
-            List<Payment> upcomingPayments = paymentRepository.findAll()
-                    .stream()
-                    .filter(payment -> payment.getStatus() == PaymentStatus.PAID)
-                    .filter(payment -> payment.getExpiresAt() != null)
-                    .filter(payment -> payment.getExpiresAt().isAfter(startOfTargetDay)
-                            && payment.getExpiresAt().isBefore(endOfTargetDay))
-                    .collect(Collectors.toList());
+            List<Payment> upcomingPayments = paymentRepository.findByStatusExpiringBetweenWithUsers(
+                    PaymentStatus.PAID, startOfTargetDay, endOfTargetDay);
 
             if (upcomingPayments.isEmpty()) {
                 log.info("No payments due in the next 3 days");
                 return;
             }
 
+            Set<Long> alreadyLoaded = paymentRepository.findUserIdsWithLaterPayment(
+                    upcomingPayments.stream().map(Payment::getId).toList(),
+                    List.of(PaymentStatus.PAID, PaymentStatus.PENDING));
+
             for (Payment payment : upcomingPayments) {
                 int remindedUsers = 0;
                 for (User user : payment.getUsers()) {
-                    // Skip clients that already loaded the fee covering the next
-                    // period: they must stop receiving the due-soon reminder.
-                    if (hasUpcomingFeeAlreadyLoaded(user, payment)) {
+                    if (alreadyLoaded.contains(user.getId())) {
                         log.info("Skipping payment reminder: userId={} already loaded next fee", user.getId());
                         continue;
                     }
@@ -966,41 +923,14 @@ public class PaymentService {
      * 2. INACTIVE users -> Allowed ONLY if they have a 'grace period' pending
      * payment.
      * 
+     * Answered from the cached eligibility snapshot (EnrollmentEligibilityService).
+     * 
      * @param userId User to check.
      * @return true if enrollment is permitted.
      */
     public Boolean canUserEnrollBasedOnPayment(Long userId) {
         try {
-            User user = userService.getUserById(userId);
-
-            // 1. Happy Path: Active Membership
-            if (user.getStatus() == UserStatus.ACTIVE) {
-                return true;
-            }
-
-            // 2. Grace Period Logic
-            if (user.getStatus() == UserStatus.INACTIVE) {
-                // Find most recent pending payment
-                List<Payment> pendingPayments = paymentRepository.findByUserAndStatus(user, PaymentStatus.PENDING);
-
-                if (!pendingPayments.isEmpty()) {
-                    Payment lastPayment = pendingPayments.stream()
-                            .max((p1, p2) -> p1.getCreatedAt().compareTo(p2.getCreatedAt()))
-                            .orElse(null);
-
-                    if (lastPayment != null) {
-                        long daysDifference = java.time.temporal.ChronoUnit.DAYS.between(
-                                lastPayment.getCreatedAt(), LocalDateTime.now(clock));
-
-                        Integer gracePeriodDays = settingsService.getPaymentGracePeriodDays();
-
-                        return daysDifference <= gracePeriodDays;
-                    }
-                }
-            }
-
-            return false;
-
+            return enrollmentEligibilityService.canEnroll(userId);
         } catch (Exception e) {
             log.warn("Enrollment eligibility check failed: userId={}, cause={}", userId, e.getMessage());
             return false;
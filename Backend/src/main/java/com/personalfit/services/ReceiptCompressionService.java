@@ -0,0 +1,134 @@
+package com.personalfit.services;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import com.personalfit.models.PaymentFile;
+import com.personalfit.repository.PaymentFileRepository;
+import com.personalfit.utils.ImageUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Receipt compression
+ *
+ * Transfer receipts are mostly phone photos of several MB. After the payment
+ * commits, image receipts are re-encoded as JPEG bounded to a maximum side and
+ * quality, the stored file is swapped for the smaller one and the PaymentFile
+ * size metadata is filled in. PDFs and anything ImageIO can't decode are kept
+ * as uploaded.
+ */
+@Slf4j
+@Service
+public class ReceiptCompressionService {
+
+    @Autowired
+    private PaymentFileRepository paymentFileRepository;
+
+    @Value("${app.receipts.max-dimension:2000}")
+    private int maxDimension;
+
+    @Value("${app.receipts.jpeg-quality:0.75}")
+    private float jpegQuality;
+
+    /**
+     * Compresses a committed receipt on the receiptCompressionExecutor (two
+     * threads, see AsyncConfig). Must be called through the Spring proxy
+     * (from another bean) for @Async to apply.
+     */
+    @Async("receiptCompressionExecutor")
+    public void compressAsync(Long paymentFileId) {
+        try {
+            compress(paymentFileId);
+        } catch (RuntimeException e) {
+            log.error("Receipt compression failed: paymentFileId={}", paymentFileId, e);
+        }
+    }
+
+    void compress(Long paymentFileId) {
+        PaymentFile paymentFile = paymentFileRepository.findById(paymentFileId).orElse(null);
+        if (paymentFile == null || Boolean.TRUE.equals(paymentFile.getIsCompressed())
+                || paymentFile.getContentType() == null || !paymentFile.getContentType().startsWith("image/")) {
+            return;
+        }
+
+        Path source = Paths.get(paymentFile.getFilePath());
+        Path target = source.resolveSibling(baseName(source.getFileName().toString()) + ".jpg");
+        if (target.equals(source)) {
+            target = source.resolveSibling(baseName(source.getFileName().toString()) + "_c.jpg");
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try {
+            long originalSize = Files.size(source);
+            BufferedImage image = readBounded(source);
+            if (image == null) {
+                log.info("Receipt kept as uploaded (not decodable): paymentFileId={}", paymentFileId);
+                return;
+            }
+
+            ImageUtils.writeJpeg(image, temp, jpegQuality);
+            long compressedSize = Files.size(temp);
+            if (compressedSize >= originalSize) {
+                Files.delete(temp);
+                log.info("Receipt kept as uploaded (already small): paymentFileId={}, bytes={}",
+                        paymentFileId, originalSize);
+                return;
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            paymentFile.setFilePath(target.toString());
+            if (paymentFile.getFileName() != null) {
+                paymentFile.setFileName(baseName(paymentFile.getFileName()) + ".jpg");
+            }
+            paymentFile.setContentType("image/jpeg");
+            paymentFile.setOriginalSize(originalSize);
+            paymentFile.setCompressedSize(compressedSize);
+            paymentFile.setCompressionRatio((int) Math.round(100.0 * (originalSize - compressedSize) / originalSize));
+            paymentFile.setIsCompressed(true);
+            try {
+                paymentFileRepository.save(paymentFile);
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+
+            // Downloads in flight keep their open handle to the old file
+            Files.deleteIfExists(source);
+            log.info("Receipt compressed: paymentFileId={}, originalBytes={}, compressedBytes={}",
+                    paymentFileId, originalSize, compressedSize);
+        } catch (IOException e) {
+            log.warn("Could not compress receipt: paymentFileId={}, error={}", paymentFileId, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException cleanupError) {
+                log.warn("Could not remove temporary receipt: {}", temp);
+            }
+        }
+    }
+
+    /**
+     * Decodes the image bounded to twice the configured maximum side, with the
+     * EXIF rotation applied, and scales it down to that side.
+     *
+     * @return null when the image can't be decoded safely.
+     */
+    private BufferedImage readBounded(Path source) throws IOException {
+        BufferedImage image = ImageUtils.readBounded(source, maxDimension);
+        return image != null ? ImageUtils.scaleToFit(image, maxDimension) : null;
+    }
+
+    private String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,362 @@
+package com.personalfit.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.personalfit.dto.Activity.RecurrenceTemplateDTO;
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.exceptions.EntityNotFoundException;
+import com.personalfit.models.Activity;
+import com.personalfit.models.RecurrenceTemplate;
+import com.personalfit.models.User;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.repository.RecurrenceTemplateRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Recurring classes
+ *
+ * A recurring class is stored once as a RecurrenceTemplate (weekday, time,
+ * trainer, slots, optional end date) and materialized as regular Activity
+ * rows a configurable number of weeks ahead, so members can book further than
+ * next week. Occurrences are written with one JDBC batch per template and
+ * days that already have one (same template, any time) are skipped, which
+ * makes materializing idempotent: the daily job only fills the new tail week.
+ * Occurrences deleted or moved to another day by hand leave their day in the
+ * template's skipped dates, so they are not generated again.
+ */
+@Slf4j
+@Service
+public class RecurrenceTemplateService {
+
+    private static final String INSERT_OCCURRENCE_SQL = "INSERT INTO activity "
+            + "(name, slots, date, created_at, repeat_every_week, duration, status, is_recurring, "
+            + "trainer_id, end_time, template_id, reserved_slots) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private RecurrenceTemplateRepository recurrenceTemplateRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ActivityCompletionScheduler activityCompletionScheduler;
+
+    @Autowired
+    private WeeklyScheduleService weeklyScheduleService;
+
+    @Autowired
+    private SlotAvailabilityStreamService slotAvailabilityStreamService;
+
+    @Autowired
+    private NfcCheckInService nfcCheckInService;
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.recurrence.weeks-ahead:4}")
+    private int weeksAhead;
+
+    @Transactional
+    public RecurrenceTemplateDTO createTemplate(RecurrenceTemplateDTO dto) {
+        RecurrenceTemplate template = new RecurrenceTemplate();
+        applyDTO(template, dto, "Api/Activity/createTemplate");
+        template.setActive(true);
+
+        RecurrenceTemplate saved = recurrenceTemplateRepository.save(template);
+        int created = materialize(saved);
+
+        log.info("Recurrence template created: id={}, name={}, dayOfWeek={}, time={}, occurrences={}",
+                saved.getId(), saved.getName(), saved.getDayOfWeek(), saved.getStartTime(), created);
+        return convertToDTO(saved);
+    }
+
+    /**
+     * Applies the edit and regenerates the future occurrences nobody has
+     * booked yet. Booked or waitlisted ones keep their day and time (members
+     * booked that slot) but take the new name, trainer, duration and slots,
+     * never fewer slots than seats already taken; their day gets no other
+     * occurrence.
+     */
+    @Transactional
+    public RecurrenceTemplateDTO updateTemplate(Long id, RecurrenceTemplateDTO dto) {
+        RecurrenceTemplate template = getTemplate(id, "Api/Activity/updateTemplate");
+        applyDTO(template, dto, "Api/Activity/updateTemplate");
+        if (dto.getActive() != null) {
+            template.setActive(dto.getActive());
+        }
+
+        RecurrenceTemplate saved = recurrenceTemplateRepository.save(template);
+        LocalDateTime now = LocalDateTime.now();
+        int removed = activityRepository.deleteUnbookedOccurrencesAfter(id, now);
+        int updated = updateBookedOccurrences(saved, now);
+        weeklyScheduleService.evictWeeksFrom(now);
+        slotAvailabilityStreamService.publishWeeksFrom(now);
+        int created = materialize(saved);
+
+        log.info("Recurrence template updated: id={}, removed={}, updated={}, created={}", id, removed, updated,
+                created);
+        return convertToDTO(saved);
+    }
+
+    private int updateBookedOccurrences(RecurrenceTemplate template, LocalDateTime now) {
+        List<Activity> booked = activityRepository.findOccurrencesAfterForUpdate(template.getId(), now);
+        for (Activity occurrence : booked) {
+            int previousSlots = occurrence.getSlots();
+            occurrence.setName(template.getName());
+            occurrence.setTrainer(template.getTrainer());
+            occurrence.setDuration(template.getDuration());
+            occurrence.setSlots(Math.max(template.getSlots(), occurrence.getReservedSlots()));
+            activityRepository.save(occurrence);
+
+            nfcCheckInService.onActivityChanged(occurrence.getId());
+            // Name and start time show up as the attendees' next class
+            clientStatsService.evict(occurrence.getAttendances().stream()
+                    .map(attendance -> attendance.getUser().getId())
+                    .toList());
+            slotAvailabilityStreamService.publish(occurrence.getId());
+            if (occurrence.getSlots() > previousSlots) {
+                waitlistService.promoteWaitlisted(occurrence.getId());
+            }
+        }
+        booked.stream()
+                .map(occurrence -> occurrence.getDate().plusMinutes(occurrence.getDuration()))
+                .min(LocalDateTime::compareTo)
+                .ifPresent(activityCompletionScheduler::scheduleAt);
+        return booked.size();
+    }
+
+    /**
+     * Stops a recurrence. Future unbooked occurrences are removed; past and
+     * booked ones stay, so the template row is deactivated instead of deleted.
+     */
+    @Transactional
+    public void deactivateTemplate(Long id) {
+        RecurrenceTemplate template = getTemplate(id, "Api/Activity/deactivateTemplate");
+        template.setActive(false);
+        recurrenceTemplateRepository.save(template);
+
+        LocalDateTime now = LocalDateTime.now();
+        int removed = activityRepository.deleteUnbookedOccurrencesAfter(id, now);
+        weeklyScheduleService.evictWeeksFrom(now);
+        slotAvailabilityStreamService.publishWeeksFrom(now);
+        log.info("Recurrence template deactivated: id={}, removed={}", id, removed);
+    }
+
+    /**
+     * An occurrence was deleted, or moved off its day, by hand: its original
+     * day is not materialized again. Runs in the caller's transaction.
+     */
+    public void skipOccurrenceDay(RecurrenceTemplate template, LocalDate day) {
+        if (template.getSkippedDates().add(day)) {
+            recurrenceTemplateRepository.save(template);
+            log.info("Recurrence occurrence skipped: templateId={}, date={}", template.getId(), day);
+        }
+    }
+
+    public List<RecurrenceTemplateDTO> getAllTemplates() {
+        return recurrenceTemplateRepository.findAllByOrderByDayOfWeekAscStartTimeAsc().stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    public RecurrenceTemplateDTO getTemplateById(Long id) {
+        return convertToDTO(getTemplate(id, "Api/Activity/getTemplateById"));
+    }
+
+    /**
+     * Inserts the template's missing occurrences between today (or its start
+     * date) and the horizon (or its end date) in one batch. A day with an
+     * occurrence at any time, or a skipped day, gets none.
+     *
+     * @return number of occurrences created.
+     */
+    @Transactional
+    public int materialize(RecurrenceTemplate template) {
+        if (!Boolean.TRUE.equals(template.getActive())) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate from = template.getStartDate() != null && template.getStartDate().isAfter(now.toLocalDate())
+                ? template.getStartDate()
+                : now.toLocalDate();
+        LocalDate until = now.toLocalDate().plusWeeks(weeksAhead);
+        if (template.getEndDate() != null && template.getEndDate().isBefore(until)) {
+            until = template.getEndDate();
+        }
+
+        LocalDate first = from.with(TemporalAdjusters.nextOrSame(template.getDayOfWeek()));
+        if (first.isAfter(until)) {
+            return 0;
+        }
+
+        Set<LocalDate> taken = new HashSet<>(template.getSkippedDates());
+        activityRepository.findDatesByTemplateIdAndDateBetween(template.getId(), first.atStartOfDay(),
+                until.atTime(LocalTime.MAX)).forEach(date -> taken.add(date.toLocalDate()));
+
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (LocalDate day = first; !day.isAfter(until); day = day.plusWeeks(1)) {
+            LocalDateTime start = day.atTime(template.getStartTime());
+            if (start.isAfter(now) && !taken.contains(day)) {
+                starts.add(start);
+            }
+        }
+        if (starts.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp createdAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_OCCURRENCE_SQL, starts, starts.size(), (ps, start) -> {
+            ps.setString(1, template.getName());
+            ps.setInt(2, template.getSlots());
+            ps.setTimestamp(3, Timestamp.valueOf(start));
+            ps.setTimestamp(4, createdAt);
+            ps.setBoolean(5, true);
+            ps.setInt(6, template.getDuration());
+            ps.setString(7, ActivityStatus.ACTIVE.name());
+            ps.setBoolean(8, true);
+            ps.setLong(9, template.getTrainer().getId());
+            ps.setTimestamp(10, Timestamp.valueOf(start.plusMinutes(template.getDuration())));
+            ps.setLong(11, template.getId());
+        });
+
+        activityCompletionScheduler.scheduleAt(starts.get(0).plusMinutes(template.getDuration()));
+        weeklyScheduleService.evictWeeksOf(starts);
+        slotAvailabilityStreamService.publishWeeksOf(starts);
+        log.debug("Occurrences materialized: templateId={}, count={}", template.getId(), starts.size());
+        return starts.size();
+    }
+
+    /**
+     * Cron Job: Rolls every active template's horizon forward one day.
+     */
+    @Scheduled(cron = "0 15 0 * * *")
+    @Transactional
+    public void materializeAll() {
+        int created = 0;
+        for (RecurrenceTemplate template : recurrenceTemplateRepository.findByActiveTrue()) {
+            created += materialize(template);
+        }
+        if (created > 0) {
+            log.info("Recurring activities materialized: created={}", created);
+        }
+    }
+
+    /**
+     * Converts weekly clone chains created before templates existed
+     * (repeatEveryWeek activities without a template) into templates, once.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void adoptLegacyRecurringActivities() {
+        List<Activity> legacy = activityRepository
+                .findByStatusAndRepeatEveryWeekTrueAndTemplateIsNull(ActivityStatus.ACTIVE);
+        if (legacy.isEmpty()) {
+            return;
+        }
+
+        Map<String, RecurrenceTemplate> templates = new LinkedHashMap<>();
+        for (Activity activity : legacy) {
+            String key = activity.getName() + "|" + activity.getTrainer().getId() + "|"
+                    + activity.getDate().getDayOfWeek() + "|" + activity.getDate().toLocalTime();
+
+            RecurrenceTemplate template = templates.computeIfAbsent(key,
+                    k -> recurrenceTemplateRepository.save(RecurrenceTemplate.builder()
+                            .name(activity.getName())
+                            .dayOfWeek(activity.getDate().getDayOfWeek())
+                            .startTime(activity.getDate().toLocalTime())
+                            .duration(activity.getDuration())
+                            .slots(activity.getSlots())
+                            .trainer(activity.getTrainer())
+                            .startDate(activity.getDate().toLocalDate())
+                            .active(true)
+                            .build()));
+            activity.setTemplate(template);
+        }
+        activityRepository.saveAll(legacy);
+        activityRepository.flush();
+
+        templates.values().forEach(this::materialize);
+        log.info("Legacy recurring activities adopted: activities={}, templates={}",
+                legacy.size(), templates.size());
+    }
+
+    private RecurrenceTemplate getTemplate(Long id, String path) {
+        return recurrenceTemplateRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Recurrence template not found with ID: " + id, path));
+    }
+
+    private void applyDTO(RecurrenceTemplate template, RecurrenceTemplateDTO dto, String path) {
+        if (dto.getName() == null || dto.getDayOfWeek() == null || dto.getTime() == null
+                || dto.getDuration() == null || dto.getMaxParticipants() == null || dto.getTrainerId() == null) {
+            throw new BusinessRuleException("Name, day of week, time, duration, slots and trainer are required", path);
+        }
+        if (dto.getDuration() <= 0 || dto.getMaxParticipants() <= 0) {
+            throw new BusinessRuleException("Duration and slots must be positive", path);
+        }
+
+        LocalDate startDate = dto.getStartDate() != null ? dto.getStartDate()
+                : template.getStartDate() != null ? template.getStartDate() : LocalDate.now();
+        if (dto.getEndDate() != null && dto.getEndDate().isBefore(startDate)) {
+            throw new BusinessRuleException("End date must not be before start date", path);
+        }
+
+        User trainer = userService.getUserById(dto.getTrainerId());
+
+        template.setName(dto.getName());
+        template.setDayOfWeek(dto.getDayOfWeek());
+        template.setStartTime(dto.getTime());
+        template.setDuration(dto.getDuration());
+        template.setSlots(dto.getMaxParticipants());
+        template.setTrainer(trainer);
+        template.setStartDate(startDate);
+        template.setEndDate(dto.getEndDate());
+    }
+
+    private RecurrenceTemplateDTO convertToDTO(RecurrenceTemplate template) {
+        return RecurrenceTemplateDTO.builder()
+                .id(template.getId())
+                .name(template.getName())
+                .trainerId(template.getTrainer().getId())
+                .trainerName(template.getTrainer().getFullName())
+                .dayOfWeek(template.getDayOfWeek())
+                .time(template.getStartTime())
+                .duration(template.getDuration())
+                .maxParticipants(template.getSlots())
+                .startDate(template.getStartDate())
+                .endDate(template.getEndDate())
+                .active(template.getActive())
+                .build();
+    }
+}
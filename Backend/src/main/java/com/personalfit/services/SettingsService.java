@@ -1,6 +1,7 @@
 package com.personalfit.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import com.personalfit.dto.Settings.AllSettingsResponseDTO;
@@ -22,6 +23,10 @@ public class SettingsService {
     @Autowired
     private SettingsRepository settingsRepository;
 
+    @Autowired
+    @Lazy // EnrollmentEligibilityService reads the grace period from this service
+    private EnrollmentEligibilityService enrollmentEligibilityService;
+
     private static final String MONTHLY_FEE_KEY = "monthly_fee";
     private static final Double DEFAULT_MONTHLY_FEE = 25000.0;
     private static final String REGISTRATION_TIME_KEY = "registration_time_hours";
@@ -191,6 +196,7 @@ public class SettingsService {
         setting.setValue(days.toString());
 
         settingsRepository.save(setting);
+        enrollmentEligibilityService.evictAll();
         log.info("Setting updated: key={}, value={}", PAYMENT_GRACE_PERIOD_KEY, days);
         return days;
     }
@@ -0,0 +1,301 @@
+package com.personalfit.services;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import com.personalfit.dto.Activity.ScheduleChangeDTO;
+import com.personalfit.dto.Activity.SlotAvailabilityDTO;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.utils.TransactionUtils;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Live slot availability
+ *
+ * Server-Sent Events stream of seat counters for one week of the schedule.
+ * A subscriber gets the week's current counters on connect and then one
+ * "availability" event per change, published once the enrollment commits.
+ * Classes created or deleted produce a "schedule" event for their week
+ * instead, telling the client to reload it.
+ * Emitters are async, so idle connections hold no request thread; sends run
+ * on virtual threads so a slow client never blocks the committing request.
+ *
+ * Nothing is read while nobody is subscribed. Reads of one activity run one
+ * at a time: commits that arrive during a read ask for one more read, so the
+ * last read always follows the last commit and bursts of enrollments share
+ * queries. Counters are read outside the lock; the lock only numbers events
+ * and queues them, and each subscriber sends its queue in order, one event at
+ * a time. A subscriber's snapshot skips activities it already got an update
+ * for, so it never overrides a newer counter. Event ids are a sequence in
+ * queue order.
+ */
+@Slf4j
+@Service
+public class SlotAvailabilityStreamService {
+
+    private static final String EVENT_NAME = "availability";
+    private static final String SCHEDULE_EVENT_NAME = "schedule";
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Value("${app.sse.availability-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    // Week start (Sunday) -> subscribers of that week
+    private final Map<LocalDate, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Orders event ids with the queueing of the events
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    // Activity id -> read in flight; TRUE when a commit asked for another read
+    private final Map<Long, Boolean> reads = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Opens a stream for the week containing {@code date}. The browser's
+     * EventSource reconnects on timeout and gets a fresh snapshot.
+     */
+    public SseEmitter subscribe(LocalDate date) {
+        return subscribe(date, new SseEmitter(emitterTimeoutMs));
+    }
+
+    SseEmitter subscribe(LocalDate date, SseEmitter emitter) {
+        LocalDate weekStart = weekStartOf(date);
+        Subscriber subscriber = new Subscriber(weekStart, emitter);
+        Runnable remove = () -> removeSubscriber(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Registered before the snapshot read, so no commit falls between the two
+        subscribers.computeIfAbsent(weekStart, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        List<SlotAvailabilityDTO> snapshot;
+        try {
+            snapshot = activityRepository.findSlotAvailabilityBetween(
+                    weekStart.atStartOfDay(), weekStart.plusDays(6).atTime(LocalTime.MAX));
+        } catch (RuntimeException e) {
+            removeSubscriber(subscriber);
+            throw e;
+        }
+
+        publishLock.lock();
+        try {
+            snapshot.stream()
+                    .filter(availability -> !subscriber.updated.contains(availability.getActivityId()))
+                    .forEach(availability -> subscriber.enqueue(availabilityEvent(availability)));
+        } finally {
+            publishLock.unlock();
+        }
+
+        log.debug("Availability stream opened: weekStart={}, subscribers={}", weekStart,
+                subscribers.getOrDefault(weekStart, Set.of()).size());
+        return emitter;
+    }
+
+    /**
+     * Pushes the activity's seat counter to the subscribers of its week once
+     * the current transaction commits (immediately when there is none).
+     */
+    public void publish(Long activityId) {
+        TransactionUtils.runAfterCommit(() -> {
+            // A read in flight may still reach a subscriber that joined since
+            if (subscribers.isEmpty() && !reads.containsKey(activityId)) {
+                return;
+            }
+            if (!reads.merge(activityId, Boolean.FALSE, (inFlight, requested) -> Boolean.TRUE)) {
+                sender.execute(() -> readAndPublish(activityId));
+            }
+        });
+    }
+
+    /**
+     * Tells the subscribers of the week containing {@code date} that classes
+     * were added or removed, once the current transaction commits.
+     */
+    public void publishWeekOf(LocalDateTime date) {
+        if (date != null) {
+            publishWeeksOf(List.of(date));
+        }
+    }
+
+    public void publishWeeksOf(Collection<LocalDateTime> dates) {
+        Set<LocalDate> weekStarts = dates.stream()
+                .filter(Objects::nonNull)
+                .map(date -> weekStartOf(date.toLocalDate()))
+                .collect(Collectors.toSet());
+        TransactionUtils.runAfterCommit(() -> enqueueScheduleChange(weekStarts::contains));
+    }
+
+    /**
+     * Same, for every week from the one containing {@code from} onwards
+     * (template edits).
+     */
+    public void publishWeeksFrom(LocalDateTime from) {
+        LocalDate first = weekStartOf(from.toLocalDate());
+        TransactionUtils.runAfterCommit(() -> enqueueScheduleChange(weekStart -> !weekStart.isBefore(first)));
+    }
+
+    /**
+     * Comment event every 25s so proxies keep idle streams open and dead
+     * clients are detected and dropped.
+     */
+    @Scheduled(fixedDelay = 25000)
+    public void heartbeat() {
+        subscribers.values().forEach(week -> week.forEach(subscriber -> subscriber.enqueue(
+                SseEmitter.event().comment("keep-alive").build())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(week -> week.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdown();
+    }
+
+    /**
+     * Reads the activity's counter and queues it for the subscribers of its
+     * week, again while commits keep asking for another read.
+     */
+    private void readAndPublish(Long activityId) {
+        do {
+            try {
+                activityRepository.findSlotAvailability(activityId).ifPresent(this::enqueue);
+            } catch (RuntimeException e) {
+                log.warn("Could not read slot availability: activityId={}, error={}", activityId, e.getMessage());
+            }
+        } while (!reads.remove(activityId, Boolean.FALSE) && reads.replace(activityId, Boolean.TRUE, Boolean.FALSE));
+    }
+
+    private void enqueue(SlotAvailabilityDTO availability) {
+        publishLock.lock();
+        try {
+            Set<Subscriber> week = subscribers.get(weekStartOf(availability.getDate().toLocalDate()));
+            if (week != null) {
+                Set<DataWithMediaType> event = availabilityEvent(availability);
+                week.forEach(subscriber -> {
+                    subscriber.updated.add(availability.getActivityId());
+                    subscriber.enqueue(event);
+                });
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Nothing to read: the event only names the week
+    private void enqueueScheduleChange(Predicate<LocalDate> changed) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        publishLock.lock();
+        try {
+            subscribers.forEach((weekStart, week) -> {
+                if (changed.test(weekStart)) {
+                    Set<DataWithMediaType> event = SseEmitter.event()
+                            .name(SCHEDULE_EVENT_NAME)
+                            .id(String.valueOf(sequence.incrementAndGet()))
+                            .data(new ScheduleChangeDTO(weekStart))
+                            .build();
+                    week.forEach(subscriber -> subscriber.enqueue(event));
+                }
+            });
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Called with publishLock held, so the sequence follows the queue order
+    private Set<DataWithMediaType> availabilityEvent(SlotAvailabilityDTO availability) {
+        return SseEmitter.event()
+                .name(EVENT_NAME)
+                .id(String.valueOf(sequence.incrementAndGet()))
+                .data(availability)
+                .build();
+    }
+
+    private void removeSubscriber(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.weekStart, (key, week) -> {
+            week.remove(subscriber);
+            return week.isEmpty() ? null : week;
+        });
+    }
+
+    private LocalDate weekStartOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+    }
+
+    /**
+     * One stream and its pending events, each already built (a built event
+     * is shared by the week's subscribers). At most one sender drains the
+     * queue at a time, so events leave in the order they were queued.
+     */
+    private final class Subscriber {
+
+        private final LocalDate weekStart;
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Activities with an update queued after subscribing; guarded by publishLock
+        private final Set<Long> updated = new HashSet<>();
+
+        private Subscriber(LocalDate weekStart, SseEmitter emitter) {
+            this.weekStart = weekStart;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(Set<DataWithMediaType> event) {
+            queue.add(event);
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Set<DataWithMediaType> event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        queue.clear();
+                        removeSubscriber(this);
+                    }
+                }
+                draining.set(false);
+                // An event queued after the last poll but before the reset
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.personalfit.services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.personalfit.repository.ActivityRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Seat Reservation
+ *
+ * Keeps the per-activity reserved-seat counter. A seat is claimed with one
+ * conditional UPDATE on the activity row instead of loading the roster and
+ * comparing its size, so the check-then-insert race on the last seat is
+ * gone and enrollment cost does not grow with class size.
+ *
+ * Every method must run inside the caller's transaction: the seat is given
+ * back automatically if the attendance insert that follows rolls back.
+ */
+@Slf4j
+@Service
+public class SlotReservationService {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Claims one seat.
+     *
+     * @return true if a seat was available and is now held by the caller.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryReserve(Long activityId) {
+        return activityRepository.tryReserveSlot(activityId) == 1;
+    }
+
+    /**
+     * Gives back one seat (unenroll, admin removal).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long activityId) {
+        if (activityRepository.releaseSlot(activityId) == 0) {
+            log.warn("Seat release ignored, counter already at zero: activityId={}", activityId);
+        }
+    }
+
+    /**
+     * Startup backfill: recomputes the counters that don't match the
+     * attendance table (activities created before the counter existed,
+     * manual database edits). Usually finds nothing after the first start.
+     * Each activity is locked before it is counted, one short transaction
+     * each, so enrollments committing meanwhile are either counted or wait
+     * and apply their increment on top.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileReservedSlots() {
+        List<Long> stale = activityRepository.findIdsWithStaleReservedSlots();
+        if (stale.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (Long activityId : stale) {
+            transaction.executeWithoutResult(status -> {
+                if (activityRepository.findByIdForUpdate(activityId).isPresent()) {
+                    activityRepository.reconcileReservedSlots(activityId);
+                }
+            });
+        }
+        log.info("Seat counters reconciled: activities={}", stale.size());
+    }
+}
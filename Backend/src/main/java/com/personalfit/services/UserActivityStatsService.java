@@ -0,0 +1,259 @@
+package com.personalfit.services;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.personalfit.dto.User.UserActivityStatsDTO;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.models.UserActivityStats;
+import com.personalfit.repository.UserActivityStatsRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Per-user activity stats
+ *
+ * Maintains user_activity_stats (total enrollments, completed classes, last
+ * completed class, completed this month) with small deltas on every
+ * attendance write, so listings read one row per user instead of walking
+ * attendance history. A user's row is recomputed from the attendance table
+ * when a delta can't be applied exactly (missing row, last completed class
+ * removed). A nightly rebuild corrects any drift. Every hook also evicts the
+ * user's cached home screen stats (ClientStatsService).
+ *
+ * A recompute locks the users' rows before aggregating, like the deltas do,
+ * so it never overwrites a concurrent delta with an older aggregate. Missing
+ * rows are inserted empty first, in the same transaction, so there is always
+ * a row to lock.
+ */
+@Slf4j
+@Service
+public class UserActivityStatsService {
+
+    private static final String INSERT_EMPTY_STATS_SQL = "INSERT INTO user_activity_stats "
+            + "(user_id, total_count, completed_count, month_count, updated_at) VALUES (?, 0, 0, 0, ?) "
+            + "ON CONFLICT DO NOTHING";
+
+    private static final int REBUILD_CHUNK_SIZE = 500;
+
+    static final Set<AttendanceStatus> COMPLETED_STATUSES = Set.of(AttendanceStatus.PRESENT, AttendanceStatus.LATE);
+
+    @Autowired
+    private UserActivityStatsRepository userActivityStatsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private Clock clock;
+
+    /**
+     * A new enrollment (always PENDING).
+     */
+    @Transactional
+    public void onAttendanceCreated(Long userId) {
+        clientStatsService.evict(userId);
+        userActivityStatsRepository.findByUserIdForUpdate(userId).ifPresentOrElse(stats -> {
+            stats.setTotalCount(stats.getTotalCount() + 1);
+            userActivityStatsRepository.save(stats);
+        }, () -> recompute(List.of(userId)));
+    }
+
+    /**
+     * An enrollment was deleted.
+     */
+    @Transactional
+    public void onAttendanceRemoved(Long userId, AttendanceStatus status, LocalDateTime activityDate) {
+        clientStatsService.evict(userId);
+        userActivityStatsRepository.findByUserIdForUpdate(userId).ifPresentOrElse(stats -> {
+            stats.setTotalCount(Math.max(0, stats.getTotalCount() - 1));
+            if (isCompleted(status) && !removeCompleted(stats, activityDate)) {
+                recompute(List.of(userId));
+                return;
+            }
+            userActivityStatsRepository.save(stats);
+        }, () -> recompute(List.of(userId)));
+    }
+
+    /**
+     * An enrollment's status changed. Only moves into or out of
+     * PRESENT/LATE affect the counters.
+     */
+    @Transactional
+    public void onStatusChanged(Long userId, AttendanceStatus from, AttendanceStatus to, LocalDateTime activityDate) {
+        if (isCompleted(from) == isCompleted(to)) {
+            clientStatsService.evict(userId);
+            return;
+        }
+        onCompletedChanged(userId, isCompleted(to), activityDate);
+    }
+
+    /**
+     * An enrollment moved into ({@code completed}) or out of PRESENT/LATE,
+     * for callers that know the direction but not the previous status.
+     */
+    @Transactional
+    public void onCompletedChanged(Long userId, boolean completed, LocalDateTime activityDate) {
+        clientStatsService.evict(userId);
+        userActivityStatsRepository.findByUserIdForUpdate(userId).ifPresentOrElse(stats -> {
+            if (completed) {
+                addCompleted(stats, activityDate);
+            } else if (!removeCompleted(stats, activityDate)) {
+                recompute(List.of(userId));
+                return;
+            }
+            userActivityStatsRepository.save(stats);
+        }, () -> recompute(List.of(userId)));
+    }
+
+    /**
+     * Rebuilds the rows of the given users from the attendance table.
+     */
+    @Transactional
+    public void recompute(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        clientStatsService.evict(ids);
+        createMissingRows(ids);
+
+        List<UserActivityStats> rows = userActivityStatsRepository.findByUserIdsForUpdate(ids);
+        LocalDate monthStart = currentMonthStart();
+        Map<Long, UserActivityStatsDTO> aggregates = userActivityStatsRepository
+                .aggregateByUserIds(ids, COMPLETED_STATUSES, monthStart.atStartOfDay(),
+                        monthStart.plusMonths(1).atStartOfDay())
+                .stream()
+                .collect(Collectors.toMap(UserActivityStatsDTO::getUserId, Function.identity()));
+        rows.forEach(stats -> apply(stats, aggregates.get(stats.getUserId()), monthStart));
+        userActivityStatsRepository.saveAll(rows);
+    }
+
+    /**
+     * Fills the table on first start after it was introduced.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (userActivityStatsRepository.count() == 0) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * CRON JOB: Nightly reconcile (03:30 AM).
+     * Recomputes every row, correcting drift from writes that bypass the
+     * deltas (cascade deletes, manual SQL). Users are processed in chunks,
+     * one short transaction each, so attendance writes only wait for the
+     * chunk that holds their user.
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void rebuildAll() {
+        List<Long> userIds = userActivityStatsRepository.findAllTrackedUserIds().stream()
+                .sorted()
+                .toList();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < userIds.size(); from += REBUILD_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + REBUILD_CHUNK_SIZE, userIds.size()));
+            transaction.executeWithoutResult(status -> recompute(chunk));
+        }
+        log.info("User activity stats rebuilt: users={}", userIds.size());
+    }
+
+    public static boolean isCompleted(AttendanceStatus status) {
+        return status != null && COMPLETED_STATUSES.contains(status);
+    }
+
+    private void addCompleted(UserActivityStats stats, LocalDateTime activityDate) {
+        stats.setCompletedCount(stats.getCompletedCount() + 1);
+        if (activityDate != null
+                && (stats.getLastCompletedAt() == null || activityDate.isAfter(stats.getLastCompletedAt()))) {
+            stats.setLastCompletedAt(activityDate);
+        }
+
+        LocalDate monthStart = currentMonthStart();
+        if (activityDate != null && activityDate.toLocalDate().withDayOfMonth(1).equals(monthStart)) {
+            stats.setMonthCount(stats.getMonthCountFor(monthStart) + 1);
+            stats.setMonthStart(monthStart);
+        }
+    }
+
+    /**
+     * @return false when the row can't be corrected with a delta (the last
+     *         completed class was removed) and must be recomputed.
+     */
+    private boolean removeCompleted(UserActivityStats stats, LocalDateTime activityDate) {
+        if (activityDate == null || activityDate.equals(stats.getLastCompletedAt())) {
+            return false;
+        }
+        stats.setCompletedCount(Math.max(0, stats.getCompletedCount() - 1));
+
+        LocalDate monthStart = currentMonthStart();
+        if (activityDate.toLocalDate().withDayOfMonth(1).equals(monthStart)) {
+            stats.setMonthCount(Math.max(0, stats.getMonthCountFor(monthStart) - 1));
+            stats.setMonthStart(monthStart);
+        }
+        return true;
+    }
+
+    private void apply(UserActivityStats stats, UserActivityStatsDTO aggregate, LocalDate monthStart) {
+        stats.setTotalCount(aggregate != null ? aggregate.getTotalCount().intValue() : 0);
+        stats.setCompletedCount(aggregate != null ? aggregate.getCompletedCount().intValue() : 0);
+        stats.setLastCompletedAt(aggregate != null ? aggregate.getLastCompletedAt() : null);
+        stats.setMonthStart(monthStart);
+        stats.setMonthCount(aggregate != null ? aggregate.getMonthCount().intValue() : 0);
+    }
+
+    /**
+     * Inserts empty rows for the users that have none, in the caller's
+     * transaction. A row a concurrent writer inserted first is skipped once
+     * that writer commits (ON CONFLICT DO NOTHING), so this never needs a
+     * second connection while the caller holds its locks.
+     */
+    private void createMissingRows(List<Long> userIds) {
+        Set<Long> existing = new HashSet<>(userActivityStatsRepository.findExistingUserIds(userIds));
+        List<Long> missing = userIds.stream().filter(userId -> !existing.contains(userId)).toList();
+        if (!missing.isEmpty()) {
+            insertEmptyRows(missing);
+        }
+    }
+
+    // Plain JDBC batch: rows have assigned ids, so saveAll would SELECT each one first
+    private void insertEmptyRows(List<Long> userIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+        jdbcTemplate.batchUpdate(INSERT_EMPTY_STATS_SQL, userIds, 500, (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setTimestamp(2, now);
+        });
+    }
+
+    private LocalDate currentMonthStart() {
+        return LocalDate.now(clock).withDayOfMonth(1);
+    }
+}
@@ -1,18 +1,23 @@
 package com.personalfit.services;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.text.Normalizer;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.Month;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
@@ -20,23 +25,33 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.personalfit.dto.User.AvatarFileDTO;
 import com.personalfit.dto.User.ClientStatsDTO;
 import com.personalfit.dto.User.CreateUserDTO;
 import com.personalfit.dto.User.UserActivityDetailsDTO;
 import com.personalfit.dto.User.UserDetailInfoDTO;
+import com.personalfit.dto.User.UserSearchItemDTO;
+import com.personalfit.dto.User.UserSearchPageDTO;
 import com.personalfit.dto.User.UserTypeDTO;
 import com.personalfit.dto.Activity.ActivitySummaryDTO;
 import com.personalfit.enums.AttendanceStatus;
 import com.personalfit.enums.MuscleGroup;
-import com.personalfit.enums.PaymentStatus;
 import com.personalfit.enums.UserRole;
 import com.personalfit.enums.UserStatus;
 import com.personalfit.exceptions.BusinessRuleException;
@@ -46,11 +61,11 @@ import com.personalfit.exceptions.FileException;
 import com.personalfit.models.Activity;
 import com.personalfit.models.Attendance;
 import com.personalfit.models.ActivitySummary;
-import com.personalfit.models.Payment;
 import com.personalfit.models.User;
+import com.personalfit.models.UserActivityStats;
 import com.personalfit.repository.AttendanceRepository;
-import com.personalfit.repository.PaymentRepository;
 import com.personalfit.repository.UserRepository;
+import com.personalfit.utils.ImageUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -73,10 +88,25 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class UserService {
 
-    private static final Set<Integer> PROTECTED_CLIENT_DNIS = Set.of(42870789, 42331259);
+    static final Set<Integer> PROTECTED_CLIENT_DNIS = Set.of(42870789, 42331259);
 
     private static final long MAX_AVATAR_SIZE_BYTES = 5L * 1024L * 1024L;
+    // What ImageIO.write used by default for the variants
+    private static final float AVATAR_JPEG_QUALITY = 0.75f;
+    private static final List<Integer> AVATAR_VARIANT_SIZES = List.of(64, 256);
     private static final long MAX_PENDING_USER_REGISTRATIONS = 99L;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    // Postgres-only indexes behind searchUsers, on the expressions the search queries render
+    private static final List<String> SEARCH_INDEX_DDL = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_app_user_name_trgm ON app_user "
+                    + "USING gin (" + UserRepository.SEARCH_NAME_SQL + " gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_app_user_dni_trgm ON app_user "
+                    + "USING gin ((" + UserRepository.SEARCH_DNI_SQL + ") gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_app_user_sort_name ON app_user "
+                    + "(" + UserRepository.SORT_NAME_SQL + ", id)");
 
     @Value("${spring.datasource.files.path}")
     private String uploadFolder;
@@ -84,9 +114,6 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired
-    private PaymentRepository paymentRepository;
-
     @Autowired
     private AttendanceRepository attendanceRepository;
 
@@ -96,6 +123,18 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private EnrollmentEligibilityService enrollmentEligibilityService;
+
+    @Autowired
+    private NfcCheckInService nfcCheckInService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     /**
      * Registers a new user in the system.
      * 
@@ -168,6 +207,7 @@ public class UserService {
 
         user.setStatus(resolveInitialStatusForApprovedUser(user.getRole()));
         userRepository.save(user);
+        enrollmentEligibilityService.evict(userId);
         log.info("Pending user approved: ID={}, Role={}", userId, user.getRole());
     }
 
@@ -183,6 +223,7 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        nfcCheckInService.onUserChanged(user.getDni());
         log.info("Pending user rejected and deleted: ID={}", userId);
     }
 
@@ -193,6 +234,8 @@ public class UserService {
         User user = getUserById(id);
         user.setDeletedAt(LocalDateTime.now());
         userRepository.save(user);
+        enrollmentEligibilityService.evict(id);
+        nfcCheckInService.onUserChanged(user.getDni());
         log.info("User soft deleted: ID {}", id);
 
         return true;
@@ -222,28 +265,98 @@ public class UserService {
      * - Calculated Age.
      * - Last Activity Date.
      * - Total Activity Count.
+     * Counters come from user_activity_stats in the same query.
      */
     public List<UserTypeDTO> getAllUsers() {
-        List<User> users = userRepository.findAllByDeletedAtIsNull();
+        List<Object[]> rows = userRepository.findListingWithStats(UserRole.ADMIN, UserStatus.PENDING_APPROVAL);
         List<UserTypeDTO> usersDto = new ArrayList<>();
 
-        users.forEach(user -> {
-            UserTypeDTO newUserDto = new UserTypeDTO(user);
-            Integer age = getUserAge(user);
-            newUserDto.setAge(age);
+        rows.forEach(row -> {
+            User user = (User) row[0];
+            UserActivityStats stats = (UserActivityStats) row[1];
+            if (isProtectedClientDni(user.getDni())) {
+                return;
+            }
 
-            newUserDto.setLastActivity(getLastCompletedActivityDate(user));
-            newUserDto.setActivitiesCount(user.getAttendances().size());
+            UserTypeDTO newUserDto = new UserTypeDTO(user);
+            newUserDto.setAge(getUserAge(user));
+            newUserDto.setLastActivity(stats != null && stats.getLastCompletedAt() != null
+                    ? stats.getLastCompletedAt().toLocalDate()
+                    : null);
+            newUserDto.setActivitiesCount(stats != null ? stats.getTotalCount() : 0);
 
             usersDto.add(newUserDto);
         });
 
-        // Exclude Admins from general list
-        return usersDto.stream()
-                .filter(u -> !u.getRole().equals(UserRole.ADMIN))
-                .filter(u -> u.getStatus() != UserStatus.PENDING_APPROVAL)
-                .filter(u -> !isProtectedClientDni(u.getDni()))
-                .collect(Collectors.toList());
+        return usersDto;
+    }
+
+    /**
+     * Admin search box: keyset-paginated match on name (substring) or DNI
+     * (prefix), returning only the fields the list shows. Same visibility
+     * rules as getAllUsers.
+     */
+    public UserSearchPageDTO searchUsers(String term, UserRole role, UserStatus status, String afterName,
+            Long afterId, Integer size) {
+        if ((afterName == null) != (afterId == null)) {
+            throw new BusinessRuleException("afterName and afterId must be sent together", "Api/User/searchUsers");
+        }
+        int pageSize = size == null ? DEFAULT_SEARCH_PAGE_SIZE : Math.clamp(size, 1, MAX_SEARCH_PAGE_SIZE);
+
+        String normalized = term != null ? term.trim().toLowerCase(Locale.ROOT) : "";
+        String namePattern = null;
+        String dniPattern = null;
+        if (!normalized.isEmpty()) {
+            namePattern = "%" + normalized.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+            if (normalized.chars().allMatch(Character::isDigit)) {
+                dniPattern = normalized + "%";
+            }
+        }
+
+        // The first page starts after ("", 0): names are never empty and ids are positive
+        String cursorName = afterName != null ? afterName : "";
+        Long cursorId = afterId != null ? afterId : 0L;
+
+        // One extra row tells whether another page exists
+        Limit limit = Limit.of(pageSize + 1);
+        List<UserSearchItemDTO> rows = namePattern == null
+                ? userRepository.searchPage(role, status, UserRole.ADMIN, UserStatus.PENDING_APPROVAL,
+                        PROTECTED_CLIENT_DNIS, cursorName, cursorId, limit)
+                : userRepository.searchPageByTerm(namePattern, dniPattern, role, status, UserRole.ADMIN,
+                        UserStatus.PENDING_APPROVAL, PROTECTED_CLIENT_DNIS, cursorName, cursorId, limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<UserSearchItemDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        UserSearchItemDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+
+        return UserSearchPageDTO.builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextAfterName(hasMore ? (last.getLastName() + " " + last.getFirstName()).toLowerCase(Locale.ROOT)
+                        : null)
+                .nextAfterId(hasMore ? last.getId() : null)
+                .build();
+    }
+
+    /**
+     * Creates the trigram and sort indexes used by searchUsers. Hibernate's
+     * ddl-auto can't express them, and they only exist on Postgres; a
+     * missing pg_trgm permission only costs search speed, so it is logged.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSearchIndexes() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(database)) {
+            return;
+        }
+        for (String ddl : SEARCH_INDEX_DDL) {
+            try {
+                jdbcTemplate.execute(ddl);
+            } catch (DataAccessException e) {
+                log.warn("Search index not created: statement={}, error={}", ddl, e.getMessage());
+            }
+        }
     }
 
     public boolean isProtectedClient(User user) {
@@ -370,6 +483,8 @@ public class UserService {
 
         user.setStatus(status);
         userRepository.save(user);
+        clientStatsService.evict(user.getId());
+        enrollmentEligibilityService.evict(user.getId());
         log.info("User status updated for ID {}: {}", user.getId(), status);
     }
 
@@ -428,41 +543,31 @@ public class UserService {
     /**
      * CRON JOB: Daily Status Audit (03:00 AM).
      * Deactivates users whose payments have expired.
+     * One query finds them and one bulk UPDATE deactivates them, regardless
+     * of how many members there are.
      */
     @Scheduled(cron = "0 0 3 * * ?")
+    @Transactional
     public void userStatusDailyCheck() {
         log.debug("Running job: daily user status audit");
-        List<User> users = userRepository.findAllByStatusAndDeletedAtIsNull(UserStatus.ACTIVE);
-        List<User> toUpdate = new ArrayList<>();
+        // A membership is still valid when it is paid through a date after today
+        LocalDateTime validFrom = LocalDate.now().plusDays(1).atStartOfDay();
+        List<User> expired = userRepository.findActiveMembersWithExpiredMembership(UserStatus.ACTIVE,
+                Set.of(UserRole.TRAINER, UserRole.ADMIN), PROTECTED_CLIENT_DNIS, validFrom);
 
-        users.forEach(u -> {
-            if (u.getRole().equals(UserRole.TRAINER) || u.getRole().equals(UserRole.ADMIN))
-                return;
-
-            if (isProtectedClient(u)) {
-                log.debug("Skipping protected client {} in daily status audit", u.getId());
-                return;
-            }
-
-            Optional<Payment> payment = paymentRepository.findTopByUserAndStatusOrderByCreatedAtDesc(u,
-                    PaymentStatus.PAID);
-
-            if (payment.isEmpty()
-                    || payment.get().getExpiresAt() == null
-                    || !payment.get().getExpiresAt().toLocalDate().isAfter(LocalDate.now())) {
-                u.setStatus(UserStatus.INACTIVE);
-                toUpdate.add(u);
-                log.debug("Deactivating user {}: membership expired", u.getId());
-            }
-        });
+        if (expired.isEmpty()) {
+            return;
+        }
 
-        if (!toUpdate.isEmpty()) {
-            userRepository.saveAll(toUpdate);
+        List<Long> ids = expired.stream().map(User::getId).toList();
+        int updated = userRepository.updateStatusByIds(ids, UserStatus.ACTIVE, UserStatus.INACTIVE);
+        clientStatsService.evict(ids);
+        enrollmentEligibilityService.evict(ids);
+        log.info("Daily status audit: deactivated={}", updated);
 
-            // Notify staff about deactivated users
-            log.info("Notifying admins about {} expired memberships.", toUpdate.size());
-            notificationService.createPaymentExpiredNotification(toUpdate, getAllAdmins());
-        }
+        // Notify staff about deactivated users
+        log.info("Notifying admins about {} expired memberships.", expired.size());
+        notificationService.createPaymentExpiredNotification(expired, getAllAdmins());
     }
 
     /**
@@ -503,44 +608,15 @@ public class UserService {
 
     /**
      * Client Dashboard Stats.
-     * Aggregates key metrics for the client mobile app home screen.
+     * Aggregates key metrics for the client mobile app home screen in one
+     * query, cached briefly per client (see ClientStatsService).
      * 
      * @param clientId Target ID
      * @return DTO with attendance counts, next class info, and plan status.
      * @throws IllegalArgumentException if user is not a Client.
      */
     public ClientStatsDTO getClientStats(Long clientId) {
-        User client = getUserById(clientId);
-        if (!client.getRole().equals(UserRole.CLIENT)) {
-            throw new IllegalArgumentException("User is not a client");
-        }
-
-        return ClientStatsDTO.builder()
-                .weeklyActivityCount(getCurrentMonthActivityCount(client))
-                .nextClass(getNextClass(client))
-                .completedClassesCount(getCompletedClassesCount(client))
-                .membershipStatus(client.getStatus())
-                .remainingDays(getRemainingPlanDays(client))
-                .build();
-    }
-
-    /**
-     * Metric: Current Month Attendance Count.
-     * Counts attendances in the current calendar month.
-     * Includes PRESENT and LATE, excludes ABSENT/PENDING.
-     */
-    public Integer getCurrentMonthActivityCount(User client) {
-        LocalDate today = LocalDate.now();
-        LocalDate firstDayOfMonth = today.withDayOfMonth(1);
-        LocalDate lastDayOfMonth = today.withDayOfMonth(today.lengthOfMonth());
-
-        LocalDateTime startOfMonth = firstDayOfMonth.atStartOfDay();
-        LocalDateTime endOfMonth = lastDayOfMonth.atTime(23, 59, 59);
-
-        return (int) attendanceRepository.findByUser(client).stream()
-                .filter(attendance -> isAttendanceWithinRange(attendance, startOfMonth, endOfMonth))
-                .filter(this::countsAsCompletedAttendance)
-                .count();
+        return clientStatsService.getClientStats(clientId);
     }
 
     /**
@@ -640,13 +716,28 @@ public class UserService {
         return client.getStatus();
     }
 
+    /**
+     * Users whose birthday falls on {@code date}, year ignored. On Feb 28 of
+     * a non-leap year, Feb 29 birthdays are included.
+     */
     List<User> getUsersWithBirthdayOn(LocalDate date) {
-        return userRepository.findAllByDeletedAtIsNull().stream()
-                .filter(user -> user.getStatus() != UserStatus.PENDING_APPROVAL)
-                .filter(user -> user.getBirthDate() != null)
-                .filter(user -> user.getBirthDate().getMonthValue() == date.getMonthValue())
-                .filter(user -> user.getBirthDate().getDayOfMonth() == date.getDayOfMonth())
-                .collect(Collectors.toList());
+        List<Integer> days = date.getMonth() == Month.FEBRUARY && date.getDayOfMonth() == 28 && !date.isLeapYear()
+                ? List.of(28, 29)
+                : List.of(date.getDayOfMonth());
+        return userRepository.findBirthdays(date.getMonthValue(), days, UserStatus.PENDING_APPROVAL);
+    }
+
+    /**
+     * Fills the indexed birth month/day columns once for users created
+     * before they existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillBirthdayColumns() {
+        int updated = userRepository.backfillBirthMonthAndDay();
+        if (updated > 0) {
+            log.info("Birthday columns backfilled: users={}", updated);
+        }
     }
 
     /**
@@ -743,8 +834,10 @@ public class UserService {
             Path avatarPath = avatarDirectory.resolve(fileName);
 
             Files.copy(file.getInputStream(), avatarPath, StandardCopyOption.REPLACE_EXISTING);
+            writeAvatarVariants(user.getId(), avatarPath);
 
             user.setAvatar("avatars/" + fileName);
+            user.setAvatarUpdatedAt(LocalDateTime.now());
             userRepository.save(user);
 
             log.info("Avatar uploaded for user ID {}: {}", userId, fileName);
@@ -760,66 +853,48 @@ public class UserService {
         User user = getUserById(userId);
         deleteAvatarFileIfPresent(user);
         user.setAvatar(buildInitialAvatar(user.getFirstName(), user.getLastName()));
+        user.setAvatarUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
 
         log.info("Avatar deleted for user ID {}", userId);
         return new UserTypeDTO(user);
     }
 
-    public byte[] getAvatarContent(Long userId) {
-        User user = getUserById(userId);
-        Path avatarPath = resolveAvatarPath(user);
+    /**
+     * Avatar file to stream: the original upload when {@code size} is null,
+     * otherwise the square JPEG variant of that size. Variants are looked up
+     * by user ID alone, so serving them needs no database access. Avatars
+     * uploaded before variants existed get them generated on first request;
+     * formats ImageIO can't decode fall back to the original, and are marked
+     * so later requests don't try to decode them again.
+     */
+    public AvatarFileDTO getAvatarFile(Long userId, Integer size) {
+        String path = "/api/users/" + userId + "/avatar";
+        if (size != null && !AVATAR_VARIANT_SIZES.contains(size)) {
+            throw new BusinessRuleException("Tamaño de foto de perfil no soportado: " + size, path);
+        }
 
-        try {
-            if (!Files.exists(avatarPath)) {
-                throw new FileException("La foto de perfil no existe", "/api/users/" + userId + "/avatar");
+        if (size != null) {
+            Path variant = getAvatarVariantPath(userId, size);
+            if (Files.exists(variant)) {
+                return toAvatarFile(variant, "image/jpeg", path);
             }
-            return Files.readAllBytes(avatarPath);
-        } catch (IOException e) {
-            log.error("Error reading avatar for user {}: {}", userId, e.getMessage());
-            throw new FileException("No se pudo leer la foto de perfil", "/api/users/" + userId + "/avatar");
         }
-    }
 
-    public String getAvatarContentType(Long userId) {
         User user = getUserById(userId);
         Path avatarPath = resolveAvatarPath(user);
-
-        try {
-            String contentType = Files.probeContentType(avatarPath);
-            return contentType != null ? contentType : "application/octet-stream";
-        } catch (IOException e) {
-            return "application/octet-stream";
+        if (!Files.exists(avatarPath)) {
+            throw new FileException("La foto de perfil no existe", path);
         }
-    }
 
-    /**
-     * Helper: Calculates days remaining on active plan.
-     * Returns 0 if expired or not found.
-     */
-    public Integer getRemainingPlanDays(User client) {
-        Optional<Payment> lastPaidPayment = paymentRepository.findTopByUserAndStatusOrderByCreatedAtDesc(
-                client, PaymentStatus.PAID);
-
-        if (lastPaidPayment.isEmpty()) {
-            return 0;
-        }
-
-        Payment payment = lastPaidPayment.get();
-
-        if (payment.getExpiresAt() == null) {
-            return 0;
-        }
-
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime expiresAt = payment.getExpiresAt();
-
-        if (expiresAt.isBefore(now) || expiresAt.isEqual(now)) {
-            return 0;
+        if (size != null && !Files.exists(getAvatarOriginalOnlyMarker(userId))) {
+            writeAvatarVariants(userId, avatarPath);
+            Path variant = getAvatarVariantPath(userId, size);
+            if (Files.exists(variant)) {
+                return toAvatarFile(variant, "image/jpeg", path);
+            }
         }
-
-        long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(now.toLocalDate(), expiresAt.toLocalDate());
-        return Math.max(0, (int) daysBetween);
+        return toAvatarFile(avatarPath, probeContentType(avatarPath), path);
     }
 
     private User createOrReactivateUser(CreateUserDTO source, UserStatus status, LocalDate joinDate, String path) {
@@ -838,6 +913,8 @@ public class UserService {
             existingUser.setDeletedAt(null);
 
             User restoredUser = userRepository.save(existingUser);
+            // Restored with the role and name from the request
+            nfcCheckInService.onUserChanged(restoredUser.getDni());
             log.info("Soft-deleted user reactivated: id={}", restoredUser.getId());
             return restoredUser;
         }
@@ -903,7 +980,7 @@ public class UserService {
         return trimmed.isEmpty() ? null : trimmed;
     }
 
-    private String buildInitialAvatar(String firstName, String lastName) {
+    String buildInitialAvatar(String firstName, String lastName) {
         return firstName.substring(0, 1).toUpperCase(Locale.ROOT)
                 + lastName.substring(0, 1).toUpperCase(Locale.ROOT);
     }
@@ -937,6 +1014,96 @@ public class UserService {
         } catch (IOException e) {
             log.warn("Could not delete previous avatar for user {}: {}", user.getId(), e.getMessage());
         }
+        deleteAvatarVariants(user.getId());
+    }
+
+    /**
+     * Writes the fixed-size variants of an uploaded avatar: center-cropped
+     * squares, re-encoded as JPEG (the JDK has no WebP encoder). The upload is
+     * decoded subsampled and only after its header passes the pixel cap.
+     * Failures are logged; the original upload stays usable.
+     */
+    private void writeAvatarVariants(Long userId, Path original) {
+        Path variantDirectory = getAvatarVariantDirectory();
+        try {
+            Files.createDirectories(variantDirectory);
+            BufferedImage source = ImageUtils.readBounded(original, Collections.max(AVATAR_VARIANT_SIZES));
+            if (source == null) {
+                deleteAvatarVariants(userId);
+                Files.createFile(getAvatarOriginalOnlyMarker(userId));
+                log.warn("Avatar format not decodable, serving original only: userId={}", userId);
+                return;
+            }
+
+            for (Integer size : AVATAR_VARIANT_SIZES) {
+                // Unique per call: a first-request regeneration can race an upload
+                Path temp = Files.createTempFile(variantDirectory, userId + "_" + size + "_", ".tmp");
+                try {
+                    ImageUtils.writeJpeg(ImageUtils.squareThumbnail(source, size), temp, AVATAR_JPEG_QUALITY);
+                    Files.move(temp, getAvatarVariantPath(userId, size), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Marked by a concurrent request
+        } catch (IOException e) {
+            log.warn("Could not write avatar variants for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void deleteAvatarVariants(Long userId) {
+        for (Integer size : AVATAR_VARIANT_SIZES) {
+            try {
+                Files.deleteIfExists(getAvatarVariantPath(userId, size));
+            } catch (IOException e) {
+                log.warn("Could not delete avatar variant for user {}: {}", userId, e.getMessage());
+            }
+        }
+        try {
+            Files.deleteIfExists(getAvatarOriginalOnlyMarker(userId));
+        } catch (IOException e) {
+            log.warn("Could not delete avatar marker for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private Path getAvatarVariantDirectory() {
+        return getAvatarDirectory().resolve("variants");
+    }
+
+    private Path getAvatarVariantPath(Long userId, int size) {
+        return getAvatarVariantDirectory().resolve(userId + "_" + size + ".jpg");
+    }
+
+    // Present while the current upload can't be decoded into variants
+    private Path getAvatarOriginalOnlyMarker(Long userId) {
+        return getAvatarVariantDirectory().resolve(userId + "_original-only");
+    }
+
+    private AvatarFileDTO toAvatarFile(Path file, String contentType, String path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String etag = "\"" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-"
+                    + Long.toHexString(attributes.size()) + "\"";
+            return AvatarFileDTO.builder()
+                    .resource(new FileSystemResource(file))
+                    .contentType(contentType)
+                    .etag(etag)
+                    .build();
+        } catch (IOException e) {
+            log.error("Error reading avatar {}: {}", file, e.getMessage());
+            throw new FileException("No se pudo leer la foto de perfil", path);
+        }
+    }
+
+    private String probeContentType(Path file) {
+        try {
+            String contentType = Files.probeContentType(file);
+            return contentType != null ? contentType : "application/octet-stream";
+        } catch (IOException e) {
+            return "application/octet-stream";
+        }
     }
 
     private Path resolveAvatarPath(User user) {
@@ -0,0 +1,234 @@
+package com.personalfit.services;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.personalfit.dto.Attendance.WaitlistEntryDTO;
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.exceptions.EntityNotFoundException;
+import com.personalfit.models.Activity;
+import com.personalfit.models.Attendance;
+import com.personalfit.models.User;
+import com.personalfit.models.WaitlistEntry;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.repository.AttendanceRepository;
+import com.personalfit.repository.WaitlistEntryRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Waitlist
+ *
+ * FIFO queue of users waiting for a seat in a full activity. When a seat is
+ * freed (unenroll, admin removal, slots increased) the head of the queue is
+ * enrolled in the same transaction and notified by push once it commits, so
+ * members don't have to poll the weekly schedule for openings.
+ *
+ * Joins and promotions both serialize on the activity row lock (the seat
+ * counter UPDATE takes it too), so a user can't be queued while a seat is
+ * being handed out and miss it.
+ */
+@Slf4j
+@Service
+public class WaitlistService {
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NfcCheckInService nfcCheckInService;
+
+    @Autowired
+    private WeeklyScheduleService weeklyScheduleService;
+
+    @Autowired
+    private UserActivityStatsService userActivityStatsService;
+
+    /**
+     * Queues a user for a full activity.
+     * Rejected when the activity still has free seats (the user should enroll
+     * directly), is no longer active, or the user is already in or queued.
+     */
+    @Transactional
+    public WaitlistEntryDTO joinWaitlist(Long userId, Long activityId) {
+        User user = userService.getUserById(userId);
+        Activity activity = activityRepository.findByIdForUpdate(activityId)
+                .orElseThrow(() -> new EntityNotFoundException("Activity not found with ID: " + activityId,
+                        "Api/Waitlist/joinWaitlist"));
+
+        if (activity.getStatus() != ActivityStatus.ACTIVE) {
+            throw new BusinessRuleException("Activity is no longer active", "Api/Waitlist/joinWaitlist");
+        }
+        if (attendanceRepository.existsByUserIdAndActivityId(userId, activityId)) {
+            throw new BusinessRuleException("User is already enrolled in this activity", "Api/Waitlist/joinWaitlist");
+        }
+        if (waitlistEntryRepository.existsByUserIdAndActivityId(userId, activityId)) {
+            throw new BusinessRuleException("User is already on the waitlist", "Api/Waitlist/joinWaitlist");
+        }
+        if (activity.getReservedSlots() < activity.getSlots()) {
+            throw new BusinessRuleException("Activity has free slots, enroll directly", "Api/Waitlist/joinWaitlist");
+        }
+        if (!paymentService.canUserEnrollBasedOnPayment(userId)) {
+            throw new BusinessRuleException("User cannot enroll due to payment status (Expired or Unpaid).",
+                    "Api/Waitlist/joinWaitlist");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setUser(user);
+        entry.setActivity(activity);
+        WaitlistEntry saved = waitlistEntryRepository.save(entry);
+
+        log.info("User joined waitlist: userId={}, activityId={}", userId, activityId);
+        return convertToDTO(saved);
+    }
+
+    @Transactional
+    public void leaveWaitlist(Long userId, Long activityId) {
+        if (waitlistEntryRepository.deleteByUserIdAndActivityId(userId, activityId) == 0) {
+            throw new BusinessRuleException("User is not on the waitlist", "Api/Waitlist/leaveWaitlist");
+        }
+        log.info("User left waitlist: userId={}, activityId={}", userId, activityId);
+    }
+
+    /**
+     * Current queue position of a user, or null when not queued.
+     */
+    public WaitlistEntryDTO getWaitlistEntry(Long userId, Long activityId) {
+        return waitlistEntryRepository.findByUserIdAndActivityId(userId, activityId)
+                .map(this::convertToDTO)
+                .orElse(null);
+    }
+
+    /**
+     * Hands every free seat to the head of the queue.
+     * Must run in the transaction that freed the seat: the enrollment and the
+     * seat release commit or roll back together. Candidates who can no longer
+     * enroll (deleted, unpaid, daily limit reached) are dropped from the queue.
+     *
+     * @return number of users promoted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int promoteWaitlisted(Long activityId) {
+        Activity activity = activityRepository.findById(activityId).orElse(null);
+        if (activity == null || activity.getStatus() != ActivityStatus.ACTIVE) {
+            return 0;
+        }
+
+        int promoted = 0;
+        Optional<WaitlistEntry> head;
+        while ((head = waitlistEntryRepository.findFirstByActivityIdOrderByCreatedAtAscIdAsc(activityId)).isPresent()) {
+            WaitlistEntry entry = head.get();
+            User user = entry.getUser();
+
+            if (!canBePromoted(user, activity)) {
+                waitlistEntryRepository.delete(entry);
+                log.info("Waitlist entry dropped (no longer eligible): userId={}, activityId={}",
+                        user.getId(), activityId);
+                continue;
+            }
+
+            if (!slotReservationService.tryReserve(activityId)) {
+                break;
+            }
+
+            Attendance attendance = new Attendance();
+            attendance.setUser(user);
+            attendance.setActivity(activity);
+            attendance.setAttendance(AttendanceStatus.PENDING);
+            attendanceRepository.save(attendance);
+            nfcCheckInService.onAttendanceCreated(attendance);
+            userActivityStatsService.onAttendanceCreated(user.getId());
+            weeklyScheduleService.evictWeekOf(activity.getDate());
+
+            waitlistEntryRepository.delete(entry);
+            notificationService.createWaitlistPromotionNotification(user, activity);
+
+            promoted++;
+            log.info("User promoted from waitlist: userId={}, activityId={}", user.getId(), activityId);
+        }
+
+        return promoted;
+    }
+
+    /**
+     * Removes whole queues. Called when activities are deleted or finish.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void clearWaitlists(Collection<Long> activityIds) {
+        if (activityIds.isEmpty()) {
+            return;
+        }
+        int removed = waitlistEntryRepository.deleteByActivityIdIn(activityIds);
+        if (removed > 0) {
+            log.info("Waitlist entries cleared: activities={}, removed={}", activityIds.size(), removed);
+        }
+    }
+
+    /**
+     * Removes the queues of every active activity that has already ended.
+     * Run by the lifecycle job before those activities are completed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int clearWaitlistsOfActivitiesEndedBy(LocalDateTime now) {
+        return waitlistEntryRepository.deleteForActivitiesEndedBy(ActivityStatus.ACTIVE, now);
+    }
+
+    private boolean canBePromoted(User user, Activity activity) {
+        if (user.getDeletedAt() != null) {
+            return false;
+        }
+        if (attendanceRepository.existsByUserIdAndActivityId(user.getId(), activity.getId())) {
+            return false;
+        }
+        if (!paymentService.canUserEnrollBasedOnPayment(user.getId())) {
+            return false;
+        }
+
+        Integer maxActivitiesPerDay = settingsService.getMaxActivitiesPerDay();
+        LocalDateTime dayStart = activity.getDate().toLocalDate().atStartOfDay();
+        return attendanceRepository.countByUserAndActivityDate(user, dayStart, dayStart.plusDays(1))
+                < maxActivitiesPerDay;
+    }
+
+    private WaitlistEntryDTO convertToDTO(WaitlistEntry entry) {
+        long ahead = waitlistEntryRepository.countAhead(
+                entry.getActivity().getId(), entry.getCreatedAt(), entry.getId());
+
+        return WaitlistEntryDTO.builder()
+                .id(entry.getId())
+                .activityId(entry.getActivity().getId())
+                .userId(entry.getUser().getId())
+                .position(ahead + 1)
+                .createdAt(entry.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.personalfit.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.personalfit.dto.Activity.ActivityTypeDTO;
+import com.personalfit.dto.Activity.WeeklyScheduleRowDTO;
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.utils.TransactionUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service Layer: Weekly schedule read model
+ *
+ * Serves the weekly schedule (the most requested screen) from one projection
+ * query per week instead of walking trainer, attendances, users and summaries
+ * per activity. Results are cached per week (keyed by its Sunday) and evicted
+ * after commit by the writes that change them: enrollments, summaries and
+ * activity create/edit/delete/completion. The cache holds immutable records;
+ * every caller gets its own DTOs, so mutating a response can't leak into
+ * the next one.
+ */
+@Slf4j
+@Service
+public class WeeklyScheduleService {
+
+    private static final int MAX_CACHED_WEEKS = 64;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private final Map<LocalDate, List<ScheduledActivity>> weeks = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Activities of the week containing the given date.
+     * Range: Sunday (00:00) to Saturday (23:59).
+     */
+    public List<ActivityTypeDTO> getWeek(LocalDate date) {
+        LocalDate weekStart = weekStartOf(date);
+        List<ScheduledActivity> week = weeks.get(weekStart);
+        if (week == null) {
+            long loadedAt = generation.get();
+            week = loadWeek(weekStart);
+
+            if (generation.get() == loadedAt) {
+                if (weeks.size() >= MAX_CACHED_WEEKS) {
+                    weeks.clear();
+                }
+                weeks.put(weekStart, week);
+            }
+        }
+        return week.stream().map(ScheduledActivity::toDTO).toList();
+    }
+
+    /**
+     * Something in the week of {@code date} changed (enrollment, summary,
+     * activity edit).
+     */
+    public void evictWeekOf(LocalDateTime date) {
+        if (date == null) {
+            return;
+        }
+        LocalDate weekStart = weekStartOf(date.toLocalDate());
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            weeks.remove(weekStart);
+        });
+    }
+
+    public void evictWeeksOf(Collection<LocalDateTime> dates) {
+        dates.forEach(this::evictWeekOf);
+    }
+
+    /**
+     * Every week between the two dates (inclusive) changed.
+     */
+    public void evictWeeksBetween(LocalDateTime from, LocalDateTime to) {
+        LocalDate first = weekStartOf(from.toLocalDate());
+        LocalDate last = weekStartOf(to.toLocalDate());
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            weeks.keySet().removeIf(weekStart -> !weekStart.isBefore(first) && !weekStart.isAfter(last));
+        });
+    }
+
+    /**
+     * Every week from the one containing {@code from} onwards changed.
+     */
+    public void evictWeeksFrom(LocalDateTime from) {
+        LocalDate first = weekStartOf(from.toLocalDate());
+        TransactionUtils.runAfterCommit(() -> {
+            generation.incrementAndGet();
+            weeks.keySet().removeIf(weekStart -> !weekStart.isBefore(first));
+        });
+    }
+
+    private List<ScheduledActivity> loadWeek(LocalDate weekStart) {
+        List<WeeklyScheduleRowDTO> rows = activityRepository.findWeeklyScheduleRows(
+                weekStart.atStartOfDay(), weekStart.plusDays(6).atTime(LocalTime.MAX));
+
+        Map<Long, ActivityTypeDTO> activities = new LinkedHashMap<>();
+        for (WeeklyScheduleRowDTO row : rows) {
+            ActivityTypeDTO activity = activities.computeIfAbsent(row.getActivityId(), id -> ActivityTypeDTO.builder()
+                    .id(id)
+                    .name(row.getName())
+                    .trainerId(row.getTrainerId())
+                    .trainerName(row.getTrainerFirstName() + " " + row.getTrainerLastName())
+                    .date(row.getDate())
+                    .duration(row.getDuration())
+                    .participants(new ArrayList<>())
+                    .participantsWithSummary(new ArrayList<>())
+                    .maxParticipants(row.getSlots())
+                    .currentParticipants(0)
+                    .status(row.getStatus())
+                    .isRecurring(row.getIsRecurring())
+                    .build());
+
+            if (row.getParticipantId() == null) {
+                continue;
+            }
+            activity.getParticipants().add(row.getParticipantId());
+            activity.setCurrentParticipants(activity.getParticipants().size());
+            if (row.getSummaryId() != null && !activity.getParticipantsWithSummary().contains(row.getParticipantId())) {
+                activity.getParticipantsWithSummary().add(row.getParticipantId());
+            }
+        }
+
+        log.debug("Weekly schedule loaded: weekStart={}, activities={}", weekStart, activities.size());
+        return activities.values().stream().map(ScheduledActivity::of).toList();
+    }
+
+    private LocalDate weekStartOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+    }
+
+    private record ScheduledActivity(Long id, String name, Long trainerId, String trainerName,
+            LocalDateTime date, Integer duration, List<Long> participants, List<Long> participantsWithSummary,
+            Integer maxParticipants, ActivityStatus status, Boolean isRecurring) {
+
+        static ScheduledActivity of(ActivityTypeDTO activity) {
+            return new ScheduledActivity(activity.getId(), activity.getName(), activity.getTrainerId(),
+                    activity.getTrainerName(), activity.getDate(), activity.getDuration(),
+                    List.copyOf(activity.getParticipants()), List.copyOf(activity.getParticipantsWithSummary()),
+                    activity.getMaxParticipants(), activity.getStatus(), activity.getIsRecurring());
+        }
+
+        ActivityTypeDTO toDTO() {
+            return ActivityTypeDTO.builder()
+                    .id(id)
+                    .name(name)
+                    .trainerId(trainerId)
+                    .trainerName(trainerName)
+                    .date(date)
+                    .duration(duration)
+                    .participants(new ArrayList<>(participants))
+                    .participantsWithSummary(new ArrayList<>(participantsWithSummary))
+                    .maxParticipants(maxParticipants)
+                    .currentParticipants(participants.size())
+                    .status(status)
+                    .isRecurring(isRecurring)
+                    .build();
+        }
+    }
+
+}
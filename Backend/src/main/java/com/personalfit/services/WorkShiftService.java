@@ -1,7 +1,6 @@
 package com.personalfit.services;
 
 import java.time.Duration;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
@@ -31,24 +30,35 @@ public class WorkShiftService {
      * All subsequent scans   -> CHECK_OUT (overwrites the endTime of today's shift)
      */
     public String processCheckInCheckOut(User trainer) {
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay   = LocalDate.now().atTime(LocalTime.MAX);
+        return processCheckInCheckOut(trainer, LocalDateTime.now());
+    }
+
+    /**
+     * Same rules, evaluated at the time the scan was taken (offline NFC
+     * batches). Replaying the check-in scan itself is a no-op, so a batch
+     * re-sent after a lost response doesn't close the shift.
+     */
+    public String processCheckInCheckOut(User trainer, LocalDateTime scannedAt) {
+        LocalDateTime startOfDay = scannedAt.toLocalDate().atStartOfDay();
+        LocalDateTime endOfDay   = scannedAt.toLocalDate().atTime(LocalTime.MAX);
 
         Optional<WorkShift> todayShiftOpt = workShiftRepository
                 .findFirstByTrainerIdAndStartTimeBetweenOrderByStartTimeAsc(
                         trainer.getId(), startOfDay, endOfDay);
 
-        if (todayShiftOpt.isPresent()) {
-            return checkOut(todayShiftOpt.get());
-        } else {
-            return checkIn(trainer);
+        if (todayShiftOpt.isEmpty()) {
+            return checkIn(trainer, scannedAt);
+        }
+        if (todayShiftOpt.get().getStartTime().equals(scannedAt)) {
+            return "CHECK_IN";
         }
+        return checkOut(todayShiftOpt.get(), scannedAt);
     }
 
-    private String checkIn(User trainer) {
+    private String checkIn(User trainer, LocalDateTime scannedAt) {
         WorkShift shift = WorkShift.builder()
                 .trainer(trainer)
-                .startTime(LocalDateTime.now())
+                .startTime(scannedAt)
                 .status(WorkShiftStatus.ACTIVE)
                 .build();
 
@@ -56,13 +66,12 @@ public class WorkShiftService {
         return "CHECK_IN";
     }
 
-    private String checkOut(WorkShift shift) {
-        LocalDateTime now = LocalDateTime.now();
-        shift.setEndTime(now);
+    private String checkOut(WorkShift shift, LocalDateTime scannedAt) {
+        shift.setEndTime(scannedAt);
         shift.setStatus(WorkShiftStatus.COMPLETED);
 
         // Calculate duration in hours
-        Duration duration = Duration.between(shift.getStartTime(), now);
+        Duration duration = Duration.between(shift.getStartTime(), scannedAt);
         double hours = (double) duration.toMinutes() / 60.0;
         shift.setTotalHours(hours);
 
@@ -0,0 +1,232 @@
+package com.personalfit.utils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.w3c.dom.Node;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decoding of uploaded images (receipts, avatars) without trusting their
+ * size: the header is checked against a pixel cap before any pixel is
+ * decoded, and large photos are subsampled on read so they never get fully
+ * expanded in memory. Also the scaling and JPEG encoding both uploads go
+ * through afterwards.
+ */
+@Slf4j
+public final class ImageUtils {
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    // Above any phone camera; a small file declaring more is a decompression bomb
+    private static final long MAX_SOURCE_PIXELS = 100_000_000L;
+
+    private ImageUtils() {
+    }
+
+    /**
+     * Decodes the image subsampled to no less than twice {@code targetSide}
+     * on its longest side (so the final bicubic pass has detail to work
+     * with) and applies the EXIF rotation, which re-encoding would drop.
+     *
+     * @return null when no reader handles the format, the header declares an
+     *         implausible pixel count or the orientation is mirrored.
+     */
+    public static BufferedImage readBounded(Path source, int targetSide) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    log.warn("Image rejected before decoding: file={}, width={}, height={}", source.getFileName(),
+                            width, height);
+                    return null;
+                }
+                int orientation = readExifOrientation(reader);
+                if (orientation != 1 && orientation != 3 && orientation != 6 && orientation != 8) {
+                    return null;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (targetSide * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+                return rotate(reader.read(0, param), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales the image down so its longest side is at most {@code maxSide};
+     * smaller images keep their size. The result is opaque RGB, ready for
+     * {@link #writeJpeg}.
+     */
+    public static BufferedImage scaleToFit(BufferedImage image, int maxSide) {
+        double factor = Math.min(1.0, (double) maxSide / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        return drawScaled(image, width, height);
+    }
+
+    /**
+     * Center-cropped square of {@code size} px, opaque RGB.
+     */
+    public static BufferedImage squareThumbnail(BufferedImage source, int size) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        BufferedImage current = source.getSubimage((source.getWidth() - side) / 2,
+                (source.getHeight() - side) / 2, side, side);
+
+        // Halve step by step: a single bicubic pass from a large photo aliases
+        while (side / 2 >= size) {
+            side /= 2;
+            current = drawScaled(current, side, side);
+        }
+        return drawScaled(current, size, size);
+    }
+
+    /**
+     * Encodes the image as JPEG at the given quality (0-1).
+     */
+    public static void writeJpeg(BufferedImage image, Path target, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage drawScaled(BufferedImage source, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha: flatten transparent PNGs onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static BufferedImage rotate(BufferedImage image, int orientation) {
+        if (orientation == 1) {
+            return image;
+        }
+        boolean quarterTurn = orientation == 6 || orientation == 8;
+        int width = quarterTurn ? image.getHeight() : image.getWidth();
+        int height = quarterTurn ? image.getWidth() : image.getHeight();
+
+        AffineTransform transform = new AffineTransform();
+        transform.translate(width / 2.0, height / 2.0);
+        transform.rotate(Math.toRadians(orientation == 3 ? 180 : orientation == 6 ? 90 : -90));
+        transform.translate(-image.getWidth() / 2.0, -image.getHeight() / 2.0);
+
+        BufferedImage rotated = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rotated.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rotated;
+    }
+
+    /**
+     * Orientation from the JPEG's EXIF (APP1) segment; 1 when absent or not
+     * a JPEG.
+     */
+    private static int readExifOrientation(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata == null || !"javax_imageio_jpeg_image_1.0".equals(metadata.getNativeMetadataFormatName())) {
+                return 1;
+            }
+            Node root = metadata.getAsTree("javax_imageio_jpeg_image_1.0");
+            for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (!"markerSequence".equals(node.getNodeName())) {
+                    continue;
+                }
+                for (Node marker = node.getFirstChild(); marker != null; marker = marker.getNextSibling()) {
+                    // APP1 segments surface as "unknown" markers with MarkerTag 225
+                    if (marker instanceof IIOMetadataNode segment && "unknown".equals(segment.getNodeName())
+                            && "225".equals(segment.getAttribute("MarkerTag"))
+                            && segment.getUserObject() instanceof byte[] data) {
+                        int orientation = parseOrientation(data);
+                        if (orientation > 0) {
+                            return orientation;
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not read EXIF orientation: {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    private static int parseOrientation(byte[] data) {
+        // "Exif\0\0", then a TIFF header: byte order, 42, offset of IFD0
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return 0;
+        }
+        int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                return 0;
+            }
+            if (Short.toUnsignedInt(tiff.getShort(entry)) == EXIF_ORIENTATION_TAG) {
+                return Short.toUnsignedInt(tiff.getShort(entry + 8));
+            }
+        }
+        return 0;
+    }
+}
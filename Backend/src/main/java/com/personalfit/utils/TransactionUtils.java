@@ -0,0 +1,33 @@
+package com.personalfit.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for work that must follow the surrounding transaction.
+ */
+public final class TransactionUtils {
+
+    private TransactionUtils() {
+    }
+
+    /**
+     * Defers side effects that must only reflect committed data (cache
+     * evictions, in-memory patches, pushes, async jobs) until the surrounding
+     * transaction commits; they are dropped on rollback. Runs immediately
+     * when there is no transaction.
+     */
+    public static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.personalfit.dto.Activity.ActivityDetailInfoDTO;
 import com.personalfit.dto.Activity.ActivityFormTypeDTO;
+import com.personalfit.dto.Activity.ActivityListItemDTO;
+import com.personalfit.dto.Activity.ActivityPageDTO;
 import com.personalfit.dto.Activity.ActivityTypeDTO;
 import com.personalfit.dto.Attendance.EnrollmentRequestDTO;
 import com.personalfit.dto.Attendance.EnrollmentResponseDTO;
@@ -24,6 +26,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.List;
@@ -182,6 +185,45 @@ class ActivityControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/activities/page")
+    class GetActivitiesPageTests {
+
+        @Test
+        @DisplayName("should pass filters and cursor to the service")
+        void getActivitiesPage_WithFiltersAndCursor_ReturnsPage() throws Exception {
+            ActivityListItemDTO item = ActivityListItemDTO.builder()
+                    .id(42L)
+                    .name("Funcional")
+                    .date(LocalDateTime.of(2026, 3, 4, 18, 0))
+                    .status(ActivityStatus.ACTIVE)
+                    .build();
+
+            when(activityService.getActivitiesPage(LocalDate.of(2026, 3, 1), null, 7L, ActivityStatus.ACTIVE,
+                    LocalDateTime.of(2026, 3, 3, 9, 0), 40L, 1))
+                    .thenReturn(ActivityPageDTO.builder()
+                            .items(List.of(item))
+                            .hasMore(true)
+                            .nextAfterDate(item.getDate())
+                            .nextAfterId(42L)
+                            .build());
+
+            mockMvc.perform(get("/api/activities/page")
+                            .param("from", "2026-03-01")
+                            .param("trainerId", "7")
+                            .param("status", "ACTIVE")
+                            .param("afterDate", "2026-03-03T09:00:00")
+                            .param("afterId", "40")
+                            .param("size", "1")
+                            .with(user("admin").roles("ADMIN")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items.length()").value(1))
+                    .andExpect(jsonPath("$.items[0].name").value("Funcional"))
+                    .andExpect(jsonPath("$.hasMore").value(true))
+                    .andExpect(jsonPath("$.nextAfterId").value(42));
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/activities/{id}")
     class GetActivityDetailTests {
@@ -261,6 +261,19 @@ class AttendanceControllerTest {
                     .andExpect(status().isBadRequest())
                     .andExpect(jsonPath("$.success").value(false));
         }
+
+        @Test
+        @DisplayName("NFC batch endpoint should return 400 when a scan has no timestamp")
+        void nfcBatchEndpoint_ScanWithoutTimestamp_Returns400() throws Exception {
+            Map<String, Integer> scan = new HashMap<>();
+            scan.put("dni", 30111222);
+
+            mockMvc.perform(post(NFC_ENDPOINT + "/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of(scan))))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success").value(false));
+        }
     }
 
     @Nested
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.personalfit.dto.Payment.InactiveClientsPaymentRequestDTO;
 import com.personalfit.dto.Payment.ManualPaymentRequestDTO;
+import com.personalfit.dto.Payment.PaymentFileContentDTO;
 import com.personalfit.dto.Payment.PaymentStatusUpdateDTO;
 import com.personalfit.dto.Payment.PaymentTypeDTO;
 import com.personalfit.enums.MethodType;
@@ -20,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
@@ -403,15 +405,53 @@ class PaymentControllerTest {
             fileInfo.setContentType("application/pdf");
 
             when(paymentService.getAuthorizedPaymentFile(1L, "client@test.com")).thenReturn(fileInfo);
-            when(paymentService.getFileContent(fileInfo)).thenReturn(content);
+            when(paymentService.getFileResource(fileInfo)).thenReturn(fileContent(fileInfo, content));
 
             mockMvc.perform(get("/api/payments/files/1")
                             .with(user("client@test.com").roles("CLIENT")))
                     .andExpect(status().isOk())
                     .andExpect(header().string("Content-Disposition", "inline; filename=receipt.pdf"))
+                    .andExpect(header().string("ETag", "\"abc-11\""))
+                    .andExpect(header().string("Accept-Ranges", "bytes"))
                     .andExpect(content().contentType(MediaType.APPLICATION_PDF));
         }
 
+        @Test
+        @DisplayName("GET /api/payments/files/{fileId} - should serve a byte range")
+        void downloadFile_RangeRequest_ReturnsPartialContent() throws Exception {
+            byte[] content = "fake-file-content".getBytes();
+            PaymentFile fileInfo = new PaymentFile();
+            fileInfo.setFileName("receipt.pdf");
+            fileInfo.setContentType("application/pdf");
+
+            when(paymentService.getAuthorizedPaymentFile(1L, "client@test.com")).thenReturn(fileInfo);
+            when(paymentService.getFileResource(fileInfo)).thenReturn(fileContent(fileInfo, content));
+
+            mockMvc.perform(get("/api/payments/files/1")
+                            .header("Range", "bytes=5-8")
+                            .with(user("client@test.com").roles("CLIENT")))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string("Content-Range", "bytes 5-8/17"))
+                    .andExpect(content().bytes("file".getBytes()));
+        }
+
+        @Test
+        @DisplayName("GET /api/payments/files/{fileId} - should answer 304 when the ETag matches")
+        void downloadFile_MatchingETag_ReturnsNotModified() throws Exception {
+            PaymentFile fileInfo = new PaymentFile();
+            fileInfo.setFileName("receipt.pdf");
+            fileInfo.setContentType("application/pdf");
+
+            when(paymentService.getAuthorizedPaymentFile(1L, "client@test.com")).thenReturn(fileInfo);
+            when(paymentService.getFileResource(fileInfo))
+                    .thenReturn(fileContent(fileInfo, "fake-file-content".getBytes()));
+
+            mockMvc.perform(get("/api/payments/files/1")
+                            .header("If-None-Match", "\"abc-11\"")
+                            .with(user("client@test.com").roles("CLIENT")))
+                    .andExpect(status().isNotModified());
+        }
+
         @Test
         @DisplayName("GET /api/payments/files/{fileId} - should require authentication")
         void downloadFile_NoAuth_Returns401() throws Exception {
@@ -431,7 +471,7 @@ class PaymentControllerTest {
                             .with(user("other@test.com").roles("CLIENT")))
                     .andExpect(status().isForbidden());
 
-            verify(paymentService, never()).getFileContent(any(PaymentFile.class));
+            verify(paymentService, never()).getFileResource(any(PaymentFile.class));
         }
 
         @Test
@@ -445,7 +485,7 @@ class PaymentControllerTest {
             Payment payment = Payment.builder().id(9L).paymentFile(file).build();
 
             when(paymentService.getAuthorizedPaymentWithFile(9L, "client@test.com")).thenReturn(payment);
-            when(paymentService.getFileContent(file)).thenReturn(content);
+            when(paymentService.getFileResource(file)).thenReturn(fileContent(file, content));
 
             mockMvc.perform(get("/api/payments/getFile/9")
                             .with(user("client@test.com").roles("CLIENT")))
@@ -465,10 +505,19 @@ class PaymentControllerTest {
                             .with(user("other@test.com").roles("CLIENT")))
                     .andExpect(status().isForbidden());
 
-            verify(paymentService, never()).getFileContent(any(PaymentFile.class));
+            verify(paymentService, never()).getFileResource(any(PaymentFile.class));
         }
     }
 
+    private PaymentFileContentDTO fileContent(PaymentFile file, byte[] content) {
+        return PaymentFileContentDTO.builder()
+                .resource(new ByteArrayResource(content))
+                .fileName(file.getFileName())
+                .contentType(file.getContentType())
+                .etag("\"abc-11\"")
+                .build();
+    }
+
     @Nested
     @DisplayName("Security Tests")
     class SecurityTests {
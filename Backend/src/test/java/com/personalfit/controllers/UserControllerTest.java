@@ -5,6 +5,8 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.personalfit.dto.User.ClientStatsDTO;
 import com.personalfit.dto.User.CreateUserDTO;
 import com.personalfit.dto.User.UserDetailInfoDTO;
+import com.personalfit.dto.User.UserSearchItemDTO;
+import com.personalfit.dto.User.UserSearchPageDTO;
 import com.personalfit.dto.User.UserTypeDTO;
 import com.personalfit.enums.UserRole;
 import com.personalfit.enums.UserStatus;
@@ -177,6 +179,43 @@ class UserControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/users/search")
+    class SearchUsersTests {
+
+        @Test
+        @DisplayName("should return a slim keyset page")
+        void searchUsers_ReturnsPage() throws Exception {
+            UserSearchPageDTO page = UserSearchPageDTO.builder()
+                    .items(List.of(UserSearchItemDTO.builder()
+                            .id(1L).firstName("Juan").lastName("Perez").dni(12345678)
+                            .status(UserStatus.ACTIVE).role(UserRole.CLIENT).build()))
+                    .hasMore(true)
+                    .nextAfterName("perez juan")
+                    .nextAfterId(1L)
+                    .build();
+            when(userService.searchUsers("per", null, null, null, null, 1)).thenReturn(page);
+
+            mockMvc.perform(get("/api/users/search")
+                            .param("q", "per")
+                            .param("size", "1")
+                            .with(user("admin").roles("ADMIN")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].dni").value(12345678))
+                    .andExpect(jsonPath("$.hasMore").value(true))
+                    .andExpect(jsonPath("$.nextAfterName").value("perez juan"));
+        }
+
+        @Test
+        @DisplayName("should be forbidden for clients")
+        void searchUsers_AsClient_IsForbidden() throws Exception {
+            mockMvc.perform(get("/api/users/search")
+                            .param("q", "per")
+                            .with(user("client").roles("CLIENT")))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
     @Nested
     @DisplayName("Pending Verification Endpoints")
     class PendingVerificationTests {
@@ -0,0 +1,163 @@
+package com.personalfit.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.personalfit.dto.User.UserSearchItemDTO;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.User;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.SqlCapture;
+import com.personalfit.support.TestData;
+
+class UserRepositoryTest extends IntegrationTest {
+
+    private static final Set<Integer> PROTECTED_DNIS = Set.of(970004);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void searchPage_walksTheVisibleUsersByNameWithTheCursor() {
+        User ana = save(970001, "Ana", "Diaz", UserRole.CLIENT, UserStatus.ACTIVE);
+        User juan = save(970012, "Juan", "Perez", UserRole.CLIENT, UserStatus.INACTIVE);
+        User luis = save(971000, "Luis", "Sosa", UserRole.TRAINER, UserStatus.ACTIVE);
+        saveHidden();
+
+        SqlCapture.start();
+        List<UserSearchItemDTO> first = search("", 0L);
+        List<String> sql = SqlCapture.stop();
+        List<UserSearchItemDTO> second = search("perez juan", juan.getId());
+
+        assertEquals(List.of(ana.getId(), juan.getId()), first.stream().map(UserSearchItemDTO::getId).toList());
+        assertEquals(List.of(luis.getId()), second.stream().map(UserSearchItemDTO::getId).toList());
+        assertRendersIndexExpression(sql, UserRepository.SORT_NAME_SQL);
+    }
+
+    @Test
+    void searchPageByTerm_matchesNameSubstringOrDniPrefix() {
+        User ana = save(970001, "Ana", "Diaz", UserRole.CLIENT, UserStatus.ACTIVE);
+        User juan = save(970012, "Juan", "Perez", UserRole.CLIENT, UserStatus.INACTIVE);
+        save(971000, "Luis", "Sosa", UserRole.TRAINER, UserStatus.ACTIVE);
+        saveHidden();
+
+        List<UserSearchItemDTO> byName = searchByTerm("%n p%", null);
+        SqlCapture.start();
+        List<UserSearchItemDTO> byDni = searchByTerm("%9700%", "9700%");
+        List<String> sql = SqlCapture.stop();
+
+        assertEquals(List.of(juan.getId()), byName.stream().map(UserSearchItemDTO::getId).toList());
+        assertEquals(List.of(ana.getId(), juan.getId()), byDni.stream().map(UserSearchItemDTO::getId).toList());
+        assertRendersIndexExpression(sql, UserRepository.SEARCH_NAME_SQL);
+        assertRendersIndexExpression(sql, UserRepository.SEARCH_DNI_SQL);
+        assertRendersIndexExpression(sql, UserRepository.SORT_NAME_SQL);
+    }
+
+    @Test
+    void findBirthdays_matchesMonthAndDayIgnoringYearAndSkipsPendingAndDeletedUsers() {
+        User birthday = saveBornOn(970101, LocalDate.of(1996, 5, 14), UserStatus.ACTIVE);
+        User otherYear = saveBornOn(970102, LocalDate.of(1980, 5, 14), UserStatus.INACTIVE);
+        saveBornOn(970103, LocalDate.of(1996, 5, 15), UserStatus.ACTIVE);
+        saveBornOn(970104, LocalDate.of(2000, 5, 14), UserStatus.PENDING_APPROVAL);
+        User deleted = TestData.client(970105, UserStatus.ACTIVE);
+        deleted.setBirthDate(LocalDate.of(1990, 5, 14));
+        deleted.setDeletedAt(LocalDateTime.now());
+        userRepository.save(deleted);
+        User leapDay = saveBornOn(970106, LocalDate.of(1992, 2, 29), UserStatus.ACTIVE);
+
+        assertEquals(Set.of(birthday.getId(), otherYear.getId()),
+                ids(userRepository.findBirthdays(5, List.of(14), UserStatus.PENDING_APPROVAL)));
+        assertEquals(Set.of(leapDay.getId()),
+                ids(userRepository.findBirthdays(2, List.of(28, 29), UserStatus.PENDING_APPROVAL)));
+        assertTrue(userRepository.findBirthdays(2, List.of(28), UserStatus.PENDING_APPROVAL).isEmpty());
+    }
+
+    @Test
+    void backfillBirthMonthAndDay_fillsOnlyRowsMissingTheColumns() {
+        User legacy = saveBornOn(970111, LocalDate.of(1985, 11, 3), UserStatus.ACTIVE);
+        saveBornOn(970112, LocalDate.of(1999, 7, 21), UserStatus.ACTIVE);
+        // Rows written before the columns existed
+        jdbcTemplate.update("UPDATE app_user SET birth_month = NULL, birth_day = NULL WHERE id = ?",
+                legacy.getId());
+
+        Integer updated = new TransactionTemplate(transactionManager)
+                .execute(status -> userRepository.backfillBirthMonthAndDay());
+
+        assertEquals(1, updated);
+        User backfilled = userRepository.findById(legacy.getId()).orElseThrow();
+        assertEquals(11, backfilled.getBirthMonth());
+        assertEquals(3, backfilled.getBirthDay());
+    }
+
+    private List<UserSearchItemDTO> search(String afterName, Long afterId) {
+        return userRepository.searchPage(null, null, UserRole.ADMIN, UserStatus.PENDING_APPROVAL, PROTECTED_DNIS,
+                afterName, afterId, Limit.of(2));
+    }
+
+    private List<UserSearchItemDTO> searchByTerm(String namePattern, String dniPattern) {
+        return userRepository.searchPageByTerm(namePattern, dniPattern, null, null, UserRole.ADMIN,
+                UserStatus.PENDING_APPROVAL, PROTECTED_DNIS, "", 0L, Limit.of(10));
+    }
+
+    // Admin, pending approval, protected and deleted users, all matching "9700"
+    private void saveHidden() {
+        save(970002, "Ada", "Admin", UserRole.ADMIN, UserStatus.ACTIVE);
+        save(970003, "Pia", "Pendiente", UserRole.CLIENT, UserStatus.PENDING_APPROVAL);
+        save(970004, "Pro", "Tegido", UserRole.CLIENT, UserStatus.ACTIVE);
+        User deleted = TestData.client(970005, UserStatus.INACTIVE);
+        deleted.setDeletedAt(LocalDateTime.now());
+        userRepository.save(deleted);
+    }
+
+    private User saveBornOn(int dni, LocalDate birthDate, UserStatus status) {
+        User user = TestData.client(dni, status);
+        user.setBirthDate(birthDate);
+        return userRepository.save(user);
+    }
+
+    private Set<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toSet());
+    }
+
+    private User save(int dni, String firstName, String lastName, UserRole role, UserStatus status) {
+        User user = TestData.user(dni, role);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setStatus(status);
+        return userRepository.save(user);
+    }
+
+    /**
+     * The Postgres indexes in UserService.ensureSearchIndexes only serve the
+     * query if it renders the same expression. Aliases, spacing and
+     * parentheses are ignored.
+     */
+    private void assertRendersIndexExpression(List<String> sql, String expression) {
+        String rendered = normalize(String.join("\n", sql));
+        assertTrue(rendered.contains(normalize(expression)),
+                () -> "query does not render " + expression + ": " + sql);
+    }
+
+    private String normalize(String sql) {
+        return sql.toLowerCase(Locale.ROOT)
+                .replaceAll("\\w+_\\d+\\.", "")
+                .replaceAll("[\\s()]", "");
+    }
+}
@@ -0,0 +1,94 @@
+package com.personalfit.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.repository.ActivityRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ActivityCompletionSchedulerTest {
+
+    private static final LocalDateTime NEXT_END = LocalDateTime.of(2026, 5, 25, 10, 0);
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private ActivityService activityService;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @InjectMocks
+    private ActivityCompletionScheduler scheduler;
+
+    @Test
+    void rehydrate_backfillsEndTimesBeforeCatchingUpAndArmsTheNextEnd() {
+        when(activityRepository.findEarliestEndTimeByStatus(ActivityStatus.ACTIVE)).thenReturn(Optional.of(NEXT_END));
+        ScheduledFuture<?> future = mock(ScheduledFuture.class);
+        doReturn(future).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+
+        scheduler.rehydrate();
+
+        InOrder inOrder = inOrder(activityService, activityRepository, taskScheduler);
+        inOrder.verify(activityService).backfillActivityEndTimes();
+        inOrder.verify(activityService).checkCompletedActivies();
+        inOrder.verify(activityRepository).findEarliestEndTimeByStatus(ActivityStatus.ACTIVE);
+        inOrder.verify(taskScheduler).schedule(any(Runnable.class), eq(toInstant(NEXT_END)));
+    }
+
+    @Test
+    void scheduleAt_keepsAnEarlierFiringAndReplacesALaterOne() {
+        ScheduledFuture<?> future = mock(ScheduledFuture.class);
+        doReturn(future).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+
+        scheduler.scheduleAt(NEXT_END);
+        scheduler.scheduleAt(NEXT_END.plusHours(1));
+        scheduler.scheduleAt(NEXT_END);
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+
+        scheduler.scheduleAt(NEXT_END.minusMinutes(30));
+
+        verify(future).cancel(false);
+        verify(taskScheduler).schedule(any(Runnable.class), eq(toInstant(NEXT_END.minusMinutes(30))));
+    }
+
+    @Test
+    void rehydrate_whenCompletionFails_retriesLaterInsteadOfRearming() {
+        doThrow(new IllegalStateException("db down")).when(activityService).checkCompletedActivies();
+        ScheduledFuture<?> future = mock(ScheduledFuture.class);
+        doReturn(future).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+
+        scheduler.rehydrate();
+
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        verify(activityRepository, never()).findEarliestEndTimeByStatus(any());
+    }
+
+    private Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
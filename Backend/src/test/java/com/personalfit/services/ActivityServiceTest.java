@@ -1,6 +1,13 @@
 package com.personalfit.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -11,12 +18,19 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import com.personalfit.dto.Activity.ActivityListItemDTO;
+import com.personalfit.dto.Activity.ActivityPageDTO;
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.exceptions.BusinessRuleException;
 import com.personalfit.repository.ActivityRepository;
+import com.personalfit.repository.AttendanceRepository;
 
 @ExtendWith(MockitoExtension.class)
 class ActivityServiceTest {
@@ -24,23 +38,93 @@ class ActivityServiceTest {
     @Mock
     private ActivityRepository activityRepository;
 
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private WeeklyScheduleService weeklyScheduleService;
+
     @InjectMocks
     private ActivityService activityService;
 
     @Test
-    void getAllActivitiesTypeDtoAtWeek_queriesSundayToSaturdayRange() {
-        when(activityRepository.findByDateBetween(
-                LocalDateTime.of(2026, 5, 24, 0, 0),
-                LocalDateTime.of(LocalDate.of(2026, 5, 30), LocalTime.MAX)))
-                .thenReturn(List.of());
+    void getAllActivitiesTypeDtoAtWeek_servesFromWeeklyReadModel() {
+        when(weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 27))).thenReturn(List.of());
+
+        activityService.getAllActivitiesTypeDtoAtWeek(LocalDate.of(2026, 5, 27));
 
-        activityService.getAllActivitiesTypeDtoAtWeek(LocalDate.of(2026, 5, 24));
+        verify(weeklyScheduleService).getWeek(LocalDate.of(2026, 5, 27));
+        verify(activityRepository, never()).findByDateBetween(any(), any());
+    }
+
+    @Test
+    void getActivitiesPage_fetchesOneExtraRowToReturnTheNextCursor() {
+        List<ActivityListItemDTO> rows = List.of(
+                buildListItem(1L, LocalDateTime.of(2026, 5, 25, 9, 0)),
+                buildListItem(2L, LocalDateTime.of(2026, 5, 25, 10, 0)),
+                buildListItem(3L, LocalDateTime.of(2026, 5, 25, 11, 0)));
+        when(activityRepository.findListingPageByStatus(LocalDate.EPOCH.atStartOfDay(),
+                LocalDate.of(9999, 12, 31).atTime(LocalTime.MAX), ActivityStatus.ACTIVE,
+                LocalDate.EPOCH.atStartOfDay(), 0L, Limit.of(3)))
+                .thenReturn(rows);
+
+        ActivityPageDTO page = activityService.getActivitiesPage(null, null, null, ActivityStatus.ACTIVE,
+                null, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.getHasMore());
+        assertEquals(2L, page.getNextAfterId());
+        assertEquals(LocalDateTime.of(2026, 5, 25, 10, 0), page.getNextAfterDate());
+    }
 
-        ArgumentCaptor<LocalDateTime> startCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
-        ArgumentCaptor<LocalDateTime> endCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
-        verify(activityRepository).findByDateBetween(startCaptor.capture(), endCaptor.capture());
+    @Test
+    void getActivitiesPage_withTrainerAndCursor_continuesAfterTheCursorInTheRange() {
+        LocalDateTime afterDate = LocalDateTime.of(2026, 5, 25, 10, 0);
+        when(activityRepository.findListingPageByTrainer(LocalDateTime.of(2026, 5, 1, 0, 0),
+                LocalDate.of(2026, 5, 31).atTime(LocalTime.MAX), 7L, afterDate, 2L, Limit.of(21)))
+                .thenReturn(List.of(buildListItem(3L, LocalDateTime.of(2026, 5, 25, 11, 0))));
+
+        ActivityPageDTO page = activityService.getActivitiesPage(LocalDate.of(2026, 5, 1),
+                LocalDate.of(2026, 5, 31), 7L, null, afterDate, 2L, 20);
+
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.getHasMore());
+    }
+
+    @Test
+    void getActivitiesPage_rejectsHalfACursor() {
+        assertThrows(BusinessRuleException.class, () -> activityService.getActivitiesPage(null, null, null, null,
+                LocalDateTime.of(2026, 5, 25, 10, 0), null, 20));
+    }
+
+    @Test
+    void checkCompletedActivies_closesFinishedActivitiesWithSetBasedStatements() {
+        when(attendanceRepository.markPendingAsAbsentForActivitiesEndedBy(
+                eq(AttendanceStatus.PENDING), eq(AttendanceStatus.ABSENT), eq(ActivityStatus.ACTIVE),
+                any(LocalDateTime.class))).thenReturn(5);
+        when(activityRepository.updateStatusOfActivitiesEndedBy(
+                eq(ActivityStatus.ACTIVE), eq(ActivityStatus.COMPLETED), any(LocalDateTime.class))).thenReturn(3);
+
+        activityService.checkCompletedActivies();
+
+        InOrder order = inOrder(attendanceRepository, waitlistService, activityRepository);
+        order.verify(attendanceRepository).markPendingAsAbsentForActivitiesEndedBy(
+                eq(AttendanceStatus.PENDING), eq(AttendanceStatus.ABSENT), eq(ActivityStatus.ACTIVE),
+                any(LocalDateTime.class));
+        order.verify(waitlistService).clearWaitlistsOfActivitiesEndedBy(any(LocalDateTime.class));
+        order.verify(activityRepository).updateStatusOfActivitiesEndedBy(
+                eq(ActivityStatus.ACTIVE), eq(ActivityStatus.COMPLETED), any(LocalDateTime.class));
+    }
 
-        assertEquals(LocalDateTime.of(2026, 5, 24, 0, 0), startCaptor.getValue());
-        assertEquals(LocalDateTime.of(LocalDate.of(2026, 5, 30), LocalTime.MAX), endCaptor.getValue());
+    private ActivityListItemDTO buildListItem(Long id, LocalDateTime date) {
+        return ActivityListItemDTO.builder()
+                .id(id)
+                .name("Funcional")
+                .date(date)
+                .status(ActivityStatus.ACTIVE)
+                .build();
     }
 }
@@ -0,0 +1,73 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.personalfit.dto.User.ClientImportReportDTO;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.User;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class ClientImportServiceTest extends IntegrationTest {
+
+    @Autowired
+    private ClientImportService clientImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void importClientsCsv_insertsValidRowsAndReportsTheRest() {
+        User existing = TestData.client(930000, UserStatus.ACTIVE);
+        existing.setFirstName("Ana");
+        existing.setLastName("Existente");
+        existing.setEmail("ana@example.com");
+        userRepository.save(existing);
+
+        String csv = String.join("\n",
+                "first_name;last_name;email;dni;birth_date;address;phone",
+                "Juan;Pérez;JUAN@example.com;930001;1990-02-28;\"Calle 1; depto 2\";342555",
+                "Juana;Pérez;otra@example.com;930001;1991-03-01;Calle 2;",
+                "Luis;Gómez;no-es-email;930002;1992-04-01;Calle 3;",
+                "Ana;Repetida;ana@example.com;930003;29/2/1992;Calle 4;",
+                "Sin;Dni;sindni@example.com;;1993-05-01;Calle 5;",
+                "Pedro;Díaz;pedro@example.com;930000;1994-06-01;Calle 6;",
+                "Marta;López;marta@example.com;930004;29/2/1992;Calle 7;");
+
+        ClientImportReportDTO report = clientImportService.importClientsCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(7, report.getTotalRows());
+        assertEquals(2, report.getCreatedCount());
+        assertEquals(5, report.getFailedCount());
+        assertEquals(List.of(3, 4, 5, 6, 7), report.getErrors().stream()
+                .map(ClientImportReportDTO.RowErrorDTO::getLine)
+                .toList());
+
+        User juan = userRepository.findByDniAndDeletedAtIsNull(930001).orElseThrow();
+        assertEquals("juan@example.com", juan.getEmail());
+        assertEquals("Calle 1; depto 2", juan.getAddress());
+        assertEquals(UserStatus.INACTIVE, juan.getStatus());
+        assertEquals("JP", juan.getAvatar());
+        assertTrue(passwordEncoder.matches("930001", juan.getPassword()));
+
+        User marta = userRepository.findByDniAndDeletedAtIsNull(930004).orElseThrow();
+        assertEquals(LocalDate.of(1992, 2, 29), marta.getBirthDate());
+        assertEquals(2, marta.getBirthMonth());
+        assertEquals(29, marta.getBirthDay());
+    }
+}
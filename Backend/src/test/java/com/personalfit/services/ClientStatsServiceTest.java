@@ -0,0 +1,107 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.personalfit.dto.User.ClientStatsDTO;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.Activity;
+import com.personalfit.models.Attendance;
+import com.personalfit.models.User;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.repository.AttendanceRepository;
+import com.personalfit.repository.PaymentRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class ClientStatsServiceTest extends IntegrationTest {
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private MembershipPeriodService membershipPeriodService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void getClientStats_aggregatesTheHomeScreenInOneRow() {
+        User trainer = userRepository.save(TestData.user(920000, UserRole.TRAINER));
+        User client = userRepository.save(TestData.user(920001, UserRole.CLIENT));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate monthStart = now.toLocalDate().withDayOfMonth(1);
+
+        enroll(client, trainer, "Fuerza", monthStart.atTime(8, 0), AttendanceStatus.PRESENT);
+        enroll(client, trainer, "Fuerza", monthStart.atTime(9, 0), AttendanceStatus.LATE);
+        enroll(client, trainer, "Fuerza", monthStart.atTime(10, 0), AttendanceStatus.ABSENT);
+        enroll(client, trainer, "Fuerza", monthStart.minusDays(1).atTime(8, 0), AttendanceStatus.PRESENT);
+        Activity next = enroll(client, trainer, "Funcional", now.plusDays(2).withNano(0), AttendanceStatus.PENDING);
+        enroll(client, trainer, "Spinning", now.plusDays(5).withNano(0), AttendanceStatus.PENDING);
+
+        paymentRepository.save(TestData.payment(PaymentStatus.PAID, now.minusDays(1), now.plusDays(10), client));
+        membershipPeriodService.refresh(List.of(client.getId()));
+
+        ClientStatsDTO stats = clientStatsService.getClientStats(client.getId());
+
+        assertEquals(2, stats.getWeeklyActivityCount());
+        assertEquals(3, stats.getCompletedClassesCount());
+        assertEquals(next.getId(), stats.getNextClass().getId());
+        assertEquals("Funcional", stats.getNextClass().getName());
+        assertEquals(10, stats.getRemainingDays());
+        assertEquals(UserStatus.ACTIVE, stats.getMembershipStatus());
+    }
+
+    @Test
+    void getClientStats_servesFromCacheUntilTheUserIsEvicted() {
+        User trainer = userRepository.save(TestData.user(920010, UserRole.TRAINER));
+        User client = userRepository.save(TestData.user(920011, UserRole.CLIENT));
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+
+        assertEquals(0, clientStatsService.getClientStats(client.getId()).getCompletedClassesCount());
+
+        enroll(client, trainer, "Fuerza", today.plusHours(1), AttendanceStatus.PRESENT);
+        assertEquals(0, clientStatsService.getClientStats(client.getId()).getCompletedClassesCount());
+
+        clientStatsService.evict(client.getId());
+        assertEquals(1, clientStatsService.getClientStats(client.getId()).getCompletedClassesCount());
+    }
+
+    @Test
+    void getClientStats_rejectsNonClients() {
+        User trainer = userRepository.save(TestData.user(920020, UserRole.TRAINER));
+
+        assertThrows(IllegalArgumentException.class, () -> clientStatsService.getClientStats(trainer.getId()));
+    }
+
+    private Activity enroll(User client, User trainer, String name, LocalDateTime date, AttendanceStatus status) {
+        Activity activity = activityRepository.save(TestData.activity(name, trainer, date, 10));
+
+        Attendance attendance = new Attendance();
+        attendance.setUser(client);
+        attendance.setActivity(activity);
+        attendance.setAttendance(status);
+        attendanceRepository.save(attendance);
+        return activity;
+    }
+}
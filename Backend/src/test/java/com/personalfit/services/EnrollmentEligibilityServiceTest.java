@@ -0,0 +1,107 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.MembershipPeriod;
+import com.personalfit.models.User;
+import com.personalfit.repository.MembershipPeriodRepository;
+import com.personalfit.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+class EnrollmentEligibilityServiceTest {
+
+    private static final Long USER_ID = 7L;
+    private static final ZoneId ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 4, 12, 10, 0);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MembershipPeriodRepository membershipPeriodRepository;
+
+    @Mock
+    private SettingsService settingsService;
+
+    @InjectMocks
+    private EnrollmentEligibilityService enrollmentEligibilityService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(enrollmentEligibilityService, "clock",
+                Clock.fixed(NOW.atZone(ZONE).toInstant(), ZONE));
+    }
+
+    @Test
+    void canEnroll_activeUser_answersRepeatedChecksFromTheSnapshot() {
+        when(userRepository.findByIdAndDeletedAtIsNull(USER_ID))
+                .thenReturn(Optional.of(buildClient(UserStatus.ACTIVE)));
+
+        assertTrue(enrollmentEligibilityService.canEnroll(USER_ID));
+        assertTrue(enrollmentEligibilityService.canEnroll(USER_ID));
+        assertTrue(enrollmentEligibilityService.canEnroll(USER_ID));
+
+        verify(userRepository, times(1)).findByIdAndDeletedAtIsNull(USER_ID);
+        verify(membershipPeriodRepository, never()).findById(USER_ID);
+    }
+
+    @Test
+    void canEnroll_inactiveUserWithPendingPayment_allowedOnlyWithinTheGracePeriod() {
+        MembershipPeriod period = new MembershipPeriod();
+        period.setUserId(USER_ID);
+        period.setPendingSince(NOW.minusDays(3).minusHours(1));
+        when(userRepository.findByIdAndDeletedAtIsNull(USER_ID))
+                .thenReturn(Optional.of(buildClient(UserStatus.INACTIVE)));
+        when(membershipPeriodRepository.findById(USER_ID)).thenReturn(Optional.of(period));
+        when(settingsService.getPaymentGracePeriodDays()).thenReturn(3, 2);
+
+        assertTrue(enrollmentEligibilityService.canEnroll(USER_ID));
+
+        enrollmentEligibilityService.evictAll();
+
+        assertFalse(enrollmentEligibilityService.canEnroll(USER_ID));
+        verify(userRepository, times(2)).findByIdAndDeletedAtIsNull(USER_ID);
+    }
+
+    @Test
+    void canEnroll_afterStatusEviction_reloadsTheUser() {
+        when(userRepository.findByIdAndDeletedAtIsNull(USER_ID))
+                .thenReturn(Optional.of(buildClient(UserStatus.ACTIVE)))
+                .thenReturn(Optional.of(buildClient(UserStatus.INACTIVE)));
+        when(membershipPeriodRepository.findById(USER_ID)).thenReturn(Optional.empty());
+
+        assertTrue(enrollmentEligibilityService.canEnroll(USER_ID));
+
+        enrollmentEligibilityService.evict(USER_ID);
+
+        assertFalse(enrollmentEligibilityService.canEnroll(USER_ID));
+    }
+
+    private User buildClient(UserStatus status) {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setRole(UserRole.CLIENT);
+        user.setStatus(status);
+        return user;
+    }
+}
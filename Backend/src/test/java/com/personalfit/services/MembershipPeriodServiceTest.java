@@ -0,0 +1,93 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.MembershipPeriod;
+import com.personalfit.models.Payment;
+import com.personalfit.models.User;
+import com.personalfit.repository.PaymentRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class MembershipPeriodServiceTest extends IntegrationTest {
+
+    @Autowired
+    private MembershipPeriodService membershipPeriodService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void refresh_keepsLatestPaidExpirationAndPendingPaymentPerUser() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        User client = userRepository.save(TestData.client(950001, UserStatus.ACTIVE));
+        User partner = userRepository.save(TestData.client(950002, UserStatus.INACTIVE));
+
+        paymentRepository.save(TestData.payment(PaymentStatus.PAID, now.minusDays(40), now.minusDays(10), client));
+        Payment current = paymentRepository.save(TestData.payment(PaymentStatus.PAID, now.minusDays(5),
+                now.plusDays(25), client, partner));
+        paymentRepository.save(TestData.payment(PaymentStatus.EXPIRED, now.minusDays(2), now.plusDays(60), client));
+        paymentRepository.save(TestData.payment(PaymentStatus.PENDING, now.minusDays(1), now.plusDays(55), partner));
+
+        membershipPeriodService.refresh(List.of(client.getId(), partner.getId()));
+
+        MembershipPeriod clientPeriod = membershipPeriodService.getMembershipPeriod(client.getId()).orElseThrow();
+        assertEquals(now.plusDays(25), clientPeriod.getPaidThrough());
+        assertEquals(current.getId(), clientPeriod.getSourcePaymentId());
+        assertNull(clientPeriod.getPendingSince());
+        MembershipPeriod partnerPeriod = membershipPeriodService.getMembershipPeriod(partner.getId()).orElseThrow();
+        assertEquals(now.minusDays(1), partnerPeriod.getPendingSince());
+        assertEquals(Set.of(client.getId(), partner.getId()), membershipPeriodService.findUserIdsPaidThroughAtOrAfter(
+                List.of(client.getId(), partner.getId()), now.plusDays(20)));
+
+        current.setStatus(PaymentStatus.EXPIRED);
+        paymentRepository.save(current);
+        membershipPeriodService.refresh(List.of(client.getId(), partner.getId()));
+
+        assertNull(membershipPeriodService.getMembershipPeriod(partner.getId()).orElseThrow().getPaidThrough());
+        assertTrue(membershipPeriodService.findUserIdsPaidThroughAtOrAfter(
+                List.of(client.getId(), partner.getId()), now).isEmpty());
+    }
+
+    @Test
+    void rebuildAll_replacesDriftedRowsFromThePaymentTable() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        User client = userRepository.save(TestData.client(950011, UserStatus.ACTIVE));
+        User formerClient = userRepository.save(TestData.client(950012, UserStatus.INACTIVE));
+        Payment paid = paymentRepository.save(TestData.payment(PaymentStatus.PAID, now.minusDays(3), now.plusDays(27),
+                client));
+        Payment refunded = paymentRepository.save(TestData.payment(PaymentStatus.PAID, now.minusDays(3),
+                now.plusDays(27), formerClient));
+        membershipPeriodService.refresh(List.of(formerClient.getId()));
+        // Changed behind the service's back (manual SQL)
+        paymentRepository.delete(refunded);
+
+        membershipPeriodService.rebuildAll();
+
+        MembershipPeriod period = membershipPeriodService.getMembershipPeriod(client.getId()).orElseThrow();
+        assertEquals(now.plusDays(27), period.getPaidThrough());
+        assertEquals(paid.getId(), period.getSourcePaymentId());
+        assertFalse(membershipPeriodService.findUserIdsPaidThroughAtOrAfter(List.of(client.getId()),
+                now.plusDays(28)).contains(client.getId()));
+        MembershipPeriod drifted = membershipPeriodService.getMembershipPeriod(formerClient.getId()).orElseThrow();
+        assertNull(drifted.getPaidThrough());
+        assertNull(drifted.getSourcePaymentId());
+    }
+}
@@ -0,0 +1,237 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.personalfit.dto.Attendance.AttendanceSlotDTO;
+import com.personalfit.dto.Attendance.NfcScanEventDTO;
+import com.personalfit.dto.Attendance.NfcScanResultDTO;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.User;
+import com.personalfit.repository.AttendanceRepository;
+import com.personalfit.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+class NfcCheckInServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final LocalDateTime CLASS_START = LocalDateTime.of(2026, 5, 12, 18, 0);
+    private static final int DNI = 30111222;
+    private static final Set<AttendanceStatus> COMPLETED = Set.of(AttendanceStatus.PRESENT, AttendanceStatus.LATE);
+    private static final Set<AttendanceStatus> NOT_COMPLETED = Set.of(AttendanceStatus.ABSENT,
+            AttendanceStatus.PENDING);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private WorkShiftService workShiftService;
+
+    @Mock
+    private UserActivityStatsService userActivityStatsService;
+
+    @InjectMocks
+    private NfcCheckInService nfcCheckInService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(nfcCheckInService, "clock",
+                Clock.fixed(CLASS_START.withHour(9).atZone(ZONE).toInstant(), ZONE));
+
+        User client = buildClient(1L);
+        when(userRepository.findAllByDeletedAtIsNull()).thenReturn(List.of(client));
+        when(attendanceRepository.findSlotsByActivityDateRange(
+                CLASS_START.toLocalDate().atStartOfDay(), CLASS_START.toLocalDate().plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(buildSlot(100L, 1L, CLASS_START)));
+
+        nfcCheckInService.rebuildRoster();
+    }
+
+    @Test
+    void processScan_withinFifteenMinutes_marksPresentFromRoster() {
+        when(attendanceRepository.updateStatusIfIn(any(), any(), any(), any())).thenReturn(1);
+
+        NfcScanResultDTO result = nfcCheckInService.processScan(DNI, CLASS_START.plusMinutes(10));
+
+        assertEquals("PRESENT", result.getStatus());
+        assertEquals("Funcional", result.getActivityName());
+        verify(attendanceRepository).updateStatusIfIn(100L, AttendanceStatus.PRESENT, CLASS_START.plusMinutes(10),
+                NOT_COMPLETED);
+        verify(userActivityStatsService).onCompletedChanged(1L, true, CLASS_START);
+        verify(userRepository, never()).findByDniAndDeletedAtIsNull(DNI);
+    }
+
+    @Test
+    void processScan_afterThreshold_marksLate() {
+        when(attendanceRepository.updateStatusIfIn(any(), any(), any(), any())).thenReturn(1);
+
+        NfcScanResultDTO result = nfcCheckInService.processScan(DNI, CLASS_START.plusMinutes(20));
+
+        assertEquals("LATE", result.getStatus());
+        verify(attendanceRepository).updateStatusIfIn(100L, AttendanceStatus.LATE, CLASS_START.plusMinutes(20),
+                NOT_COMPLETED);
+    }
+
+    @Test
+    void processScan_afterLastClassEnded_marksAbsent() {
+        when(attendanceRepository.updateStatusIfIn(any(), any(), any(), any())).thenReturn(1);
+
+        NfcScanResultDTO result = nfcCheckInService.processScan(DNI, CLASS_START.plusMinutes(90));
+
+        assertEquals("ABSENT", result.getStatus());
+        verify(attendanceRepository).updateStatusIfIn(100L, AttendanceStatus.ABSENT, CLASS_START.plusMinutes(90),
+                COMPLETED);
+    }
+
+    @Test
+    void processScan_repeatedOnTheSameSide_updatesWithoutTouchingStats() {
+        when(attendanceRepository.updateStatusIfIn(any(), any(), any(), any())).thenReturn(0);
+        when(attendanceRepository.updateStatus(100L, AttendanceStatus.LATE, CLASS_START.plusMinutes(20)))
+                .thenReturn(1);
+
+        NfcScanResultDTO result = nfcCheckInService.processScan(DNI, CLASS_START.plusMinutes(20));
+
+        assertEquals("LATE", result.getStatus());
+        verify(userActivityStatsService, never()).onCompletedChanged(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void processBatch_appliesEachScanAtItsOwnTimestampInScanOrder() {
+        when(attendanceRepository.updateStatusIfIn(any(), any(), any(), any())).thenReturn(1);
+        when(userRepository.findByDniAndDeletedAtIsNull(99)).thenReturn(Optional.empty());
+
+        List<NfcScanResultDTO> results = nfcCheckInService.processBatch(List.of(
+                NfcScanEventDTO.builder().dni(DNI).scannedAt(CLASS_START.plusMinutes(25)).build(),
+                NfcScanEventDTO.builder().dni(99).scannedAt(CLASS_START.minusMinutes(5)).build()));
+
+        assertEquals(2, results.size());
+        assertEquals(NfcScanResultDTO.NOT_FOUND, results.get(0).getStatus());
+        assertEquals("LATE", results.get(1).getStatus());
+        assertEquals(CLASS_START.plusMinutes(25), results.get(1).getScannedAt());
+        verify(attendanceRepository).updateStatusIfIn(100L, AttendanceStatus.LATE, CLASS_START.plusMinutes(25),
+                NOT_COMPLETED);
+    }
+
+    @Test
+    void processScan_unknownDni_fallsBackToDatabaseAndReportsNotFound() {
+        when(userRepository.findByDniAndDeletedAtIsNull(99)).thenReturn(Optional.empty());
+
+        NfcScanResultDTO result = nfcCheckInService.processScan(99, CLASS_START);
+
+        assertFalse(result.getSuccess());
+        assertEquals(NfcScanResultDTO.NOT_FOUND, result.getStatus());
+    }
+
+    @Test
+    void processScan_withNoClassesInTheRoster_reloadsTheMembersSlots() {
+        // The enrollment committed after the rebuild had read today's slots
+        when(attendanceRepository.findSlotsByActivityDateRange(
+                CLASS_START.toLocalDate().atStartOfDay(), CLASS_START.toLocalDate().plusDays(1).atStartOfDay()))
+                .thenReturn(List.of());
+        nfcCheckInService.rebuildRoster();
+        when(userRepository.findByDniAndDeletedAtIsNull(DNI)).thenReturn(Optional.of(buildClient(1L)));
+        when(attendanceRepository.findSlotsByUserIdAndActivityDateRange(1L,
+                CLASS_START.toLocalDate().atStartOfDay(), CLASS_START.toLocalDate().plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(buildSlot(100L, 1L, CLASS_START)));
+        when(attendanceRepository.updateStatusIfIn(any(), any(), any(), any())).thenReturn(1);
+
+        NfcScanResultDTO result = nfcCheckInService.processScan(DNI, CLASS_START.plusMinutes(10));
+
+        assertEquals("PRESENT", result.getStatus());
+        verify(attendanceRepository).updateStatusIfIn(100L, AttendanceStatus.PRESENT, CLASS_START.plusMinutes(10),
+                NOT_COMPLETED);
+    }
+
+    @Test
+    void processScan_forAWalkInWithNoClasses_readsTheDatabaseOnlyOnce() {
+        when(attendanceRepository.findSlotsByActivityDateRange(
+                CLASS_START.toLocalDate().atStartOfDay(), CLASS_START.toLocalDate().plusDays(1).atStartOfDay()))
+                .thenReturn(List.of());
+        nfcCheckInService.rebuildRoster();
+        when(userRepository.findByDniAndDeletedAtIsNull(DNI)).thenReturn(Optional.of(buildClient(1L)));
+        when(attendanceRepository.findSlotsByUserIdAndActivityDateRange(1L,
+                CLASS_START.toLocalDate().atStartOfDay(), CLASS_START.toLocalDate().plusDays(1).atStartOfDay()))
+                .thenReturn(List.of());
+
+        NfcScanResultDTO first = nfcCheckInService.processScan(DNI, CLASS_START.plusMinutes(10));
+        NfcScanResultDTO second = nfcCheckInService.processScan(DNI, CLASS_START.plusMinutes(20));
+
+        assertFalse(first.getSuccess());
+        assertFalse(second.getSuccess());
+        verify(userRepository).findByDniAndDeletedAtIsNull(DNI);
+        verify(attendanceRepository).findSlotsByUserIdAndActivityDateRange(any(), any(), any());
+    }
+
+    @Test
+    void onUserChanged_evictsTheMemberSoTheNextScanReloadsIt() {
+        User trainer = buildClient(1L);
+        trainer.setRole(UserRole.TRAINER);
+        when(userRepository.findByDniAndDeletedAtIsNull(DNI)).thenReturn(Optional.of(trainer));
+        when(userRepository.getReferenceById(1L)).thenReturn(trainer);
+        when(workShiftService.processCheckInCheckOut(trainer, CLASS_START)).thenReturn("CHECK_IN");
+
+        nfcCheckInService.onUserChanged(DNI);
+        NfcScanResultDTO result = nfcCheckInService.processScan(DNI, CLASS_START);
+
+        assertEquals("CHECK_IN", result.getStatus());
+        verify(userRepository).findByDniAndDeletedAtIsNull(DNI);
+        verify(attendanceRepository, never()).updateStatusIfIn(any(), any(), any(), any());
+    }
+
+    @Test
+    void onUserChanged_forADeletedUser_reportsNotFound() {
+        when(userRepository.findByDniAndDeletedAtIsNull(DNI)).thenReturn(Optional.empty());
+
+        nfcCheckInService.onUserChanged(DNI);
+        NfcScanResultDTO result = nfcCheckInService.processScan(DNI, CLASS_START);
+
+        assertEquals(NfcScanResultDTO.NOT_FOUND, result.getStatus());
+    }
+
+    private User buildClient(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setDni(DNI);
+        user.setFirstName("Cliente");
+        user.setLastName(String.valueOf(id));
+        user.setRole(UserRole.CLIENT);
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
+    }
+
+    private AttendanceSlotDTO buildSlot(Long attendanceId, Long userId, LocalDateTime start) {
+        return AttendanceSlotDTO.builder()
+                .attendanceId(attendanceId)
+                .userId(userId)
+                .activityId(10L)
+                .activityName("Funcional")
+                .activityDate(start)
+                .duration(60)
+                .build();
+    }
+}
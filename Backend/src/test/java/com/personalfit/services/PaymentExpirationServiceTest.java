@@ -0,0 +1,190 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.personalfit.dto.Payment.InactiveClientsPaymentRequestDTO;
+import com.personalfit.dto.Payment.PaymentExpirationProgressDTO;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.Payment;
+import com.personalfit.models.Settings;
+import com.personalfit.models.User;
+import com.personalfit.repository.PaymentRepository;
+import com.personalfit.repository.SettingsRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class PaymentExpirationServiceTest extends IntegrationTest {
+
+    @Autowired
+    private PaymentExpirationService paymentExpirationService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SettingsRepository settingsRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private Clock clock;
+
+    private LocalDateTime now;
+    private YearMonth cycle;
+    private LocalDateTime cycleTenth;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now(clock).truncatedTo(ChronoUnit.MINUTES);
+        cycle = PaymentExpirationService.currentCycle(now.toLocalDate());
+        cycleTenth = cycle.atDay(10).atStartOfDay();
+    }
+
+    @Test
+    void runExpiration_expiresHistoricalPendingPaymentsWithoutSideEffects() {
+        User first = userRepository.save(TestData.client(940001, UserStatus.INACTIVE));
+        User second = userRepository.save(TestData.client(940002, UserStatus.INACTIVE));
+        Payment historicalGroup = paymentRepository.save(payment(PaymentStatus.PENDING, now.minusDays(1),
+                first, second));
+        Payment currentPeriod = paymentRepository.save(payment(PaymentStatus.PENDING,
+                cycleTenth.plusMonths(1), first));
+        Payment future = paymentRepository.save(payment(PaymentStatus.PENDING, cycleTenth.plusMonths(2), first));
+
+        paymentExpirationService.runExpiration();
+
+        Payment expired = paymentRepository.findAllByUserIdWithDetails(first.getId()).stream()
+                .filter(payment -> payment.getId().equals(historicalGroup.getId()))
+                .findFirst().orElseThrow();
+        assertEquals(PaymentStatus.EXPIRED, expired.getStatus());
+        assertNotNull(expired.getUpdatedAt());
+        assertNull(expired.getVerifiedAt());
+        assertTrue(paymentRepository.existsByPaymentIdAndUserId(historicalGroup.getId(), second.getId()));
+        assertEquals(PaymentStatus.PENDING,
+                paymentRepository.findById(currentPeriod.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.PENDING, paymentRepository.findById(future.getId()).orElseThrow().getStatus());
+        assertEquals(UserStatus.INACTIVE, userRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertTrue(paymentRepository.findUserIdsWithPaymentStatus(List.of(second), PaymentStatus.PENDING).isEmpty());
+    }
+
+    @Test
+    void runExpiration_whenRunTwice_doesNotTouchAlreadyExpiredPayments() {
+        User client = userRepository.save(TestData.client(940011, UserStatus.INACTIVE));
+        Payment pending = paymentRepository.save(payment(PaymentStatus.PENDING, now.minusDays(1), client));
+
+        paymentExpirationService.runExpiration();
+        LocalDateTime firstUpdate = paymentRepository.findById(pending.getId()).orElseThrow().getUpdatedAt();
+        paymentExpirationService.runExpiration();
+
+        Payment reloaded = paymentRepository.findById(pending.getId()).orElseThrow();
+        assertEquals(PaymentStatus.EXPIRED, reloaded.getStatus());
+        assertEquals(firstUpdate, reloaded.getUpdatedAt());
+    }
+
+    @Test
+    void runExpiration_afterExpiringHistoricalPendingPayment_unblocksInactiveGroupLoad() {
+        User admin = TestData.user(940031, UserRole.ADMIN);
+        admin.setEmail("admin.940031@personalfit.test");
+        userRepository.save(admin);
+        User client = userRepository.save(TestData.client(940032, UserStatus.INACTIVE));
+        paymentRepository.save(payment(PaymentStatus.PENDING, now.minusDays(1), client));
+
+        paymentExpirationService.runExpiration();
+        Payment newPayment = paymentService.createInactiveClientsPayment(InactiveClientsPaymentRequestDTO.builder()
+                .clientDnis(List.of(client.getDni()))
+                .expectedMonthlyFee(settingsService.getMonthlyFeeStrict())
+                .build(), admin.getEmail());
+
+        assertEquals(PaymentStatus.PAID, newPayment.getStatus());
+        assertTrue(paymentRepository.existsByPaymentIdAndUserId(newPayment.getId(), client.getId()));
+        assertEquals(UserStatus.ACTIVE, userRepository.findById(client.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void runExpiration_deactivatesOnlyMembersWithoutAnotherActivePaidPayment() {
+        User lapsed = userRepository.save(TestData.client(940021, UserStatus.ACTIVE));
+        User renewed = userRepository.save(TestData.client(940022, UserStatus.ACTIVE));
+        User protectedClient = userRepository.save(TestData.client(
+                UserService.PROTECTED_CLIENT_DNIS.iterator().next(), UserStatus.ACTIVE));
+        User groupMember = userRepository.save(TestData.client(940023, UserStatus.ACTIVE));
+        User nextCycle = userRepository.save(TestData.client(940024, UserStatus.ACTIVE));
+
+        paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth.minusDays(2), lapsed));
+        paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth.minusDays(2), renewed));
+        paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth.plusMonths(1), renewed));
+        paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth.minusDays(2), protectedClient));
+        paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth, groupMember, lapsed));
+        // Due after the cycle's 10th: left for the next cycle even if already past
+        Payment notDue = paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth.plusDays(1), nextCycle));
+
+        PaymentExpirationProgressDTO progress = paymentExpirationService.runExpiration();
+
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(cycle.toString(), progress.getLastCompletedCycle());
+        assertTrue(progress.getPaidExpired() >= 4);
+        assertTrue(progress.getChunks() >= 2);
+        assertEquals(UserStatus.INACTIVE, userRepository.findById(lapsed.getId()).orElseThrow().getStatus());
+        assertEquals(UserStatus.INACTIVE, userRepository.findById(groupMember.getId()).orElseThrow().getStatus());
+        assertEquals(UserStatus.ACTIVE, userRepository.findById(renewed.getId()).orElseThrow().getStatus());
+        assertEquals(UserStatus.ACTIVE, userRepository.findById(protectedClient.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.PAID, paymentRepository.findById(notDue.getId()).orElseThrow().getStatus());
+        assertEquals(UserStatus.ACTIVE, userRepository.findById(nextCycle.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void resumeIncompleteCycle_withNoCycleRecorded_recordsTheCurrentCycleWithoutRunning() {
+        settingsRepository.findByKey(PaymentExpirationService.LAST_CYCLE_KEY).ifPresent(settingsRepository::delete);
+        User client = userRepository.save(TestData.client(940041, UserStatus.INACTIVE));
+        Payment pending = paymentRepository.save(payment(PaymentStatus.PENDING, now.minusDays(1), client));
+
+        paymentExpirationService.resumeIncompleteCycle();
+
+        assertEquals(cycle.toString(), settingsRepository.findByKey(PaymentExpirationService.LAST_CYCLE_KEY)
+                .map(Settings::getValue).orElseThrow());
+        assertEquals(PaymentStatus.PENDING, paymentRepository.findById(pending.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void resumeIncompleteCycle_afterAMissedCycle_runsWithThatCyclesCutoff() {
+        Settings lastCycle = settingsRepository.findByKey(PaymentExpirationService.LAST_CYCLE_KEY)
+                .orElseGet(() -> new Settings(PaymentExpirationService.LAST_CYCLE_KEY, "", null));
+        lastCycle.setValue(cycle.minusMonths(1).toString());
+        settingsRepository.save(lastCycle);
+        User lapsed = userRepository.save(TestData.client(940051, UserStatus.ACTIVE));
+        User nextCycle = userRepository.save(TestData.client(940052, UserStatus.ACTIVE));
+        Payment due = paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth, lapsed));
+        Payment notDue = paymentRepository.save(payment(PaymentStatus.PAID, cycleTenth.plusDays(1), nextCycle));
+
+        paymentExpirationService.resumeIncompleteCycle();
+
+        assertEquals(PaymentStatus.EXPIRED, paymentRepository.findById(due.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.PAID, paymentRepository.findById(notDue.getId()).orElseThrow().getStatus());
+        assertEquals(cycle.toString(), paymentExpirationService.getProgress().getLastCompletedCycle());
+    }
+
+    private Payment payment(PaymentStatus status, LocalDateTime expiresAt, User... users) {
+        return TestData.payment(status, expiresAt.minusMonths(1), expiresAt, users);
+    }
+}
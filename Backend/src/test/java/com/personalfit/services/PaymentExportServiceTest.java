@@ -0,0 +1,84 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.personalfit.enums.MethodType;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.models.Payment;
+import com.personalfit.models.User;
+import com.personalfit.repository.PaymentRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class PaymentExportServiceTest extends IntegrationTest {
+
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void writeCsv_writesOnePaymentPerLineWithItsClientsInsideTheRange() throws IOException {
+        User ana = userRepository.save(client(960001, "Ana", "Pérez"));
+        User luis = userRepository.save(client(960002, "Luis", "=Gómez; hijo"));
+        Payment group = paymentRepository.save(payment(LocalDateTime.of(2024, 3, 5, 10, 30), 50000.0,
+                ana, luis));
+        Payment single = payment(LocalDateTime.of(2025, 1, 31, 23, 59), 25000.5, ana);
+        single.setConfNumber(9876543210L);
+        single = paymentRepository.save(single);
+        paymentRepository.save(payment(LocalDateTime.of(2025, 2, 1, 0, 0), 25000.0, ana));
+        paymentRepository.save(payment(LocalDateTime.of(2024, 3, 4, 23, 59), 25000.0, luis));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int written = paymentExportService.writeCsv(LocalDate.of(2024, 3, 5), LocalDate.of(2025, 1, 31), output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, written);
+        assertEquals(3, lines.size());
+        assertEquals("\uFEFFid;fecha;vencimiento;verificado;estado;metodo;monto;nro_comprobante;"
+                + "cantidad_clientes;clientes;dnis", lines.get(0));
+        assertEquals(group.getId() + ";2024-03-05T10:30;2024-04-10T00:00;;PAID;CASH;50000;;2;"
+                + "\"'=Gómez; hijo Luis | Pérez Ana\";960002 | 960001", lines.get(1));
+        assertEquals(single.getId() + ";2025-01-31T23:59;2025-02-10T00:00;;PAID;CASH;25000.5;9876543210;1;"
+                + "Pérez Ana;960001", lines.get(2));
+    }
+
+    @Test
+    void writeCsv_rejectsAnInvertedRange() {
+        assertThrows(BusinessRuleException.class, () -> paymentExportService.writeCsv(LocalDate.of(2025, 2, 1),
+                LocalDate.of(2025, 1, 1), new ByteArrayOutputStream()));
+    }
+
+    private Payment payment(LocalDateTime createdAt, Double amount, User... users) {
+        Payment payment = TestData.payment(PaymentStatus.PAID, createdAt,
+                createdAt.toLocalDate().withDayOfMonth(10).plusMonths(1).atStartOfDay(), users);
+        payment.setAmount(amount);
+        payment.setMethodType(MethodType.CASH);
+        return payment;
+    }
+
+    private User client(int dni, String firstName, String lastName) {
+        User user = TestData.client(dni, UserStatus.ACTIVE);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return user;
+    }
+}
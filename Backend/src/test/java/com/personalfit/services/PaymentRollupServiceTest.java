@@ -0,0 +1,122 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.personalfit.dto.Payment.PaymentDashboardDTO;
+import com.personalfit.enums.MethodType;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.models.Payment;
+import com.personalfit.models.PaymentRollup;
+import com.personalfit.repository.PaymentRepository;
+import com.personalfit.repository.PaymentRollupRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class PaymentRollupServiceTest extends IntegrationTest {
+
+    private static final LocalDateTime MARCH = LocalDateTime.of(2025, 3, 5, 10, 0);
+    private static final LocalDateTime JUNE = LocalDateTime.of(2024, 6, 12, 18, 0);
+
+    @Autowired
+    private PaymentRollupService paymentRollupService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentRollupRepository paymentRollupRepository;
+
+    @Test
+    void deltas_matchAFullRebuildAndKeepExpiredPaidPaymentsCollected() {
+        Payment paidCash = create(PaymentStatus.PAID, MethodType.CASH, 25000.0);
+        Payment approved = create(PaymentStatus.PENDING, MethodType.TRANSFER, 30000.0);
+        Payment rejected = create(PaymentStatus.PENDING, MethodType.TRANSFER, 30000.0);
+        create(PaymentStatus.PENDING, MethodType.CASH, 20000.0);
+
+        review(approved, PaymentStatus.PAID);
+        review(rejected, PaymentStatus.REJECTED);
+        paidCash.setStatus(PaymentStatus.EXPIRED);
+        paymentRepository.save(paidCash);
+        paymentRollupService.onBulkStatusChanged(List.of(paidCash.getId()), PaymentStatus.PAID,
+                PaymentStatus.EXPIRED);
+
+        PaymentDashboardDTO incremental = paymentRollupService.getDashboard(2025, 3);
+
+        assertEquals(2L, incremental.getCollectedCount());
+        assertEquals(55000.0, incremental.getCollectedAmount());
+        assertEquals(1L, incremental.getPendingCount());
+        assertEquals(1L, incremental.getRejectedCount());
+        assertEquals(0L, incremental.getExpiredUnpaidCount());
+        assertEquals(50.0, incremental.getCollectionRate());
+        assertEquals(List.of(
+                new PaymentDashboardDTO.MethodTotalsDTO(MethodType.CASH, 1L, 25000.0),
+                new PaymentDashboardDTO.MethodTotalsDTO(MethodType.TRANSFER, 1L, 30000.0)),
+                incremental.getCollectedByMethod());
+        assertEquals(1L, incremental.getBacklogCount());
+        assertEquals(20000.0, incremental.getBacklogAmount());
+
+        paymentRollupService.rebuildAll();
+
+        assertEquals(incremental, paymentRollupService.getDashboard(2025, 3));
+    }
+
+    @Test
+    void rebuildAll_correctsDriftedBucketsInPlace() {
+        create(PaymentStatus.PAID, MethodType.TRANSFER, 18000.0, JUNE);
+        Payment removed = create(PaymentStatus.PAID, MethodType.CASH, 12000.0, JUNE);
+        // Changed behind the service's back (manual SQL)
+        paymentRepository.delete(removed);
+
+        paymentRollupService.rebuildAll();
+
+        PaymentDashboardDTO rebuilt = paymentRollupService.getDashboard(2024, 6);
+        assertEquals(1L, rebuilt.getCollectedCount());
+        assertEquals(18000.0, rebuilt.getCollectedAmount());
+        assertEquals(List.of(new PaymentDashboardDTO.MethodTotalsDTO(MethodType.TRANSFER, 1L, 18000.0)),
+                rebuilt.getCollectedByMethod());
+    }
+
+    @Test
+    void paymentsWithoutMethod_shareOneBucket() {
+        create(PaymentStatus.PENDING, null, 10000.0);
+        create(PaymentStatus.PENDING, null, 15000.0);
+
+        List<PaymentRollup> buckets = paymentRollupRepository.findByMonthStart(MARCH.toLocalDate().withDayOfMonth(1));
+        assertEquals(1, buckets.size());
+        assertEquals(2L, buckets.get(0).getPaymentCount());
+
+        PaymentRollup duplicate = new PaymentRollup();
+        duplicate.setMonthStart(MARCH.toLocalDate().withDayOfMonth(1));
+        duplicate.setStatus(PaymentStatus.PENDING);
+        assertThrows(DataIntegrityViolationException.class, () -> paymentRollupRepository.saveAndFlush(duplicate));
+    }
+
+    private Payment create(PaymentStatus status, MethodType method, Double amount) {
+        return create(status, method, amount, MARCH);
+    }
+
+    private Payment create(PaymentStatus status, MethodType method, Double amount, LocalDateTime createdAt) {
+        Payment payment = TestData.payment(status, createdAt, createdAt.withDayOfMonth(10).plusMonths(1));
+        payment.setAmount(amount);
+        payment.setMethodType(method);
+        payment.setVerifiedAt(status == PaymentStatus.PAID ? createdAt : null);
+        payment = paymentRepository.save(payment);
+        paymentRollupService.onPaymentCreated(payment);
+        return payment;
+    }
+
+    private void review(Payment payment, PaymentStatus status) {
+        payment.setStatus(status);
+        payment.setVerifiedAt(MARCH.plusDays(1));
+        paymentRepository.save(payment);
+        paymentRollupService.onStatusChanged(payment, PaymentStatus.PENDING);
+    }
+}
@@ -1,6 +1,7 @@
 package com.personalfit.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -15,6 +16,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.time.Clock;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.nio.file.Files;
@@ -39,12 +41,14 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 
 import com.personalfit.dto.Payment.InactiveClientsPaymentRequestDTO;
 import com.personalfit.dto.Payment.ManualPaymentRequestDTO;
+import com.personalfit.dto.Payment.PaymentFileContentDTO;
 import com.personalfit.dto.Payment.PaymentStatusUpdateDTO;
 import com.personalfit.enums.MethodType;
 import com.personalfit.enums.PaymentStatus;
 import com.personalfit.enums.UserRole;
 import com.personalfit.enums.UserStatus;
 import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.exceptions.FileException;
 import com.personalfit.models.Payment;
 import com.personalfit.models.PaymentFile;
 import com.personalfit.models.User;
@@ -75,6 +79,18 @@ class PaymentServiceTest {
     @Mock
     private Clock clock;
 
+    @Mock
+    private ClientStatsService clientStatsService;
+
+    @Mock
+    private ReceiptCompressionService receiptCompressionService;
+
+    @Mock
+    private MembershipPeriodService membershipPeriodService;
+
+    @Mock
+    private PaymentRollupService paymentRollupService;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -155,9 +171,9 @@ class PaymentServiceTest {
         when(userService.getUsersByDniForUpdate(List.of(client.getDni()))).thenReturn(List.of(client));
         when(paymentRepository.findTopByUserAndStatusOrderByCreatedAtDesc(client, PaymentStatus.PENDING))
                 .thenReturn(Optional.empty());
-        when(paymentRepository.findUserIdsWithPaymentStatusExpiringAtOrAfter(
-                List.of(client), PaymentStatus.PAID, LocalDateTime.of(2026, 5, 10, 0, 0)))
-                .thenReturn(List.of(client.getId()));
+        when(membershipPeriodService.findUserIdsPaidThroughAtOrAfter(
+                List.of(client.getId()), LocalDateTime.of(2026, 5, 10, 0, 0)))
+                .thenReturn(Set.of(client.getId()));
 
         assertThrows(BusinessRuleException.class,
                 () -> paymentService.createPayment(request, null, ADMIN_EMAIL));
@@ -180,9 +196,9 @@ class PaymentServiceTest {
                 .thenReturn(Optional.empty());
         // El pago vigente vence el 10 de abril y, por lo tanto, no aparece en
         // esta consulta que busca cobertura para el nuevo vencimiento de mayo.
-        when(paymentRepository.findUserIdsWithPaymentStatusExpiringAtOrAfter(
-                List.of(client), PaymentStatus.PAID, LocalDateTime.of(2026, 5, 10, 0, 0)))
-                .thenReturn(List.of());
+        when(membershipPeriodService.findUserIdsPaidThroughAtOrAfter(
+                List.of(client.getId()), LocalDateTime.of(2026, 5, 10, 0, 0)))
+                .thenReturn(Set.of());
         when(settingsService.getMonthlyFeeStrict()).thenReturn(30000.0);
         when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -220,6 +236,7 @@ class PaymentServiceTest {
         verify(userService).updateUserStatus(firstClient, UserStatus.ACTIVE);
         verify(userService).updateUserStatus(secondClient, UserStatus.ACTIVE);
         verify(paymentRepository).save(existingPayment);
+        verify(paymentRollupService).onStatusChanged(existingPayment, PaymentStatus.PENDING);
         assertEquals(admin, existingPayment.getVerifiedBy());
         assertNotNull(existingPayment.getVerifiedAt());
     }
@@ -395,6 +412,29 @@ class PaymentServiceTest {
         verify(paymentFileRepository).save(any(PaymentFile.class));
     }
 
+    @Test
+    void getFileResource_streamsFromDiskWithETagThatChangesWhenTheFileIsReplaced() throws IOException {
+        Path receipt = Files.write(uploadDirectory.resolve("receipt.pdf"), "receipt-content".getBytes());
+        PaymentFile file = PaymentFile.builder()
+                .id(70L)
+                .fileName("receipt.pdf")
+                .contentType("application/pdf")
+                .filePath(receipt.toString())
+                .build();
+
+        PaymentFileContentDTO first = paymentService.getFileResource(file);
+        assertEquals(15, first.getResource().contentLength());
+        assertEquals("receipt.pdf", first.getFileName());
+
+        Files.write(receipt, "replaced".getBytes());
+        PaymentFileContentDTO second = paymentService.getFileResource(file);
+
+        assertNotEquals(first.getEtag(), second.getEtag());
+
+        Files.delete(receipt);
+        assertThrows(FileException.class, () -> paymentService.getFileResource(file));
+    }
+
     @Test
     void createPayment_whenTransactionRollsBack_removesCopiedReceipt() throws IOException {
         User client = buildClient(41L, 30666666);
@@ -522,130 +562,6 @@ class PaymentServiceTest {
         verify(paymentRepository, never()).save(any(Payment.class));
     }
 
-    // ===== Vencimiento automático de pagos =====
-
-    @Test
-    void checkPaidPayments_withHistoricalPendingPayment_expiresWithoutSideEffects() {
-        LocalDateTime now = LocalDateTime.of(2026, 4, 5, 10, 0);
-        User client = buildClient(11L, 30111111);
-        Payment pendingPayment = Payment.builder()
-                .id(100L)
-                .status(PaymentStatus.PENDING)
-                .expiresAt(now.minusDays(1))
-                .users(Set.of(client))
-                .build();
-        mockPendingExpirationQuery(List.of(pendingPayment));
-
-        paymentService.checkPaidPayments();
-
-        assertEquals(PaymentStatus.EXPIRED, pendingPayment.getStatus());
-        assertEquals(now, pendingPayment.getUpdatedAt());
-        assertNull(pendingPayment.getVerifiedAt());
-        assertNull(pendingPayment.getVerifiedBy());
-        verify(paymentRepository).saveAll(List.of(pendingPayment));
-        verify(userService, never()).updateUserStatus(any(User.class), any(UserStatus.class));
-        verify(notificationService, never()).createPaymentExpiredNotification(any(), any());
-    }
-
-    @Test
-    void checkPaidPayments_withCurrentAndFuturePendingPayments_keepsThemPending() {
-        LocalDateTime now = LocalDateTime.of(2026, 4, 5, 10, 0);
-        Payment currentPeriodPayment = Payment.builder()
-                .id(101L)
-                .status(PaymentStatus.PENDING)
-                .expiresAt(LocalDateTime.of(2026, 4, 10, 0, 0))
-                .build();
-        Payment futurePayment = Payment.builder()
-                .id(102L)
-                .status(PaymentStatus.PENDING)
-                .expiresAt(LocalDateTime.of(2026, 5, 10, 0, 0))
-                .build();
-        mockPendingExpirationQuery(List.of(currentPeriodPayment, futurePayment));
-
-        paymentService.checkPaidPayments();
-
-        assertEquals(PaymentStatus.PENDING, currentPeriodPayment.getStatus());
-        assertEquals(PaymentStatus.PENDING, futurePayment.getStatus());
-        assertNull(currentPeriodPayment.getUpdatedAt());
-        assertNull(futurePayment.getUpdatedAt());
-        verify(paymentRepository).findPendingPaymentsExpiringAtOrBefore(now);
-        verify(paymentRepository, never()).saveAll(any());
-    }
-
-    @Test
-    void checkPaidPayments_withExpiredPendingGroup_expiresOnePaymentAndPreservesLinks() {
-        User firstClient = buildClient(11L, 30111111);
-        User secondClient = buildClient(12L, 30222222);
-        Set<User> linkedClients = Set.of(firstClient, secondClient);
-        Payment groupPayment = Payment.builder()
-                .id(103L)
-                .status(PaymentStatus.PENDING)
-                .expiresAt(LocalDateTime.of(2026, 4, 1, 0, 0))
-                .users(linkedClients)
-                .build();
-        mockPendingExpirationQuery(List.of(groupPayment));
-
-        paymentService.checkPaidPayments();
-
-        assertEquals(PaymentStatus.EXPIRED, groupPayment.getStatus());
-        assertEquals(linkedClients, groupPayment.getUsers());
-        verify(paymentRepository, times(1)).saveAll(List.of(groupPayment));
-        verify(userService, never()).updateUserStatus(any(User.class), any(UserStatus.class));
-    }
-
-    @Test
-    void checkPaidPayments_whenRunTwice_doesNotModifyAlreadyExpiredPendingPayment() {
-        LocalDateTime firstRun = LocalDateTime.of(2026, 4, 5, 10, 0);
-        Payment pendingPayment = Payment.builder()
-                .id(104L)
-                .status(PaymentStatus.PENDING)
-                .expiresAt(firstRun.minusDays(1))
-                .build();
-        mockPendingExpirationQuery(List.of(pendingPayment));
-
-        paymentService.checkPaidPayments();
-        mockCurrentTime(firstRun.plusDays(1));
-        paymentService.checkPaidPayments();
-
-        assertEquals(PaymentStatus.EXPIRED, pendingPayment.getStatus());
-        assertEquals(firstRun, pendingPayment.getUpdatedAt());
-        verify(paymentRepository, times(1)).saveAll(any());
-    }
-
-    @Test
-    void checkPaidPayments_afterExpiringHistoricalPendingPayment_unblocksInactiveGroupLoad() {
-        User admin = buildAdmin(1L, 20111111, ADMIN_EMAIL);
-        User client = buildClient(11L, 30111111);
-        Payment historicalPayment = Payment.builder()
-                .id(105L)
-                .status(PaymentStatus.PENDING)
-                .expiresAt(LocalDateTime.of(2026, 4, 1, 0, 0))
-                .users(Set.of(client))
-                .build();
-        mockPendingExpirationQuery(List.of(historicalPayment));
-
-        paymentService.checkPaidPayments();
-        verify(userService, never()).updateUserStatus(any(User.class), any(UserStatus.class));
-
-        InactiveClientsPaymentRequestDTO request = InactiveClientsPaymentRequestDTO.builder()
-                .clientDnis(List.of(client.getDni()))
-                .expectedMonthlyFee(25000.0)
-                .build();
-        when(userService.getUserByEmail(ADMIN_EMAIL)).thenReturn(admin);
-        when(userService.getUsersByDniForUpdate(List.of(client.getDni()))).thenReturn(List.of(client));
-        when(paymentRepository.findUserIdsWithPaymentStatus(List.of(client), PaymentStatus.PENDING))
-                .thenAnswer(invocation -> historicalPayment.getStatus() == PaymentStatus.PENDING
-                        ? List.of(client.getId())
-                        : List.of());
-        when(settingsService.getMonthlyFeeStrict()).thenReturn(25000.0);
-        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        Payment newPayment = paymentService.createInactiveClientsPayment(request, ADMIN_EMAIL);
-
-        assertEquals(PaymentStatus.PAID, newPayment.getStatus());
-        assertEquals(Set.of(client), newPayment.getUsers());
-    }
-
     // ===== Carga rápida de pagos para clientes inactivos =====
 
     @Test
@@ -982,16 +898,30 @@ class PaymentServiceTest {
                 () -> paymentService.getAuthorizedPaymentFile(paymentFile.getId(), outsider.getEmail()));
     }
 
-    private void mockPendingExpirationQuery(List<Payment> candidates) {
-        when(paymentRepository.findPendingPaymentsExpiringAtOrBefore(any(LocalDateTime.class)))
-                .thenAnswer(invocation -> {
-                    LocalDateTime cutoff = invocation.getArgument(0);
-                    return candidates.stream()
-                            .filter(payment -> payment.getStatus() == PaymentStatus.PENDING)
-                            .filter(payment -> payment.getExpiresAt() != null)
-                            .filter(payment -> !payment.getExpiresAt().isAfter(cutoff))
-                            .toList();
-                });
+    @Test
+    void sendPaymentReminders_remindsOnlyUsersWithoutTheNextFeeLoaded() {
+        User dueClient = buildClient(81L, 30818181);
+        User alreadyPaidClient = buildClient(82L, 30828282);
+        Payment duePayment = Payment.builder()
+                .id(80L)
+                .amount(25000.0)
+                .status(PaymentStatus.PAID)
+                .expiresAt(LocalDateTime.of(2026, 4, 8, 0, 0))
+                .users(Set.of(dueClient, alreadyPaidClient))
+                .build();
+
+        when(paymentRepository.findByStatusExpiringBetweenWithUsers(PaymentStatus.PAID,
+                LocalDateTime.of(2026, 4, 8, 0, 0), LocalDateTime.of(2026, 4, 9, 0, 0)))
+                .thenReturn(List.of(duePayment));
+        when(paymentRepository.findUserIdsWithLaterPayment(List.of(80L),
+                List.of(PaymentStatus.PAID, PaymentStatus.PENDING)))
+                .thenReturn(Set.of(alreadyPaidClient.getId()));
+
+        paymentService.sendPaymentReminders();
+
+        verify(notificationService).sendPaymentDueReminder(dueClient, 25000.0, LocalDate.of(2026, 4, 8));
+        verify(notificationService, never()).sendPaymentDueReminder(eq(alreadyPaidClient), any(), any());
+        verify(paymentRepository, never()).findAll();
     }
 
     private void mockCurrentTime(LocalDateTime now) {
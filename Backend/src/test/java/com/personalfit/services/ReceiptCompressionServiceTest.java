@@ -0,0 +1,109 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.personalfit.models.PaymentFile;
+import com.personalfit.repository.PaymentFileRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ReceiptCompressionServiceTest {
+
+    @Mock
+    private PaymentFileRepository paymentFileRepository;
+
+    @InjectMocks
+    private ReceiptCompressionService receiptCompressionService;
+
+    @TempDir
+    Path uploadDirectory;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(receiptCompressionService, "maxDimension", 800);
+        ReflectionTestUtils.setField(receiptCompressionService, "jpegQuality", 0.75f);
+    }
+
+    @Test
+    void compress_reencodesLargeImageAndSwapsTheStoredFile() throws IOException {
+        BufferedImage photo = new BufferedImage(2400, 1200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < photo.getHeight(); y++) {
+            for (int x = 0; x < photo.getWidth(); x++) {
+                photo.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        Path original = uploadDirectory.resolve("payment_1.png");
+        ImageIO.write(photo, "png", original.toFile());
+        long originalSize = Files.size(original);
+
+        PaymentFile file = PaymentFile.builder()
+                .id(1L)
+                .fileName("comprobante.png")
+                .filePath(original.toString())
+                .contentType("image/png")
+                .originalSize(originalSize)
+                .compressedSize(originalSize)
+                .isCompressed(false)
+                .build();
+        when(paymentFileRepository.findById(1L)).thenReturn(Optional.of(file));
+
+        receiptCompressionService.compress(1L);
+
+        Path compressed = uploadDirectory.resolve("payment_1.jpg");
+        BufferedImage stored = ImageIO.read(compressed.toFile());
+        assertFalse(Files.exists(original));
+        assertEquals(compressed.toString(), file.getFilePath());
+        assertEquals("comprobante.jpg", file.getFileName());
+        assertEquals("image/jpeg", file.getContentType());
+        assertEquals(originalSize, file.getOriginalSize());
+        assertEquals(Files.size(compressed), file.getCompressedSize());
+        assertTrue(file.getCompressionRatio() > 0);
+        assertTrue(file.getIsCompressed());
+        assertEquals(800, stored.getWidth());
+        assertEquals(400, stored.getHeight());
+        verify(paymentFileRepository).save(file);
+    }
+
+    @Test
+    void compress_keepsPdfReceiptsAsUploaded() throws IOException {
+        Path pdf = Files.write(uploadDirectory.resolve("payment_2.pdf"), "%PDF-1.4".getBytes());
+        PaymentFile file = PaymentFile.builder()
+                .id(2L)
+                .fileName("comprobante.pdf")
+                .filePath(pdf.toString())
+                .contentType("application/pdf")
+                .isCompressed(false)
+                .build();
+        when(paymentFileRepository.findById(2L)).thenReturn(Optional.of(file));
+
+        receiptCompressionService.compress(2L);
+
+        assertTrue(Files.exists(pdf));
+        assertEquals(pdf.toString(), file.getFilePath());
+        verify(paymentFileRepository, never()).save(any(PaymentFile.class));
+    }
+}
@@ -0,0 +1,221 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.personalfit.dto.Activity.ActivityFormTypeDTO;
+import com.personalfit.dto.Activity.RecurrenceTemplateDTO;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.Activity;
+import com.personalfit.models.Attendance;
+import com.personalfit.models.RecurrenceTemplate;
+import com.personalfit.models.User;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.repository.AttendanceRepository;
+import com.personalfit.repository.RecurrenceTemplateRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class RecurrenceTemplateServiceTest extends IntegrationTest {
+
+    private static final LocalTime START_TIME = LocalTime.of(18, 0);
+
+    // Not today's weekday, so with the default 4 weeks ahead there are always
+    // exactly four occurrences, the first one tomorrow
+    private static final LocalDate FIRST_DAY = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private RecurrenceTemplateService recurrenceTemplateService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private RecurrenceTemplateRepository recurrenceTemplateRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void createTemplate_materializesWeeklyOccurrencesAndSkipsThemOnRerun() {
+        User trainer = userRepository.save(TestData.user(980001, UserRole.TRAINER));
+
+        RecurrenceTemplateDTO created = recurrenceTemplateService.createTemplate(templateDTO(trainer, 10));
+        RecurrenceTemplate template = recurrenceTemplateRepository.findById(created.getId()).orElseThrow();
+
+        assertEquals(List.of(start(0), start(1), start(2), start(3)), occurrenceDates(template.getId()));
+        assertEquals(0, recurrenceTemplateService.materialize(template));
+        assertEquals(4, occurrenceDates(template.getId()).size());
+    }
+
+    @Test
+    void materialize_matchesExistingOccurrencesByTemplateNotByName() {
+        User trainer = userRepository.save(TestData.user(980002, UserRole.TRAINER));
+        // One-off class that happens to share name, trainer and start
+        activityRepository.save(TestData.activity("Funcional", trainer, start(0), 10));
+
+        RecurrenceTemplateDTO created = recurrenceTemplateService.createTemplate(templateDTO(trainer, 10));
+        RecurrenceTemplate template = recurrenceTemplateRepository.findById(created.getId()).orElseThrow();
+        assertEquals(4, occurrenceDates(template.getId()).size());
+
+        template.setName("Funcional Avanzado");
+        recurrenceTemplateRepository.save(template);
+
+        assertEquals(0, recurrenceTemplateService.materialize(template));
+        assertEquals(4, occurrenceDates(template.getId()).size());
+    }
+
+    @Test
+    void materializeAll_doesNotRecreateADeletedOccurrence() {
+        User trainer = userRepository.save(TestData.user(980006, UserRole.TRAINER));
+        RecurrenceTemplateDTO created = recurrenceTemplateService.createTemplate(templateDTO(trainer, 10));
+
+        // A holiday
+        activityService.deleteActivity(occurrenceId(created.getId(), start(1)));
+        recurrenceTemplateService.materializeAll();
+
+        assertEquals(List.of(start(0), start(2), start(3)), occurrenceDates(created.getId()));
+    }
+
+    @Test
+    void materializeAll_doesNotAddAnOccurrenceNextToAMovedOne() {
+        User trainer = userRepository.save(TestData.user(980007, UserRole.TRAINER));
+        RecurrenceTemplateDTO created = recurrenceTemplateService.createTemplate(templateDTO(trainer, 10));
+
+        activityService.updateActivity(occurrenceId(created.getId(), start(1)),
+                moveTo(trainer, start(1).plusHours(2)));
+        activityService.updateActivity(occurrenceId(created.getId(), start(2)),
+                moveTo(trainer, start(2).plusDays(1)));
+        recurrenceTemplateService.materializeAll();
+
+        assertEquals(List.of(start(0), start(1).plusHours(2), start(2).plusDays(1), start(3)),
+                occurrenceDates(created.getId()));
+    }
+
+    @Test
+    void updateTemplate_regeneratesUnbookedOccurrencesAndUpdatesBookedOnesInPlace() {
+        User trainer = userRepository.save(TestData.user(980003, UserRole.TRAINER));
+        User client = userRepository.save(TestData.client(980004, UserStatus.ACTIVE));
+        RecurrenceTemplateDTO created = recurrenceTemplateService.createTemplate(templateDTO(trainer, 10));
+        Long bookedId = occurrenceId(created.getId(), start(0));
+        Activity booked = activityRepository.findById(bookedId).orElseThrow();
+        Attendance attendance = new Attendance();
+        attendance.setUser(client);
+        attendance.setActivity(booked);
+        attendance.setAttendance(AttendanceStatus.PENDING);
+        attendanceRepository.save(attendance);
+
+        RecurrenceTemplateDTO edit = templateDTO(trainer, 12);
+        edit.setTime(START_TIME.plusHours(1));
+        recurrenceTemplateService.updateTemplate(created.getId(), edit);
+
+        List<Map<String, Object>> occurrences = jdbcTemplate.queryForList(
+                "SELECT id, date, slots FROM activity WHERE template_id = ? ORDER BY date", created.getId());
+        assertEquals(4, occurrences.size());
+        // Kept on its booked slot, on a day no other occurrence is added to
+        assertEquals(bookedId, ((Number) occurrences.get(0).get("ID")).longValue());
+        assertEquals(start(0), ((Timestamp) occurrences.get(0).get("DATE")).toLocalDateTime());
+        occurrences.forEach(row -> assertEquals(12, ((Number) row.get("SLOTS")).intValue()));
+        assertEquals(start(1).plusHours(1), ((Timestamp) occurrences.get(1).get("DATE")).toLocalDateTime());
+    }
+
+    @Test
+    void updateTemplate_neverLeavesABookedOccurrenceWithFewerSlotsThanSeatsTaken() {
+        User trainer = userRepository.save(TestData.user(980008, UserRole.TRAINER));
+        RecurrenceTemplateDTO created = recurrenceTemplateService.createTemplate(templateDTO(trainer, 10));
+        Long bookedId = occurrenceId(created.getId(), start(0));
+        jdbcTemplate.update("UPDATE activity SET reserved_slots = 3 WHERE id = ?", bookedId);
+        jdbcTemplate.update("INSERT INTO waitlist_entry (activity_id, user_id, created_at) VALUES (?, ?, ?)",
+                bookedId, userRepository.save(TestData.client(980009, UserStatus.ACTIVE)).getId(),
+                LocalDateTime.now());
+
+        recurrenceTemplateService.updateTemplate(created.getId(), templateDTO(trainer, 2));
+
+        assertEquals(3, activityRepository.findById(bookedId).orElseThrow().getSlots());
+    }
+
+    @Test
+    void adoptLegacyRecurringActivities_linksTheChainToATemplateAndFillsTheHorizon() {
+        User trainer = userRepository.save(TestData.user(980005, UserRole.TRAINER));
+        Activity legacy = TestData.activity("Funcional", trainer, start(0), 10);
+        legacy.setRepeatEveryWeek(true);
+        legacy = activityRepository.save(legacy);
+
+        recurrenceTemplateService.adoptLegacyRecurringActivities();
+
+        List<RecurrenceTemplate> templates = recurrenceTemplateRepository.findAll();
+        assertEquals(1, templates.size());
+        RecurrenceTemplate template = templates.get(0);
+        assertEquals(FIRST_DAY.getDayOfWeek(), template.getDayOfWeek());
+        assertEquals(START_TIME, template.getStartTime());
+        assertEquals(List.of(start(0), start(1), start(2), start(3)), occurrenceDates(template.getId()));
+        assertEquals(legacy.getId(), occurrenceId(template.getId(), start(0)));
+
+        // Adopted activities have a template now, so a restart adopts nothing
+        recurrenceTemplateService.adoptLegacyRecurringActivities();
+        assertEquals(1, recurrenceTemplateRepository.count());
+        assertTrue(activityRepository.findByStatusAndRepeatEveryWeekTrueAndTemplateIsNull(
+                legacy.getStatus()).isEmpty());
+    }
+
+    private RecurrenceTemplateDTO templateDTO(User trainer, int slots) {
+        DayOfWeek dayOfWeek = FIRST_DAY.getDayOfWeek();
+        return RecurrenceTemplateDTO.builder()
+                .name("Funcional")
+                .trainerId(trainer.getId())
+                .dayOfWeek(dayOfWeek)
+                .time(START_TIME)
+                .duration(60)
+                .maxParticipants(slots)
+                .build();
+    }
+
+    private ActivityFormTypeDTO moveTo(User trainer, LocalDateTime start) {
+        ActivityFormTypeDTO dto = new ActivityFormTypeDTO();
+        dto.setName("Funcional");
+        dto.setTrainerId(String.valueOf(trainer.getId()));
+        dto.setDate(start.toLocalDate());
+        dto.setTime(start.toLocalTime());
+        dto.setDuration("60");
+        dto.setMaxParticipants("10");
+        dto.setIsRecurring(true);
+        return dto;
+    }
+
+    private LocalDateTime start(int week) {
+        return FIRST_DAY.plusWeeks(week).atTime(START_TIME);
+    }
+
+    private List<LocalDateTime> occurrenceDates(Long templateId) {
+        return jdbcTemplate.queryForList("SELECT date FROM activity WHERE template_id = ? ORDER BY date",
+                LocalDateTime.class, templateId);
+    }
+
+    private Long occurrenceId(Long templateId, LocalDateTime date) {
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM activity WHERE template_id = ? AND date = ?",
+                Long.class, templateId, date);
+        assertNotNull(id);
+        return id;
+    }
+}
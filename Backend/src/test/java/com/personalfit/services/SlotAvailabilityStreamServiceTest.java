@@ -0,0 +1,162 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.personalfit.dto.Activity.ScheduleChangeDTO;
+import com.personalfit.dto.Activity.SlotAvailabilityDTO;
+import com.personalfit.repository.ActivityRepository;
+
+@ExtendWith(MockitoExtension.class)
+class SlotAvailabilityStreamServiceTest {
+
+    // Wednesday; its week starts on Sunday 2026-05-10
+    private static final LocalDateTime CLASS_START = LocalDateTime.of(2026, 5, 13, 18, 0);
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @InjectMocks
+    private SlotAvailabilityStreamService slotAvailabilityStreamService;
+
+    @AfterEach
+    void tearDown() {
+        slotAvailabilityStreamService.shutdown();
+    }
+
+    @Test
+    void subscribe_sendsTheWeeksSnapshotFirst() throws InterruptedException {
+        when(activityRepository.findSlotAvailabilityBetween(any(), any())).thenReturn(List.of(
+                availability(1L, 3), availability(2L, 5)));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        slotAvailabilityStreamService.subscribe(CLASS_START.toLocalDate(), emitter);
+
+        assertEquals(1L, emitter.next().getActivityId());
+        assertEquals(2L, emitter.next().getActivityId());
+    }
+
+    @Test
+    void publish_withoutTransaction_sendsTheCountersInReadOrderEndingWithTheLatest() throws InterruptedException {
+        AtomicInteger participants = new AtomicInteger(3);
+        when(activityRepository.findSlotAvailabilityBetween(any(), any())).thenReturn(List.of());
+        when(activityRepository.findSlotAvailability(1L))
+                .thenAnswer(invocation -> Optional.of(availability(1L, participants.incrementAndGet())));
+        RecordingEmitter emitter = new RecordingEmitter();
+        slotAvailabilityStreamService.subscribe(CLASS_START.toLocalDate(), emitter);
+
+        slotAvailabilityStreamService.publish(1L);
+        slotAvailabilityStreamService.publish(1L);
+        slotAvailabilityStreamService.publish(1L);
+
+        // Publishes during a read share the next one, so there may be fewer events
+        int previous = emitter.next().getCurrentParticipants();
+        SlotAvailabilityDTO event;
+        while ((event = emitter.events.poll(200, TimeUnit.MILLISECONDS)) != null) {
+            assertTrue(event.getCurrentParticipants() > previous);
+            previous = event.getCurrentParticipants();
+        }
+        assertEquals(participants.get(), previous);
+    }
+
+    @Test
+    void publish_withoutSubscribers_readsNothing() {
+        slotAvailabilityStreamService.publish(1L);
+
+        verify(activityRepository, never()).findSlotAvailability(any());
+    }
+
+    @Test
+    void publish_onlyReachesSubscribersOfTheActivitysWeek() throws InterruptedException {
+        when(activityRepository.findSlotAvailabilityBetween(any(), any())).thenReturn(List.of());
+        when(activityRepository.findSlotAvailability(1L)).thenReturn(Optional.of(availability(1L, 4)));
+        RecordingEmitter sameWeek = new RecordingEmitter();
+        RecordingEmitter nextWeek = new RecordingEmitter();
+        slotAvailabilityStreamService.subscribe(LocalDate.of(2026, 5, 16), sameWeek);
+        slotAvailabilityStreamService.subscribe(LocalDate.of(2026, 5, 17), nextWeek);
+
+        slotAvailabilityStreamService.publish(1L);
+
+        assertEquals(1L, sameWeek.next().getActivityId());
+        assertNull(nextWeek.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void publishWeekOf_tellsOnlyThatWeeksSubscribersToReload() throws InterruptedException {
+        when(activityRepository.findSlotAvailabilityBetween(any(), any())).thenReturn(List.of());
+        RecordingEmitter sameWeek = new RecordingEmitter();
+        RecordingEmitter nextWeek = new RecordingEmitter();
+        slotAvailabilityStreamService.subscribe(LocalDate.of(2026, 5, 16), sameWeek);
+        slotAvailabilityStreamService.subscribe(LocalDate.of(2026, 5, 17), nextWeek);
+
+        slotAvailabilityStreamService.publishWeekOf(CLASS_START);
+
+        ScheduleChangeDTO change = sameWeek.schedules.poll(5, TimeUnit.SECONDS);
+        assertNotNull(change, "no schedule event sent");
+        assertEquals(LocalDate.of(2026, 5, 10), change.getWeekStart());
+        assertNull(nextWeek.schedules.poll(200, TimeUnit.MILLISECONDS));
+        verify(activityRepository, never()).findSlotAvailability(any());
+    }
+
+    private SlotAvailabilityDTO availability(Long activityId, int participants) {
+        return SlotAvailabilityDTO.builder()
+                .activityId(activityId)
+                .date(CLASS_START)
+                .currentParticipants(participants)
+                .maxParticipants(10)
+                .build();
+    }
+
+    /**
+     * Keeps the availability and schedule payloads instead of writing to a
+     * response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<SlotAvailabilityDTO> events = new LinkedBlockingQueue<>();
+        private final BlockingQueue<ScheduleChangeDTO> schedules = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            for (DataWithMediaType item : items) {
+                if (item.getData() instanceof SlotAvailabilityDTO availability) {
+                    events.add(availability);
+                } else if (item.getData() instanceof ScheduleChangeDTO change) {
+                    schedules.add(change);
+                }
+            }
+        }
+
+        private SlotAvailabilityDTO next() throws InterruptedException {
+            SlotAvailabilityDTO event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no availability event sent");
+            return event;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.personalfit.enums.UserRole;
+import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.models.Activity;
+import com.personalfit.models.User;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.repository.AttendanceRepository;
+import com.personalfit.repository.UserRepository;
+import com.personalfit.support.IntegrationTest;
+import com.personalfit.support.TestData;
+
+class SlotReservationConcurrencyTest extends IntegrationTest {
+
+    private static final int SLOTS = 5;
+    private static final int CONCURRENT_ENROLLS = 40;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SlotReservationService slotReservationService;
+
+    @Test
+    void enrollUser_withConcurrentRequests_claimsExactlyTheAvailableSlots() throws Exception {
+        User trainer = userRepository.save(TestData.user(900000, UserRole.TRAINER));
+        Activity activity = activityRepository.save(TestData.activity("Funcional", trainer,
+                LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0), SLOTS));
+
+        List<User> clients = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_ENROLLS; i++) {
+            clients.add(userRepository.save(TestData.user(910000 + i, UserRole.CLIENT)));
+        }
+
+        // Seed the default setting up front so the threads don't race to create it
+        settingsService.getMaxActivitiesPerDay();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_ENROLLS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger enrolled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+
+        try {
+            for (User client : clients) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        attendanceService.enrollUser(client.getId(), activity.getId());
+                        enrolled.incrementAndGet();
+                    } catch (BusinessRuleException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(SLOTS, enrolled.get());
+        assertEquals(CONCURRENT_ENROLLS - SLOTS, rejected.get());
+        assertEquals(SLOTS, attendanceRepository.findByActivity(activity).size());
+        assertEquals(SLOTS, activityRepository.findById(activity.getId()).orElseThrow().getReservedSlots());
+    }
+
+    @Test
+    void reconcileReservedSlots_fixesOnlyDriftedCounters() {
+        User trainer = userRepository.save(TestData.user(900000, UserRole.TRAINER));
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        Activity drifted = activityRepository.save(TestData.activity("Funcional", trainer, tomorrow, SLOTS));
+        Activity accurate = activityRepository.save(TestData.activity("Yoga", trainer, tomorrow.plusHours(2), SLOTS));
+        settingsService.getMaxActivitiesPerDay();
+        for (int i = 0; i < 2; i++) {
+            User client = userRepository.save(TestData.user(910000 + i, UserRole.CLIENT));
+            attendanceService.enrollUser(client.getId(), drifted.getId());
+        }
+        // Edited by hand
+        jdbcTemplate.update("UPDATE activity SET reserved_slots = 0 WHERE id = ?", drifted.getId());
+
+        assertEquals(List.of(drifted.getId()), activityRepository.findIdsWithStaleReservedSlots());
+        slotReservationService.reconcileReservedSlots();
+
+        assertEquals(2, activityRepository.findById(drifted.getId()).orElseThrow().getReservedSlots());
+        assertEquals(0, activityRepository.findById(accurate.getId()).orElseThrow().getReservedSlots());
+        assertEquals(List.of(), activityRepository.findIdsWithStaleReservedSlots());
+    }
+}
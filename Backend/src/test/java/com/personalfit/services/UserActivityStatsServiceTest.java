@@ -0,0 +1,103 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.models.UserActivityStats;
+import com.personalfit.repository.UserActivityStatsRepository;
+
+@ExtendWith(MockitoExtension.class)
+class UserActivityStatsServiceTest {
+
+    private static final Long USER_ID = 5L;
+    private static final ZoneId ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final LocalDate TODAY = LocalDate.of(2026, 5, 22);
+
+    @Mock
+    private UserActivityStatsRepository userActivityStatsRepository;
+
+    @Mock
+    private ClientStatsService clientStatsService;
+
+    @InjectMocks
+    private UserActivityStatsService userActivityStatsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userActivityStatsService, "clock",
+                Clock.fixed(TODAY.atTime(12, 0).atZone(ZONE).toInstant(), ZONE));
+    }
+
+    @Test
+    void onStatusChanged_pendingToPresent_countsCompletedClassOfThisMonth() {
+        LocalDate monthStart = TODAY.withDayOfMonth(1);
+        LocalDateTime classStart = monthStart.atTime(18, 0);
+        UserActivityStats stats = buildStats(3, 1, monthStart.minusMonths(1).atTime(9, 0));
+        stats.setMonthStart(monthStart.minusMonths(1));
+        stats.setMonthCount(4);
+        when(userActivityStatsRepository.findByUserIdForUpdate(USER_ID)).thenReturn(Optional.of(stats));
+
+        userActivityStatsService.onStatusChanged(USER_ID, AttendanceStatus.PENDING, AttendanceStatus.PRESENT,
+                classStart);
+
+        assertEquals(2, stats.getCompletedCount());
+        assertEquals(classStart, stats.getLastCompletedAt());
+        assertEquals(1, stats.getMonthCountFor(monthStart));
+        verify(userActivityStatsRepository).save(stats);
+    }
+
+    @Test
+    void onStatusChanged_presentToLate_leavesCountersUntouched() {
+        userActivityStatsService.onStatusChanged(USER_ID, AttendanceStatus.PRESENT, AttendanceStatus.LATE,
+                LocalDateTime.now());
+
+        verify(userActivityStatsRepository, never()).findByUserIdForUpdate(any());
+    }
+
+    @Test
+    void onAttendanceRemoved_lastCompletedClass_recomputesFromAttendances() {
+        LocalDateTime lastClass = LocalDateTime.of(2026, 5, 20, 18, 0);
+        UserActivityStats stats = buildStats(3, 2, lastClass);
+        when(userActivityStatsRepository.findByUserIdForUpdate(USER_ID)).thenReturn(Optional.of(stats));
+        when(userActivityStatsRepository.aggregateByUserIds(anyCollection(), anyCollection(), any(), any()))
+                .thenReturn(List.of());
+        when(userActivityStatsRepository.findExistingUserIds(List.of(USER_ID))).thenReturn(List.of(USER_ID));
+        when(userActivityStatsRepository.findByUserIdsForUpdate(List.of(USER_ID))).thenReturn(List.of(stats));
+
+        userActivityStatsService.onAttendanceRemoved(USER_ID, AttendanceStatus.PRESENT, lastClass);
+
+        assertEquals(0, stats.getTotalCount());
+        assertEquals(0, stats.getCompletedCount());
+        assertNull(stats.getLastCompletedAt());
+    }
+
+    private UserActivityStats buildStats(int total, int completed, LocalDateTime lastCompletedAt) {
+        UserActivityStats stats = new UserActivityStats();
+        stats.setUserId(USER_ID);
+        stats.setTotalCount(total);
+        stats.setCompletedCount(completed);
+        stats.setLastCompletedAt(lastCompletedAt);
+        return stats;
+    }
+}
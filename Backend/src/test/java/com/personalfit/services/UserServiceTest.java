@@ -2,10 +2,18 @@ package com.personalfit.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,29 +21,34 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.mock.web.MockMultipartFile;
 
 import com.personalfit.enums.AttendanceStatus;
 import com.personalfit.enums.ActivityStatus;
-import com.personalfit.enums.PaymentStatus;
 import com.personalfit.enums.UserRole;
 import com.personalfit.enums.UserStatus;
+import com.personalfit.dto.User.AvatarFileDTO;
 import com.personalfit.dto.User.UserDetailInfoDTO;
+import com.personalfit.dto.User.UserSearchItemDTO;
+import com.personalfit.dto.User.UserSearchPageDTO;
 import com.personalfit.dto.User.UserTypeDTO;
+import com.personalfit.exceptions.BusinessRuleException;
 import com.personalfit.models.Activity;
 import com.personalfit.models.Attendance;
-import com.personalfit.models.Payment;
 import com.personalfit.models.User;
 import com.personalfit.repository.AttendanceRepository;
-import com.personalfit.repository.PaymentRepository;
 import com.personalfit.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,7 +58,7 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PaymentRepository paymentRepository;
+    private EnrollmentEligibilityService enrollmentEligibilityService;
 
     @Mock
     private AttendanceRepository attendanceRepository;
@@ -56,27 +69,14 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @InjectMocks
-    private UserService userService;
-
-    @Test
-    void getClientStats_countsPresentAndLateForCurrentMonthOnly() {
-        User client = buildClient(1L);
-        LocalDateTime now = LocalDateTime.now();
-
-        Attendance presentThisMonth = buildAttendance(now.minusDays(2), AttendanceStatus.PRESENT);
-        Attendance lateThisMonth = buildAttendance(now.minusDays(1), AttendanceStatus.LATE);
-        Attendance absentThisMonth = buildAttendance(now.minusDays(3), AttendanceStatus.ABSENT);
-        Attendance previousMonth = buildAttendance(now.minusMonths(1), AttendanceStatus.PRESENT);
+    @Mock
+    private ClientStatsService clientStatsService;
 
-        when(userRepository.findByIdAndDeletedAtIsNull(client.getId())).thenReturn(Optional.of(client));
-        when(attendanceRepository.findByUser(client))
-                .thenReturn(List.of(presentThisMonth, lateThisMonth, absentThisMonth, previousMonth));
-        when(paymentRepository.findTopByUserAndStatusOrderByCreatedAtDesc(client, PaymentStatus.PAID))
-                .thenReturn(Optional.of(Payment.builder().expiresAt(now.plusDays(10)).build()));
+    @Mock
+    private NfcCheckInService nfcCheckInService;
 
-        assertEquals(2, userService.getClientStats(client.getId()).getWeeklyActivityCount());
-    }
+    @InjectMocks
+    private UserService userService;
 
     @Test
     void getWeeklyActivityCount_excludesAbsentAndIncludesLate() {
@@ -152,22 +152,101 @@ class UserServiceTest {
     }
 
     @Test
-    void userBirthdayCheck_matchesMonthAndDayIgnoringBirthYear() {
+    void uploadAvatar_writesSquareThumbnailsServedWithoutDatabaseLookup() throws IOException {
+        User client = buildClient(16L);
+        client.setFirstName("Ana");
+        client.setLastName("Gomez");
+        client.setAvatar("AG");
+
+        Path tempDirectory = Files.createTempDirectory("avatar-thumbs-test");
+        ReflectionTestUtils.setField(userService, "uploadFolder", tempDirectory.toString());
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB), "png", png);
+        MockMultipartFile avatarFile = new MockMultipartFile("file", "photo.png", "image/png", png.toByteArray());
+
+        when(userRepository.findByIdAndDeletedAtIsNull(client.getId())).thenReturn(Optional.of(client));
+        when(userRepository.save(client)).thenReturn(client);
+
+        UserTypeDTO uploadedUser = userService.uploadAvatar(client.getId(), avatarFile);
+        assertNotNull(uploadedUser.getAvatarUpdatedAt());
+
+        AvatarFileDTO thumbnail = userService.getAvatarFile(client.getId(), 64);
+        BufferedImage image = ImageIO.read(thumbnail.getResource().getInputStream());
+
+        assertEquals("image/jpeg", thumbnail.getContentType());
+        assertTrue(thumbnail.getEtag().startsWith("\""));
+        assertEquals(64, image.getWidth());
+        assertEquals(64, image.getHeight());
+        assertTrue(Files.exists(tempDirectory.resolve("avatars/variants/16_256.jpg")));
+        try (var variants = Files.list(tempDirectory.resolve("avatars/variants"))) {
+            assertTrue(variants.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+        verify(userRepository, times(1)).findByIdAndDeletedAtIsNull(client.getId());
+
+        assertThrows(BusinessRuleException.class, () -> userService.getAvatarFile(client.getId(), 100));
+
+        userService.deleteAvatar(client.getId());
+        assertFalse(Files.exists(tempDirectory.resolve("avatars/variants/16_64.jpg")));
+    }
+
+    @Test
+    void getAvatarFile_servesOriginalAndSkipsDecodingOnceFormatIsMarkedUndecodable() throws IOException {
+        User client = buildClient(17L);
+        client.setFirstName("Eva");
+        client.setLastName("Ruiz");
+        client.setAvatar("ER");
+
+        Path tempDirectory = Files.createTempDirectory("avatar-undecodable-test");
+        ReflectionTestUtils.setField(userService, "uploadFolder", tempDirectory.toString());
+        MockMultipartFile avatarFile = new MockMultipartFile("file", "photo.png", "image/png",
+                "not-an-image".getBytes());
+
+        when(userRepository.findByIdAndDeletedAtIsNull(client.getId())).thenReturn(Optional.of(client));
+        when(userRepository.save(client)).thenReturn(client);
+
+        userService.uploadAvatar(client.getId(), avatarFile);
+        Path marker = tempDirectory.resolve("avatars/variants/17_original-only");
+        assertTrue(Files.exists(marker));
+
+        // Replacing the file behind the marker shows whether a request decodes again
+        Path original = tempDirectory.resolve("avatars/17_Eva_Ruiz.png");
+        ImageIO.write(new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+        AvatarFileDTO thumbnail = userService.getAvatarFile(client.getId(), 64);
+
+        assertEquals(original.toFile().length(), thumbnail.getResource().contentLength());
+        assertFalse(Files.exists(tempDirectory.resolve("avatars/variants/17_64.jpg")));
+
+        userService.deleteAvatar(client.getId());
+        assertFalse(Files.exists(marker));
+    }
+
+    @Test
+    void deleteUser_evictsTheNfcRosterEntry() {
+        User client = buildClient(18L);
+        client.setDni(30999888);
+        when(userRepository.findByIdAndDeletedAtIsNull(client.getId())).thenReturn(Optional.of(client));
+
+        userService.deleteUser(client.getId());
+
+        assertNotNull(client.getDeletedAt());
+        verify(enrollmentEligibilityService).evict(client.getId());
+        verify(nfcCheckInService).onUserChanged(30999888);
+    }
+
+    @Test
+    void userBirthdayCheck_looksUpTodaysMonthAndDayExcludingPendingUsers() {
         LocalDate today = LocalDate.now();
         User birthdayUser = buildClient(21L);
         birthdayUser.setBirthDate(today.minusYears(30));
 
-        User sameMonthDifferentDay = buildClient(22L);
-        sameMonthDifferentDay.setBirthDate(today.minusYears(25).plusDays(1));
-
-        User pendingBirthdayUser = buildClient(23L);
-        pendingBirthdayUser.setStatus(UserStatus.PENDING_APPROVAL);
-        pendingBirthdayUser.setBirthDate(today.minusYears(20));
-
         User admin = buildAdmin(99L);
 
-        when(userRepository.findAllByDeletedAtIsNull())
-                .thenReturn(List.of(birthdayUser, sameMonthDifferentDay, pendingBirthdayUser));
+        List<Integer> days = today.getMonthValue() == 2 && today.getDayOfMonth() == 28 && !today.isLeapYear()
+                ? List.of(28, 29)
+                : List.of(today.getDayOfMonth());
+        when(userRepository.findBirthdays(today.getMonthValue(), days, UserStatus.PENDING_APPROVAL))
+                .thenReturn(List.of(birthdayUser));
         when(userRepository.findAllByRoleAndDeletedAtIsNull(UserRole.ADMIN)).thenReturn(List.of(admin));
 
         userService.userBirthdayCheck();
@@ -175,6 +254,76 @@ class UserServiceTest {
         verify(notificationService).createBirthdayNotification(List.of(birthdayUser), List.of(admin));
     }
 
+    @Test
+    void userStatusDailyCheck_deactivatesExpiredMembersWithOneBulkUpdate() {
+        User expiredA = buildClient(31L);
+        User expiredB = buildClient(32L);
+        User admin = buildAdmin(99L);
+
+        when(userRepository.findActiveMembersWithExpiredMembership(eq(UserStatus.ACTIVE),
+                eq(Set.of(UserRole.TRAINER, UserRole.ADMIN)), eq(Set.of(42870789, 42331259)),
+                eq(LocalDate.now().plusDays(1).atStartOfDay())))
+                .thenReturn(List.of(expiredA, expiredB));
+        when(userRepository.updateStatusByIds(List.of(31L, 32L), UserStatus.ACTIVE, UserStatus.INACTIVE))
+                .thenReturn(2);
+        when(userRepository.findAllByRoleAndDeletedAtIsNull(UserRole.ADMIN)).thenReturn(List.of(admin));
+
+        userService.userStatusDailyCheck();
+
+        verify(userRepository).updateStatusByIds(List.of(31L, 32L), UserStatus.ACTIVE, UserStatus.INACTIVE);
+        verify(userRepository, never()).saveAll(any());
+        verify(notificationService).createPaymentExpiredNotification(List.of(expiredA, expiredB), List.of(admin));
+    }
+
+    @Test
+    void searchUsers_matchesNameSubstringAndDniPrefixAndReturnsTheNextCursor() {
+        List<UserSearchItemDTO> rows = List.of(
+                UserSearchItemDTO.builder().id(7L).firstName("Ana").lastName("Diaz").dni(4287).build(),
+                UserSearchItemDTO.builder().id(3L).firstName("Juan").lastName("Perez").dni(42870).build(),
+                UserSearchItemDTO.builder().id(9L).firstName("Luis").lastName("Sosa").dni(42871).build());
+        when(userRepository.searchPageByTerm("%4287%", "4287%", null, null, UserRole.ADMIN,
+                UserStatus.PENDING_APPROVAL, Set.of(42870789, 42331259), "", 0L, Limit.of(3)))
+                .thenReturn(rows);
+
+        UserSearchPageDTO page = userService.searchUsers(" 4287 ", null, null, null, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.getHasMore());
+        assertEquals("perez juan", page.getNextAfterName());
+        assertEquals(3L, page.getNextAfterId());
+    }
+
+    @Test
+    void searchUsers_escapesLikeWildcardsAndSkipsDniForText() {
+        when(userRepository.searchPageByTerm("%50!% o!_k%", null, UserRole.CLIENT, null, UserRole.ADMIN,
+                UserStatus.PENDING_APPROVAL, Set.of(42870789, 42331259), "", 0L, Limit.of(21)))
+                .thenReturn(List.of());
+
+        UserSearchPageDTO page = userService.searchUsers("50% O_K", UserRole.CLIENT, null, null, null, null);
+
+        assertFalse(page.getHasMore());
+        assertTrue(page.getItems().isEmpty());
+    }
+
+    @Test
+    void getUsersWithBirthdayOn_includesLeapDayBirthdaysOnFeb28OfNonLeapYears() {
+        userService.getUsersWithBirthdayOn(LocalDate.of(2027, 2, 28));
+        userService.getUsersWithBirthdayOn(LocalDate.of(2028, 2, 28));
+
+        verify(userRepository).findBirthdays(2, List.of(28, 29), UserStatus.PENDING_APPROVAL);
+        verify(userRepository).findBirthdays(2, List.of(28), UserStatus.PENDING_APPROVAL);
+    }
+
+    @Test
+    void setBirthDate_keepsIndexedMonthAndDayInSync() {
+        User user = buildClient(24L);
+
+        user.setBirthDate(LocalDate.of(1992, 2, 29));
+
+        assertEquals(2, user.getBirthMonth());
+        assertEquals(29, user.getBirthDay());
+    }
+
     private User buildClient(Long id) {
         User user = new User();
         user.setId(id);
@@ -0,0 +1,220 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.personalfit.dto.Attendance.WaitlistEntryDTO;
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.enums.AttendanceStatus;
+import com.personalfit.exceptions.BusinessRuleException;
+import com.personalfit.models.Activity;
+import com.personalfit.models.Attendance;
+import com.personalfit.models.User;
+import com.personalfit.models.WaitlistEntry;
+import com.personalfit.repository.ActivityRepository;
+import com.personalfit.repository.AttendanceRepository;
+import com.personalfit.repository.WaitlistEntryRepository;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistServiceTest {
+
+    private static final Long ACTIVITY_ID = 30L;
+    private static final LocalDateTime ACTIVITY_DATE = LocalDateTime.of(2026, 5, 27, 18, 0);
+
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SettingsService settingsService;
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private SlotReservationService slotReservationService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private NfcCheckInService nfcCheckInService;
+
+    @Mock
+    private WeeklyScheduleService weeklyScheduleService;
+
+    @Mock
+    private UserActivityStatsService userActivityStatsService;
+
+    @InjectMocks
+    private WaitlistService waitlistService;
+
+    @Test
+    void joinWaitlist_queuesUserForFullActivityAndReturnsPosition() {
+        User user = buildUser(1L);
+        Activity activity = buildActivity(10, 10);
+        when(userService.getUserById(1L)).thenReturn(user);
+        when(activityRepository.findByIdForUpdate(ACTIVITY_ID)).thenReturn(Optional.of(activity));
+        when(paymentService.canUserEnrollBasedOnPayment(1L)).thenReturn(true);
+        when(waitlistEntryRepository.save(any(WaitlistEntry.class))).thenAnswer(invocation -> {
+            WaitlistEntry entry = invocation.getArgument(0);
+            entry.setId(100L);
+            entry.setCreatedAt(ACTIVITY_DATE.minusDays(1));
+            return entry;
+        });
+        when(waitlistEntryRepository.countAhead(ACTIVITY_ID, ACTIVITY_DATE.minusDays(1), 100L)).thenReturn(2L);
+
+        WaitlistEntryDTO entry = waitlistService.joinWaitlist(1L, ACTIVITY_ID);
+
+        assertEquals(100L, entry.getId());
+        assertEquals(1L, entry.getUserId());
+        assertEquals(ACTIVITY_ID, entry.getActivityId());
+        assertEquals(3L, entry.getPosition());
+    }
+
+    @Test
+    void joinWaitlist_rejectsActivityWithFreeSlots() {
+        when(userService.getUserById(1L)).thenReturn(buildUser(1L));
+        when(activityRepository.findByIdForUpdate(ACTIVITY_ID)).thenReturn(Optional.of(buildActivity(10, 9)));
+
+        assertThrows(BusinessRuleException.class, () -> waitlistService.joinWaitlist(1L, ACTIVITY_ID));
+
+        verify(waitlistEntryRepository, never()).save(any());
+    }
+
+    @Test
+    void joinWaitlist_rejectsUserAlreadyQueued() {
+        when(userService.getUserById(1L)).thenReturn(buildUser(1L));
+        when(activityRepository.findByIdForUpdate(ACTIVITY_ID)).thenReturn(Optional.of(buildActivity(10, 10)));
+        when(waitlistEntryRepository.existsByUserIdAndActivityId(1L, ACTIVITY_ID)).thenReturn(true);
+
+        assertThrows(BusinessRuleException.class, () -> waitlistService.joinWaitlist(1L, ACTIVITY_ID));
+
+        verify(waitlistEntryRepository, never()).save(any());
+    }
+
+    @Test
+    void promoteWaitlisted_afterASeatIsReleased_enrollsOnlyTheHeadOfTheQueue() {
+        Activity activity = buildActivity(10, 9);
+        User head = buildUser(1L);
+        User next = buildUser(2L);
+        WaitlistEntry headEntry = buildEntry(head, activity);
+        WaitlistEntry nextEntry = buildEntry(next, activity);
+        when(activityRepository.findById(ACTIVITY_ID)).thenReturn(Optional.of(activity));
+        when(waitlistEntryRepository.findFirstByActivityIdOrderByCreatedAtAscIdAsc(ACTIVITY_ID))
+                .thenReturn(Optional.of(headEntry))
+                .thenReturn(Optional.of(nextEntry));
+        when(paymentService.canUserEnrollBasedOnPayment(any())).thenReturn(true);
+        when(settingsService.getMaxActivitiesPerDay()).thenReturn(2);
+        // The released seat goes to the head; the next one finds the class full
+        when(slotReservationService.tryReserve(ACTIVITY_ID)).thenReturn(true, false);
+
+        int promoted = waitlistService.promoteWaitlisted(ACTIVITY_ID);
+
+        assertEquals(1, promoted);
+        ArgumentCaptor<Attendance> attendance = ArgumentCaptor.forClass(Attendance.class);
+        verify(attendanceRepository).save(attendance.capture());
+        assertEquals(head, attendance.getValue().getUser());
+        assertEquals(AttendanceStatus.PENDING, attendance.getValue().getAttendance());
+        verify(waitlistEntryRepository).delete(headEntry);
+        verify(waitlistEntryRepository, never()).delete(nextEntry);
+        verify(notificationService).createWaitlistPromotionNotification(head, activity);
+        verify(weeklyScheduleService).evictWeekOf(ACTIVITY_DATE);
+    }
+
+    @Test
+    void promoteWaitlisted_dropsCandidatesWhoCanNoLongerEnroll() {
+        Activity activity = buildActivity(10, 9);
+        User deleted = buildUser(1L);
+        deleted.setDeletedAt(LocalDateTime.now());
+        WaitlistEntry entry = buildEntry(deleted, activity);
+        when(activityRepository.findById(ACTIVITY_ID)).thenReturn(Optional.of(activity));
+        when(waitlistEntryRepository.findFirstByActivityIdOrderByCreatedAtAscIdAsc(ACTIVITY_ID))
+                .thenReturn(Optional.of(entry))
+                .thenReturn(Optional.empty());
+
+        int promoted = waitlistService.promoteWaitlisted(ACTIVITY_ID);
+
+        assertEquals(0, promoted);
+        verify(waitlistEntryRepository).delete(entry);
+        verify(slotReservationService, never()).tryReserve(any());
+        verify(attendanceRepository, never()).save(any());
+    }
+
+    @Test
+    void promoteWaitlisted_skipsInactiveActivity() {
+        Activity activity = buildActivity(10, 9);
+        activity.setStatus(ActivityStatus.CANCELLED);
+        when(activityRepository.findById(ACTIVITY_ID)).thenReturn(Optional.of(activity));
+
+        assertEquals(0, waitlistService.promoteWaitlisted(ACTIVITY_ID));
+
+        verify(waitlistEntryRepository, never()).findFirstByActivityIdOrderByCreatedAtAscIdAsc(any());
+    }
+
+    @Test
+    void leaveWaitlist_removesTheEntry() {
+        when(waitlistEntryRepository.deleteByUserIdAndActivityId(1L, ACTIVITY_ID)).thenReturn(1);
+
+        waitlistService.leaveWaitlist(1L, ACTIVITY_ID);
+
+        verify(waitlistEntryRepository).deleteByUserIdAndActivityId(1L, ACTIVITY_ID);
+    }
+
+    @Test
+    void leaveWaitlist_rejectsUserNotQueued() {
+        when(waitlistEntryRepository.deleteByUserIdAndActivityId(1L, ACTIVITY_ID)).thenReturn(0);
+
+        assertThrows(BusinessRuleException.class, () -> waitlistService.leaveWaitlist(1L, ACTIVITY_ID));
+    }
+
+    private User buildUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setFirstName("Cliente");
+        user.setLastName(String.valueOf(id));
+        return user;
+    }
+
+    private Activity buildActivity(int slots, int reservedSlots) {
+        return Activity.builder()
+                .id(ACTIVITY_ID)
+                .name("Funcional")
+                .slots(slots)
+                .reservedSlots(reservedSlots)
+                .date(ACTIVITY_DATE)
+                .status(ActivityStatus.ACTIVE)
+                .build();
+    }
+
+    private WaitlistEntry buildEntry(User user, Activity activity) {
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setId(user.getId() + 100);
+        entry.setUser(user);
+        entry.setActivity(activity);
+        entry.setCreatedAt(ACTIVITY_DATE.minusDays(1));
+        return entry;
+    }
+}
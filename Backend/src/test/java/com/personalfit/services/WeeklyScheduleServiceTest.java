@@ -0,0 +1,105 @@
+package com.personalfit.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.personalfit.dto.Activity.ActivityTypeDTO;
+import com.personalfit.dto.Activity.WeeklyScheduleRowDTO;
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.repository.ActivityRepository;
+
+@ExtendWith(MockitoExtension.class)
+class WeeklyScheduleServiceTest {
+
+    private static final LocalDateTime WEEK_START = LocalDateTime.of(2026, 5, 24, 0, 0);
+    private static final LocalDateTime WEEK_END = LocalDateTime.of(LocalDate.of(2026, 5, 30), LocalTime.MAX);
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @InjectMocks
+    private WeeklyScheduleService weeklyScheduleService;
+
+    @Test
+    void getWeek_groupsProjectionRowsPerActivityForSundayToSaturdayRange() {
+        LocalDateTime classStart = LocalDateTime.of(2026, 5, 27, 18, 0);
+        when(activityRepository.findWeeklyScheduleRows(WEEK_START, WEEK_END)).thenReturn(List.of(
+                buildRow(1L, classStart, 10L, 500L),
+                buildRow(1L, classStart, 11L, null),
+                buildRow(2L, classStart.plusHours(1), null, null)));
+
+        List<ActivityTypeDTO> week = weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 27));
+
+        assertEquals(2, week.size());
+        assertEquals(List.of(10L, 11L), week.get(0).getParticipants());
+        assertEquals(List.of(10L), week.get(0).getParticipantsWithSummary());
+        assertEquals(2, week.get(0).getCurrentParticipants());
+        assertEquals("Laura Gomez", week.get(0).getTrainerName());
+        assertEquals(0, week.get(1).getCurrentParticipants());
+    }
+
+    @Test
+    void getWeek_isCachedUntilThatWeekIsEvicted() {
+        when(activityRepository.findWeeklyScheduleRows(WEEK_START, WEEK_END)).thenReturn(List.of());
+
+        weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 24));
+        weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 30));
+        weeklyScheduleService.evictWeekOf(LocalDateTime.of(2026, 6, 2, 9, 0));
+        weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 26));
+
+        verify(activityRepository, times(1)).findWeeklyScheduleRows(WEEK_START, WEEK_END);
+
+        weeklyScheduleService.evictWeekOf(LocalDateTime.of(2026, 5, 28, 9, 0));
+        weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 26));
+
+        verify(activityRepository, times(2)).findWeeklyScheduleRows(WEEK_START, WEEK_END);
+    }
+
+    @Test
+    void getWeek_returnsCopiesSoCallersCannotChangeTheCachedWeek() {
+        LocalDateTime classStart = LocalDateTime.of(2026, 5, 27, 18, 0);
+        when(activityRepository.findWeeklyScheduleRows(WEEK_START, WEEK_END)).thenReturn(List.of(
+                buildRow(1L, classStart, 10L, null)));
+
+        ActivityTypeDTO first = weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 27)).get(0);
+        first.getParticipants().add(99L);
+        first.setCurrentParticipants(2);
+        first.setName("Cambiado");
+        ActivityTypeDTO second = weeklyScheduleService.getWeek(LocalDate.of(2026, 5, 27)).get(0);
+
+        assertEquals(List.of(10L), second.getParticipants());
+        assertEquals(1, second.getCurrentParticipants());
+        assertEquals("Funcional", second.getName());
+        verify(activityRepository, times(1)).findWeeklyScheduleRows(WEEK_START, WEEK_END);
+    }
+
+    private WeeklyScheduleRowDTO buildRow(Long activityId, LocalDateTime date, Long participantId, Long summaryId) {
+        return WeeklyScheduleRowDTO.builder()
+                .activityId(activityId)
+                .name("Funcional")
+                .trainerId(3L)
+                .trainerFirstName("Laura")
+                .trainerLastName("Gomez")
+                .date(date)
+                .duration(60)
+                .slots(12)
+                .status(ActivityStatus.ACTIVE)
+                .isRecurring(false)
+                .participantId(participantId)
+                .summaryId(summaryId)
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.personalfit.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.personalfit.services.NotificationService;
+
+/**
+ * Base of the tests that run the real services and queries against H2.
+ *
+ * Every subclass shares one application context and one database; tables are
+ * emptied after each test so no test sees another one's rows. Push
+ * notifications are mocked.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.payment-expiration.chunk-size=2")
+public abstract class IntegrationTest {
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    protected NotificationService notificationService;
+
+    @AfterEach
+    void deleteAllRows() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            jdbcTemplate.queryForList("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                    + "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'", String.class)
+                    .forEach(table -> jdbcTemplate.execute("TRUNCATE TABLE \"" + table + "\""));
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+    }
+}
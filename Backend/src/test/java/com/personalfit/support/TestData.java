@@ -0,0 +1,64 @@
+package com.personalfit.support;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import com.personalfit.enums.ActivityStatus;
+import com.personalfit.enums.PaymentStatus;
+import com.personalfit.enums.UserRole;
+import com.personalfit.enums.UserStatus;
+import com.personalfit.models.Activity;
+import com.personalfit.models.Payment;
+import com.personalfit.models.User;
+
+/**
+ * Unsaved entities for the integration tests. Tests adjust the returned
+ * objects for the fields they care about.
+ */
+public final class TestData {
+
+    public static final double MONTHLY_FEE = 25000.0;
+
+    private TestData() {
+    }
+
+    public static User client(int dni, UserStatus status) {
+        User user = user(dni, UserRole.CLIENT);
+        user.setFirstName("Cliente");
+        user.setStatus(status);
+        return user;
+    }
+
+    public static User user(int dni, UserRole role) {
+        User user = new User();
+        user.setDni(dni);
+        user.setFirstName(role.name());
+        user.setLastName(String.valueOf(dni));
+        user.setRole(role);
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
+    }
+
+    public static Payment payment(PaymentStatus status, LocalDateTime createdAt, LocalDateTime expiresAt,
+            User... users) {
+        return Payment.builder()
+                .amount(MONTHLY_FEE)
+                .status(status)
+                .createdAt(createdAt)
+                .expiresAt(expiresAt)
+                .users(Set.of(users))
+                .build();
+    }
+
+    public static Activity activity(String name, User trainer, LocalDateTime date, int slots) {
+        return Activity.builder()
+                .name(name)
+                .slots(slots)
+                .date(date)
+                .duration(60)
+                .status(ActivityStatus.ACTIVE)
+                .trainer(trainer)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}